@@ -35,6 +35,10 @@ CREATE TABLE IF NOT EXISTS `users` (
 -- 名片表 (cards)
 -- 存储用户创建的电子名片信息
 -- ============================================
+-- 搜索使用 ngram 全文索引。InnoDB 默认停用词表会剔除包含停用词（如 a、i）的 n-gram，
+-- 导致英文关键词搜不到，建索引前在本会话关闭停用词（只影响此后创建的全文索引）
+SET SESSION innodb_ft_enable_stopword = OFF;
+
 CREATE TABLE IF NOT EXISTS `cards` (
     `id` INT UNSIGNED NOT NULL AUTO_INCREMENT,
     `user_id` INT UNSIGNED NOT NULL COMMENT '所属用户ID',
@@ -43,19 +47,27 @@ CREATE TABLE IF NOT EXISTS `cards` (
     `idol_name` VARCHAR(255) COMMENT '偶像名称',
     `card_front_path` VARCHAR(500) COMMENT '名片正面图片路径',
     `card_back_path` VARCHAR(500) COMMENT '名片背面图片路径',
+    `card_front_variants` VARCHAR(2000) DEFAULT NULL COMMENT '正面图片尺寸版本(JSON: 宽度->路径)，后台生成',
+    `card_back_variants` VARCHAR(2000) DEFAULT NULL COMMENT '背面图片尺寸版本(JSON: 宽度->路径)，后台生成',
     `image_orientation` VARCHAR(20) DEFAULT 'HORIZONTAL' COMMENT '图片方向: HORIZONTAL(横版), VERTICAL(竖版)',
     `unique_link_id` VARCHAR(100) NOT NULL UNIQUE COMMENT '唯一分享链接ID',
     `custom_sns` TEXT COMMENT '自定义社交媒体链接(JSON格式)',
     `visibility` VARCHAR(20) DEFAULT 'PUBLIC' COMMENT '可见性: PUBLIC(公开), PRIVATE(私密)',
     `share_token` VARCHAR(255) DEFAULT NULL COMMENT '分享令牌',
-    `short_code` VARCHAR(100) DEFAULT NULL COMMENT '短链接代码',
+    `short_code` VARCHAR(100) CHARACTER SET ascii COLLATE ascii_bin DEFAULT NULL COMMENT '短链接代码（Base62 区分大小写）',
+    `producer_name_sk` VARCHAR(255) DEFAULT NULL COMMENT '搜索键：制作人名称（繁转简、小写）',
+    `region_sk` VARCHAR(100) DEFAULT NULL COMMENT '搜索键：地区（繁转简、小写）',
+    `idol_name_sk` VARCHAR(255) DEFAULT NULL COMMENT '搜索键：偶像名称（繁转简、小写）',
+    `search_key_version` TINYINT UNSIGNED DEFAULT NULL COMMENT '搜索键规范化规则版本，NULL 表示待回填',
     `created_at` TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
     `updated_at` TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
     PRIMARY KEY (`id`),
     INDEX `idx_user_id` (`user_id`),
     INDEX `idx_unique_link_id` (`unique_link_id`),
-    INDEX `idx_short_code` (`short_code`),
+    UNIQUE INDEX `uk_short_code` (`short_code`),
     INDEX `idx_visibility` (`visibility`),
+    INDEX `idx_search_key_version` (`search_key_version`),
+    FULLTEXT INDEX `ft_cards_search` (`producer_name_sk`, `idol_name_sk`, `region_sk`, `unique_link_id`) WITH PARSER ngram,
     CONSTRAINT `fk_cards_user` FOREIGN KEY (`user_id`) 
         REFERENCES `users`(`id`) ON DELETE CASCADE ON UPDATE CASCADE
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='电子名片表';
@@ -89,6 +101,17 @@ CREATE TABLE IF NOT EXISTS `comments` (
         REFERENCES `comments`(`id`) ON DELETE CASCADE ON UPDATE CASCADE
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='评论表（支持嵌套回复）';
 
+-- ============================================
+-- 限流计数表 (rate_limit_counters)
+-- 多实例部署时共享限流计数（RATE_LIMIT_STORE=jdbc），按窗口累加，过期窗口由应用自动删除
+-- ============================================
+CREATE TABLE IF NOT EXISTS `rate_limit_counters` (
+    `counter_key` VARCHAR(128) NOT NULL COMMENT '限流键（策略名:客户端IP，超过列宽时存为 sha256 摘要）',
+    `window_id` BIGINT NOT NULL COMMENT '窗口序号（时间戳/窗口长度）',
+    `count` BIGINT NOT NULL DEFAULT 0 COMMENT '窗口内集群请求数',
+    PRIMARY KEY (`window_id`, `counter_key`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='限流计数表';
+
 -- ============================================
 -- 初始数据
 -- ============================================
@@ -1,11 +1,15 @@
 package com.example.pcard.controller;
 
+import com.example.pcard.dao.AdminStats;
 import com.example.pcard.dao.CardDao;
 import com.example.pcard.dao.CommentDao;
 import com.example.pcard.dao.UserDao;
 import com.example.pcard.model.Card;
 import com.example.pcard.model.Comment;
 import com.example.pcard.model.User;
+import com.example.pcard.util.DbUtil;
+import com.example.pcard.util.HttpUtil;
+import com.example.pcard.util.ShortCodeUtil;
 
 import javax.servlet.ServletException;
 import javax.servlet.annotation.WebServlet;
@@ -13,10 +17,15 @@ import javax.servlet.http.HttpServlet;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import javax.servlet.http.HttpSession;
+import java.io.BufferedWriter;
 import java.io.IOException;
-import java.io.PrintWriter;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.sql.SQLException;
 import java.util.*;
+import java.util.zip.GZIPOutputStream;
 
 @WebServlet("/admin")
 public class AdminServlet extends HttpServlet {
@@ -24,6 +33,11 @@ public class AdminServlet extends HttpServlet {
     private final CardDao cardDao = new CardDao();
     private final CommentDao commentDao = new CommentDao();
 
+    // CSV 导出的写缓冲区大小（字节）
+    private static final int CSV_BUFFER_SIZE = 16 * 1024;
+    // 导出中途失败时追加的末行
+    private static final String CSV_ERROR_ROW = "\n\"#ERROR\",\"导出失败，以上数据不完整\"\n";
+
     @Override
     protected void doGet(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
         if (!isAdmin(request)) {
@@ -43,22 +57,16 @@ public class AdminServlet extends HttpServlet {
         }
         
         try {
-            // 统计信息
-            int totalUsers = userDao.countUsers(null, null, null);
-            int totalAdmins = userDao.getAdminCount();
-            int totalActiveUsers = userDao.countUsers(null, null, "active");
-            int totalBannedUsers = userDao.countUsers(null, null, "banned");
-            int totalCards = cardDao.countAdminCards(null, null);
-            int totalPublicCards = cardDao.countAdminCards(null, "PUBLIC");
-            int totalPrivateCards = cardDao.countAdminCards(null, "PRIVATE");
+            // 统计信息（缓存的快照，每张表一条分组查询）
+            AdminStats.Snapshot stats = AdminStats.get();
             
-            request.setAttribute("totalUsers", totalUsers);
-            request.setAttribute("totalAdmins", totalAdmins);
-            request.setAttribute("totalActiveUsers", totalActiveUsers);
-            request.setAttribute("totalBannedUsers", totalBannedUsers);
-            request.setAttribute("totalCards", totalCards);
-            request.setAttribute("totalPublicCards", totalPublicCards);
-            request.setAttribute("totalPrivateCards", totalPrivateCards);
+            request.setAttribute("totalUsers", stats.getTotalUsers());
+            request.setAttribute("totalAdmins", stats.getAdmins());
+            request.setAttribute("totalActiveUsers", stats.getActiveUsers());
+            request.setAttribute("totalBannedUsers", stats.getBannedUsers());
+            request.setAttribute("totalCards", stats.getTotalCards());
+            request.setAttribute("totalPublicCards", stats.getPublicCards());
+            request.setAttribute("totalPrivateCards", stats.getPrivateCards());
             
             // 根据视图显示不同内容
             if ("comments".equals(view)) {
@@ -90,6 +98,13 @@ public class AdminServlet extends HttpServlet {
         int pageSize = 10; // fixed for now; can be made configurable later
         int userOffset = (userPage - 1) * pageSize;
         int cardOffset = (cardPage - 1) * pageSize;
+        // 游标：翻页链接携带当前页首/尾 id，按主键范围扫描取页；没有游标时（直接访问某页）退回 OFFSET
+        Integer userAfter = parseCursor(request.getParameter("uAfter"));
+        Integer userBefore = parseCursor(request.getParameter("uBefore"));
+        Integer cardAfter = parseCursor(request.getParameter("cAfter"));
+        Integer cardBefore = parseCursor(request.getParameter("cBefore"));
+        boolean userKeyset = userPage == 1 || userAfter != null || userBefore != null;
+        boolean cardKeyset = cardPage == 1 || cardAfter != null || cardBefore != null;
 
         List<User> allUsers;
         List<Card> allCards;
@@ -98,18 +113,26 @@ public class AdminServlet extends HttpServlet {
 
         if ((userQ != null && !userQ.isEmpty()) || (role != null && !role.isEmpty() && !"all".equalsIgnoreCase(role)) || (status != null && !status.isEmpty() && !"all".equalsIgnoreCase(status))) {
             userTotal = userDao.countUsers(userQ, role, status);
-            allUsers = userDao.searchUsersPaged(userQ, role, status, userOffset, pageSize);
+            allUsers = userKeyset
+                    ? userDao.searchUsersKeyset(userQ, role, status, userAfter, userBefore, pageSize)
+                    : userDao.searchUsersPaged(userQ, role, status, userOffset, pageSize);
         } else {
-            userTotal = userDao.countUsers(null, null, null);
-            allUsers = userDao.getAllUsersPaged(userOffset, pageSize);
+            userTotal = AdminStats.get().getTotalUsers();
+            allUsers = userKeyset
+                    ? userDao.getAllUsersKeyset(userAfter, userBefore, pageSize)
+                    : userDao.getAllUsersPaged(userOffset, pageSize);
         }
 
         if ((cardQ != null && !cardQ.isEmpty()) || (visibility != null && !visibility.isEmpty() && !"all".equalsIgnoreCase(visibility))) {
             cardTotal = cardDao.countAdminCards(cardQ, visibility);
-            allCards = cardDao.adminSearchCardsPaged(cardQ, visibility, cardOffset, pageSize);
+            allCards = cardKeyset
+                    ? cardDao.adminSearchCardsKeyset(cardQ, visibility, cardAfter, cardBefore, pageSize)
+                    : cardDao.adminSearchCardsPaged(cardQ, visibility, cardOffset, pageSize);
         } else {
-            cardTotal = cardDao.countAdminCards(null, null);
-            allCards = cardDao.getAllCardsPaged(cardOffset, pageSize);
+            cardTotal = AdminStats.get().getTotalCards();
+            allCards = cardKeyset
+                    ? cardDao.getAllCardsKeyset(cardAfter, cardBefore, pageSize)
+                    : cardDao.getAllCardsPaged(cardOffset, pageSize);
         }
 
         // total pages
@@ -132,6 +155,15 @@ public class AdminServlet extends HttpServlet {
         request.setAttribute("pageSize", pageSize);
         request.setAttribute("userTotalPages", userTotalPages);
         request.setAttribute("cardTotalPages", cardTotalPages);
+        // 当前页首/尾 id，用作上一页/下一页的游标
+        if (!allUsers.isEmpty()) {
+            request.setAttribute("userFirstId", allUsers.get(0).getId());
+            request.setAttribute("userLastId", allUsers.get(allUsers.size() - 1).getId());
+        }
+        if (!allCards.isEmpty()) {
+            request.setAttribute("cardFirstId", allCards.get(0).getId());
+            request.setAttribute("cardLastId", allCards.get(allCards.size() - 1).getId());
+        }
         request.getRequestDispatcher("admin.jsp").forward(request, response);
     }
     
@@ -167,60 +199,83 @@ public class AdminServlet extends HttpServlet {
     }
     
     private void exportUsers(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
+        Writer writer = openCsv(request, response, "users");
         try {
-            List<User> users = userDao.getAllUsers();
-            
-            response.setContentType("text/csv;charset=UTF-8");
-            response.setHeader("Content-Disposition", "attachment; filename=\"users_" + System.currentTimeMillis() + ".csv\"");
-            
-            PrintWriter writer = response.getWriter();
-            writer.println("ID,用户名,昵称,角色,状态");
-            
-            for (User user : users) {
-                writer.println(String.format("%d,\"%s\",\"%s\",\"%s\",\"%s\"",
-                    user.getId(),
-                    escapeCsv(user.getUsername()),
-                    escapeCsv(user.getNickname()),
-                    escapeCsv(user.getRole()),
-                    escapeCsv(user.getStatus())));
-            }
-            
-            writer.flush();
-        } catch (SQLException e) {
+            writer.write("ID,用户名,昵称,角色,状态\n");
+            userDao.streamAllUsers(user -> {
+                writer.write(Integer.toString(user.getId()));
+                writeCsvField(writer, user.getUsername());
+                writeCsvField(writer, user.getNickname());
+                writeCsvField(writer, user.getRole());
+                writeCsvField(writer, user.getStatus());
+                writer.write('\n');
+            });
+        } catch (SQLException | RuntimeException e) {
+            abortCsv(writer);
             throw new ServletException("Failed to export users", e);
         }
+        writer.close();
     }
     
     private void exportCards(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
+        Writer writer = openCsv(request, response, "cards");
         try {
-            List<Card> cards = cardDao.getAllCards();
-            
-            response.setContentType("text/csv;charset=UTF-8");
-            response.setHeader("Content-Disposition", "attachment; filename=\"cards_" + System.currentTimeMillis() + ".csv\"");
-            
-            PrintWriter writer = response.getWriter();
-            writer.println("ID,所有者,P名,担当,地区,可见性,链接ID");
-            
-            for (Card card : cards) {
-                writer.println(String.format("%d,\"%s\",\"%s\",\"%s\",\"%s\",\"%s\",\"%s\"",
-                    card.getId(),
-                    escapeCsv(card.getOwnerUsername()),
-                    escapeCsv(card.getProducerName()),
-                    escapeCsv(card.getIdolName()),
-                    escapeCsv(card.getRegion()),
-                    escapeCsv(card.getVisibility()),
-                    escapeCsv(card.getUniqueLinkId())));
-            }
-            
-            writer.flush();
-        } catch (SQLException e) {
+            writer.write("ID,所有者,P名,担当,地区,可见性,链接ID\n");
+            cardDao.streamAllCards(card -> {
+                writer.write(Integer.toString(card.getId()));
+                writeCsvField(writer, card.getOwnerUsername());
+                writeCsvField(writer, card.getProducerName());
+                writeCsvField(writer, card.getIdolName());
+                writeCsvField(writer, card.getRegion());
+                writeCsvField(writer, card.getVisibility());
+                writeCsvField(writer, card.getUniqueLinkId());
+                writer.write('\n');
+            });
+        } catch (SQLException | RuntimeException e) {
+            abortCsv(writer);
             throw new ServletException("Failed to export cards", e);
         }
+        writer.close();
     }
     
-    private String escapeCsv(String value) {
-        if (value == null) return "";
-        return value.replace("\"", "\"\"");
+    /**
+     * 打开 CSV 导出的输出流：数据库游标逐行写入缓冲区，缓冲区满即发送，内存占用与行数无关
+     * 客户端支持 gzip 时压缩输出（CSV 通常可压缩到 1/5 以下）
+     */
+    private Writer openCsv(HttpServletRequest request, HttpServletResponse response, String name) throws IOException {
+        response.setContentType("text/csv;charset=UTF-8");
+        response.setHeader("Content-Disposition", "attachment; filename=\"" + name + "_" + System.currentTimeMillis() + ".csv\"");
+        response.setHeader("Vary", "Accept-Encoding");
+        OutputStream out = response.getOutputStream();
+        if (HttpUtil.acceptsGzip(request.getHeader("Accept-Encoding"))) {
+            response.setHeader("Content-Encoding", "gzip");
+            out = new GZIPOutputStream(out, CSV_BUFFER_SIZE);
+        }
+        return new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), CSV_BUFFER_SIZE);
+    }
+    
+    /**
+     * 导出中途失败时在末尾追加错误标记行再结束输出
+     * 响应头已发出，无法再改状态码；不加标记的话被截断的文件看起来和完整导出一样
+     */
+    private static void abortCsv(Writer writer) {
+        try {
+            writer.write(CSV_ERROR_ROW);
+            writer.close();
+        } catch (IOException e) {
+            // 客户端已断开，不再处理
+        }
+    }
+    
+    /**
+     * 写出一个带引号的字段（前置逗号），引号按 CSV 规则转义
+     */
+    private static void writeCsvField(Writer writer, String value) throws IOException {
+        writer.write(",\"");
+        if (value != null) {
+            writer.write(value.indexOf('"') < 0 ? value : value.replace("\"", "\"\""));
+        }
+        writer.write('"');
     }
 
     @Override
@@ -266,16 +321,20 @@ public class AdminServlet extends HttpServlet {
             } else if ("deleteUser".equals(action)) {
                 try {
                     int userId = Integer.parseInt(request.getParameter("userId"));
-                    User target = userDao.getUserById(userId);
-                    if (target != null && "admin".equals(target.getRole())) {
-                        int admins = userDao.getAdminCount();
-                        if (admins <= 1) {
-                            request.getSession().setAttribute("adminError", "必须至少保留一个管理员，无法删除最后一位管理员");
-                            response.sendRedirect("admin");
-                            return;
+                    // 检查和删除共用一个连接
+                    boolean deleted = DbUtil.inTransaction(() -> {
+                        User target = userDao.getUserById(userId);
+                        if (target != null && "admin".equals(target.getRole()) && userDao.getAdminCount() <= 1) {
+                            return false;
                         }
+                        userDao.deleteUser(userId);
+                        return true;
+                    });
+                    if (!deleted) {
+                        request.getSession().setAttribute("adminError", "必须至少保留一个管理员，无法删除最后一位管理员");
+                        response.sendRedirect("admin");
+                        return;
                     }
-                    userDao.deleteUser(userId);
                 } catch (SQLException | NumberFormatException e) {
                     throw new ServletException("Failed to delete user", e);
                 }
@@ -286,59 +345,53 @@ public class AdminServlet extends HttpServlet {
                     if (!"admin".equals(role) && !"user".equals(role)) {
                         throw new IllegalArgumentException("Invalid role");
                     }
-                    User target = userDao.getUserById(userId);
                     User actor = (User) request.getSession().getAttribute("user");
-
-                    if (target != null && actor != null) {
-                        boolean isSuperAdmin = "admin".equalsIgnoreCase(actor.getUsername());
-                        boolean selfDemote = actor.getId() == target.getId();
-                        
-                        // 超级管理员 admin 不能修改自己的权限
-                        if ("admin".equalsIgnoreCase(target.getUsername()) && selfDemote) {
-                            request.getSession().setAttribute("adminError", "超级管理员 admin 不能修改自己的权限");
-                            response.sendRedirect("admin");
-                            return;
-                        }
-                        
-                        // 如果不是超级管理员,则应用普通管理员的限制
-                        if (!isSuperAdmin) {
-                            // 普通管理员不能给其他用户升权
-                            if ("user".equals(target.getRole()) && "admin".equals(role)) {
-                                request.getSession().setAttribute("adminError", "只有超级管理员 admin 可以给其他用户升权");
-                                response.sendRedirect("admin");
-                                return;
-                            }
+                    // 权限检查和更新共用一个连接，返回拒绝原因（null 表示已更新）
+                    String error = DbUtil.inTransaction(() -> {
+                        User target = userDao.getUserById(userId);
+                        if (target != null && actor != null) {
+                            boolean isSuperAdmin = "admin".equalsIgnoreCase(actor.getUsername());
+                            boolean selfDemote = actor.getId() == target.getId();
                             
-                            // 普通管理员不能降级其他管理员
-                            if ("admin".equals(target.getRole()) && "user".equals(role) && !selfDemote) {
-                                request.getSession().setAttribute("adminError", "只有超级管理员 admin 可以降级其他管理员");
-                                response.sendRedirect("admin");
-                                return;
+                            // 超级管理员 admin 不能修改自己的权限
+                            if ("admin".equalsIgnoreCase(target.getUsername()) && selfDemote) {
+                                return "超级管理员 admin 不能修改自己的权限";
                             }
                             
-                            // 普通管理员给自己降权时,确保至少保留一个管理员
-                            if (selfDemote && "admin".equals(target.getRole()) && "user".equals(role)) {
-                                int admins = userDao.getAdminCount();
-                                if (admins <= 1) {
-                                    request.getSession().setAttribute("adminError", "必须至少保留一个管理员，无法将最后一位管理员降级");
-                                    response.sendRedirect("admin");
-                                    return;
+                            // 如果不是超级管理员,则应用普通管理员的限制
+                            if (!isSuperAdmin) {
+                                // 普通管理员不能给其他用户升权
+                                if ("user".equals(target.getRole()) && "admin".equals(role)) {
+                                    return "只有超级管理员 admin 可以给其他用户升权";
+                                }
+                                
+                                // 普通管理员不能降级其他管理员
+                                if ("admin".equals(target.getRole()) && "user".equals(role) && !selfDemote) {
+                                    return "只有超级管理员 admin 可以降级其他管理员";
+                                }
+                                
+                                // 普通管理员给自己降权时,确保至少保留一个管理员
+                                if (selfDemote && "admin".equals(target.getRole()) && "user".equals(role)
+                                        && userDao.getAdminCount() <= 1) {
+                                    return "必须至少保留一个管理员，无法将最后一位管理员降级";
                                 }
                             }
-                        }
-                        
-                        // 超级管理员在降级其他管理员时,也要确保至少保留一个管理员
-                        if (isSuperAdmin && "admin".equals(target.getRole()) && "user".equals(role) && !selfDemote) {
-                            int admins = userDao.getAdminCount();
-                            if (admins <= 1) {
-                                request.getSession().setAttribute("adminError", "必须至少保留一个管理员，无法将最后一位管理员降级");
-                                response.sendRedirect("admin");
-                                return;
+                            
+                            // 超级管理员在降级其他管理员时,也要确保至少保留一个管理员
+                            if (isSuperAdmin && "admin".equals(target.getRole()) && "user".equals(role) && !selfDemote
+                                    && userDao.getAdminCount() <= 1) {
+                                return "必须至少保留一个管理员，无法将最后一位管理员降级";
                             }
                         }
-                    }
 
-                    userDao.updateUserRole(userId, role);
+                        userDao.updateUserRole(userId, role);
+                        return null;
+                    });
+                    if (error != null) {
+                        request.getSession().setAttribute("adminError", error);
+                        response.sendRedirect("admin");
+                        return;
+                    }
                 } catch (SQLException | IllegalArgumentException e) {
                     throw new ServletException("Failed to update user role", e);
                 }
@@ -349,21 +402,24 @@ public class AdminServlet extends HttpServlet {
                     if (!"PUBLIC".equals(visibility) && !"LINK_ONLY".equals(visibility) && !"PRIVATE".equals(visibility)) {
                         throw new IllegalArgumentException("Invalid visibility");
                     }
-                    Card card = cardDao.getCardById(cardId);
-                    if (card != null) {
-                        card.setVisibility(visibility);
-                        if ("LINK_ONLY".equals(visibility)) {
-                            if (card.getShareToken() == null || card.getShareToken().isEmpty()) {
-                                card.setShareToken(java.util.UUID.randomUUID().toString());
+                    DbUtil.inTransaction(() -> {
+                        Card card = cardDao.getCardById(cardId);
+                        if (card != null) {
+                            card.setVisibility(visibility);
+                            if ("LINK_ONLY".equals(visibility)) {
+                                if (card.getShareToken() == null || card.getShareToken().isEmpty()) {
+                                    card.setShareToken(java.util.UUID.randomUUID().toString());
+                                }
                             }
-                        }
-                        if ("PUBLIC".equals(visibility) || "LINK_ONLY".equals(visibility)) {
-                            if (card.getShortCode() == null || card.getShortCode().isEmpty()) {
-                                card.setShortCode(generateShortCode());
+                            if ("PUBLIC".equals(visibility) || "LINK_ONLY".equals(visibility)) {
+                                if (card.getShortCode() == null || card.getShortCode().isEmpty()) {
+                                    card.setShortCode(ShortCodeUtil.forId(card.getId()));
+                                }
                             }
+                            cardDao.updateCard(card);
                         }
-                        cardDao.updateCard(card);
-                    }
+                        return null;
+                    });
                 } catch (SQLException | IllegalArgumentException e) {
                     throw new ServletException("Failed to update card visibility", e);
                 }
@@ -384,89 +440,52 @@ public class AdminServlet extends HttpServlet {
     private void handleBatchBanUsers(HttpServletRequest request, HttpServletResponse response) throws SQLException, IOException {
         String[] userIds = request.getParameterValues("userIds");
         if (userIds != null && userIds.length > 0) {
-            for (String id : userIds) {
-                try {
-                    int userId = Integer.parseInt(id);
-                    User user = userDao.getUserById(userId);
-                    if (user != null && !"admin".equals(user.getRole())) {
-                        userDao.updateUserStatus(userId, "banned");
-                    }
-                } catch (NumberFormatException e) {
-                    // Skip invalid ID
-                }
-            }
-            request.getSession().setAttribute("adminSuccess", "批量封禁成功，共处理 " + userIds.length + " 个用户");
+            // 管理员和已封禁的用户由 DAO 跳过
+            Set<Integer> banned = userDao.banUsers(parseIds(userIds));
+            request.getSession().setAttribute("adminSuccess", "批量封禁成功，共封禁 " + banned.size() + " 个用户");
         }
     }
     
     private void handleBatchDeleteUsers(HttpServletRequest request, HttpServletResponse response) throws SQLException, IOException {
         String[] userIds = request.getParameterValues("userIds");
-        int deleted = 0;
         if (userIds != null && userIds.length > 0) {
-            for (String id : userIds) {
-                try {
-                    int userId = Integer.parseInt(id);
-                    User user = userDao.getUserById(userId);
-                    if (user != null && !"admin".equals(user.getRole())) {
-                        userDao.deleteUser(userId);
-                        deleted++;
-                    }
-                } catch (NumberFormatException e) {
-                    // Skip invalid ID
-                }
-            }
-            request.getSession().setAttribute("adminSuccess", "批量删除成功，共删除 " + deleted + " 个用户");
+            // 管理员由 DAO 跳过
+            Set<Integer> deleted = userDao.deleteUsers(parseIds(userIds));
+            request.getSession().setAttribute("adminSuccess", "批量删除成功，共删除 " + deleted.size() + " 个用户");
         }
     }
     
     private void handleBatchDeleteCards(HttpServletRequest request, HttpServletResponse response) throws SQLException, IOException {
         String[] cardIds = request.getParameterValues("cardIds");
-        int deleted = 0;
         if (cardIds != null && cardIds.length > 0) {
-            for (String id : cardIds) {
-                try {
-                    int cardId = Integer.parseInt(id);
-                    cardDao.deleteCard(cardId);
-                    deleted++;
-                } catch (NumberFormatException e) {
-                    // Skip invalid ID
-                }
-            }
-            request.getSession().setAttribute("adminSuccess", "批量删除成功，共删除 " + deleted + " 张名片");
+            Set<Integer> deleted = cardDao.deleteCards(parseIds(cardIds));
+            request.getSession().setAttribute("adminSuccess", "批量删除成功，共删除 " + deleted.size() + " 张名片");
         }
     }
     
     private void handleBatchSetCardVisibility(HttpServletRequest request, HttpServletResponse response) throws SQLException, IOException {
         String[] cardIds = request.getParameterValues("cardIds");
         String visibility = request.getParameter("batchVisibility");
-        int updated = 0;
         
         if (cardIds != null && cardIds.length > 0 && visibility != null) {
-            for (String id : cardIds) {
-                try {
-                    int cardId = Integer.parseInt(id);
-                    Card card = cardDao.getCardById(cardId);
-                    if (card != null) {
-                        card.setVisibility(visibility);
-                        if ("LINK_ONLY".equals(visibility)) {
-                            if (card.getShareToken() == null || card.getShareToken().isEmpty()) {
-                                card.setShareToken(UUID.randomUUID().toString());
-                            }
-                        }
-                        if ("PUBLIC".equals(visibility) || "LINK_ONLY".equals(visibility)) {
-                            if (card.getShortCode() == null || card.getShortCode().isEmpty()) {
-                                card.setShortCode(generateShortCode());
-                            }
-                        }
-                        cardDao.updateCard(card);
-                        updated++;
-                    }
-                } catch (NumberFormatException e) {
-                    // Skip invalid ID
-                }
+            Set<Integer> updated = cardDao.setVisibility(parseIds(cardIds), visibility);
+            request.getSession().setAttribute("adminSuccess", "批量更新可见性成功，共更新 " + updated.size() + " 张名片");
+        }
+    }
+    
+    /**
+     * 解析批量操作的ID列表，跳过无效ID
+     */
+    private List<Integer> parseIds(String[] values) {
+        List<Integer> ids = new ArrayList<>(values.length);
+        for (String value : values) {
+            try {
+                ids.add(Integer.parseInt(value));
+            } catch (NumberFormatException e) {
+                // Skip invalid ID
             }
-            request.getSession().setAttribute("adminSuccess", "批量更新可见性成功，共更新 " + updated + " 张名片");
         }
+        return ids;
     }
     
     private void handleDeleteComment(HttpServletRequest request, HttpServletResponse response) throws SQLException, IOException {
@@ -495,15 +514,13 @@ public class AdminServlet extends HttpServlet {
 
     private String safe(String s) { return s == null ? null : s.trim(); }
 
-    private static final String BASE62 = "0123456789abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ";
-    private String generateShortCode() {
-        StringBuilder sb = new StringBuilder();
-        java.util.Random rnd = new java.util.Random();
-        int len = 7;
-        for (int i = 0; i < len; i++) {
-            sb.append(BASE62.charAt(rnd.nextInt(BASE62.length())));
+    private Integer parseCursor(String p) {
+        try {
+            int n = Integer.parseInt(p);
+            return n > 0 ? n : null;
+        } catch (Exception e) {
+            return null;
         }
-        return sb.toString();
     }
 
     private int parsePage(String p) {
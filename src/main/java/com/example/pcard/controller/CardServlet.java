@@ -3,23 +3,36 @@ package com.example.pcard.controller;
 import com.example.pcard.dao.CardDao;
 import com.example.pcard.model.Card;
 import com.example.pcard.model.User;
+import com.example.pcard.storage.StorageBackend;
+import com.example.pcard.storage.StorageBackends;
+import com.example.pcard.util.DbUtil;
+import com.example.pcard.util.ImageHeaderParser;
+import com.example.pcard.util.ImageVariantWorker;
+import com.example.pcard.util.ShortCodeUtil;
 import com.google.gson.Gson;
 
 import javax.servlet.ServletException;
 import javax.servlet.annotation.MultipartConfig;
 import javax.servlet.annotation.WebServlet;
 import javax.servlet.http.*;
-import javax.imageio.ImageIO;
-import java.awt.image.BufferedImage;
-import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
-import java.util.Random;
 import java.util.Set;
-import java.util.HashSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 /**
  * 名片操作控制器
@@ -32,11 +45,11 @@ public class CardServlet extends HttpServlet {
     private final Gson gson = new Gson();
 
     private static final long MAX_FILE_SIZE = 5L * 1024L * 1024L; // 5MB
-    private static final String BASE62 = "0123456789abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ";
-    private static final int SHORT_CODE_LENGTH = 7;
     private static final int MAX_SNS_LINKS = 10; // SNS链接数量上限
     private static final int MAX_SNS_NAME_LENGTH = 30; // SNS平台名称最大长度
     private static final int MAX_SNS_VALUE_LENGTH = 500; // SNS链接值最大长度
+    // 允许的文件扩展名
+    private static final Set<String> ALLOWED_EXTENSIONS = new HashSet<>(Arrays.asList(".png", ".jpg", ".jpeg", ".gif", ".webp"));
 
     @Override
     protected void doPost(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
@@ -79,15 +92,34 @@ public class CardServlet extends HttpServlet {
         }
     }
 
+    /**
+     * 已提交存储的上传图片：存储键 + 访问路径 + 从文件头解析出的方向 + 存储结果
+     */
+    private static final class StoredImage {
+        private final String key;
+        private final String path;
+        private final String orientation;
+        private final CompletableFuture<Boolean> stored;
+
+        private StoredImage(String key, String path, String orientation, CompletableFuture<Boolean> stored) {
+            this.key = key;
+            this.path = path;
+            this.orientation = orientation;
+            this.stored = stored;
+        }
+    }
+
     /**
      * 保存上传的文件
+     * 只读取一次上传内容：边写入暂存文件边校验魔数、从文件头解析宽高（不解码像素），再异步交给存储后端，
+     * 调用方可以在存储进行时继续数据库操作，写入名片前通过 {@link #awaitStored} 等待完成
      * @param request HTTP请求
      * @param partName 文件字段名
-     * @return 保存后的文件路径
+     * @return 文件路径、图片方向和存储结果，未上传时返回null
      * @throws IOException IO异常
      * @throws ServletException Servlet异常
      */
-    private String saveUploadedFile(HttpServletRequest request, String partName) throws IOException, ServletException {
+    private StoredImage saveUploadedFile(HttpServletRequest request, String partName) throws IOException, ServletException {
         Part filePart = request.getPart(partName);
         if (filePart != null && filePart.getSize() > 0) {
             // 文件大小验证
@@ -104,88 +136,53 @@ public class CardServlet extends HttpServlet {
                 ext = sanitized.substring(dot).toLowerCase();
             }
 
-            // 允许的文件扩展名
-            Set<String> allowedExt = new HashSet<>();
-            allowedExt.add(".png");
-            allowedExt.add(".jpg");
-            allowedExt.add(".jpeg");
-            allowedExt.add(".gif");
-            allowedExt.add(".webp");
-
-            if (!allowedExt.contains(ext)) {
+            if (!ALLOWED_EXTENSIONS.contains(ext)) {
                 throw new ServletException("Unsupported file type");
             }
 
-            // read magic bytes to verify file type
-            try (java.io.InputStream is = filePart.getInputStream()) {
-                byte[] header = new byte[12];
-                int read = is.read(header);
-                if (read < 8) {
-                    throw new ServletException("Uploaded file is not a valid image");
+            // 单次读取：校验文件头、解析宽高、计算内容哈希并写入暂存文件
+            StorageBackend storage = StorageBackends.get();
+            Path staged = storage.createStagingFile();
+            ImageHeaderParser.ImageInfo info;
+            MessageDigest digest = newSha256();
+            try {
+                try (InputStream in = filePart.getInputStream();
+                     OutputStream out = new DigestOutputStream(Files.newOutputStream(staged), digest)) {
+                    info = ImageHeaderParser.copy(in, out);
                 }
-                // PNG: 89 50 4E 47 0D 0A 1A 0A
-                if (header[0] == (byte)0x89 && header[1] == 0x50 && header[2] == 0x4E && header[3] == 0x47) {
-                    // png ok
-                } else if (header[0] == (byte)0xFF && header[1] == (byte)0xD8) {
-                    // jpeg ok
-                } else if (header[0] == 'G' && header[1] == 'I' && header[2] == 'F') {
-                    // gif ok
-                } else if (header[0] == 'R' && header[1] == 'I' && header[2] == 'F' && header[8] == 'W' && header[9] == 'E' && header[10] == 'B' && header[11] == 'P') {
-                    // webp ok
-                } else {
+                if (info == null) {
                     throw new ServletException("Uploaded file header does not match allowed image types");
                 }
+            } catch (IOException | ServletException e) {
+                Files.deleteIfExists(staged);
+                throw e;
             }
 
-            String uniqueFileName = java.util.UUID.randomUUID().toString() + ext;
-            
-            // 使用环境变量或固定路径（Cloud Run 挂载 GCS 到 /uploads）
-            String uploadPath = System.getenv("UPLOAD_DIR");
-            if (uploadPath == null) {
-                uploadPath = "/uploads";  // Cloud Run 默认挂载路径
-            }
-            
-            File uploadDir = new File(uploadPath);
-            if (!uploadDir.exists()) uploadDir.mkdirs();
-            
-            // write the part to disk
-            String fullPath = uploadPath + File.separator + uniqueFileName;
-            filePart.write(fullPath);
-            
-            // 如果使用 GCS，返回公开 URL（包含 uploads/ 前缀）
-            String bucketName = System.getenv("GCS_BUCKET_NAME");
-            if (bucketName != null && "true".equals(System.getenv("USE_EXTERNAL_STORAGE"))) {
-                return "https://storage.googleapis.com/" + bucketName + "/uploads/" + uniqueFileName;
-            }
-            
-            // 否则返回相对路径
-            return "uploads/" + uniqueFileName;
+            // 按内容哈希命名，相同图片只存一份；扩展名以实际格式为准，保证按扩展名推断的 Content-Type 正确
+            String key = toHex(digest.digest()) + info.getFormat().getExtension();
+            String orientation = info.getWidth() >= info.getHeight() ? "HORIZONTAL" : "VERTICAL";
+            return new StoredImage(key, storage.publicPath(key), orientation, storage.put(key, staged));
         }
         return null;
     }
 
     /**
-     * Detect image orientation based on width and height
-     * @param imagePath the absolute path to the image file
-     * @return "HORIZONTAL" if width >= height, "VERTICAL" otherwise
+     * 等待上传图片存储完成
+     * @throws IOException 存储失败
      */
-    private String detectImageOrientation(String imagePath) {
+    private static void awaitStored(StoredImage image) throws IOException {
+        if (image == null) {
+            return;
+        }
         try {
-            File imageFile = new File(getServletContext().getRealPath("") + File.separator + imagePath.replace('/', File.separatorChar));
-            if (!imageFile.exists()) {
-                return "HORIZONTAL"; // Default to horizontal if file doesn't exist
+            image.stored.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof UncheckedIOException) {
+                throw ((UncheckedIOException) cause).getCause();
             }
-            
-            BufferedImage image = ImageIO.read(imageFile);
-            if (image != null) {
-                int width = image.getWidth();
-                int height = image.getHeight();
-                return width >= height ? "HORIZONTAL" : "VERTICAL";
-            }
-        } catch (Exception e) {
-            e.printStackTrace();
+            throw new IOException("Failed to store uploaded file", cause);
         }
-        return "HORIZONTAL"; // Default to horizontal on error
     }
 
     private void populateCardFromRequest(Card card, HttpServletRequest request) throws IOException, ServletException {
@@ -244,48 +241,40 @@ public class CardServlet extends HttpServlet {
         card.setUserId(user.getId());
         populateCardFromRequest(card, request);
 
-        String frontPath = saveUploadedFile(request, "cardFront");
-        String backPath = saveUploadedFile(request, "cardBack");
-        card.setCardFrontPath(frontPath);
-        card.setCardBackPath(backPath);
+        StoredImage front = saveUploadedFile(request, "cardFront");
+        StoredImage back = saveUploadedFile(request, "cardBack");
+        card.setCardFrontPath(front != null ? front.path : null);
+        card.setCardBackPath(back != null ? back.path : null);
         
-        // Auto-detect image orientation from the front image (if available)
-        if (frontPath != null) {
-            String orientation = detectImageOrientation(frontPath);
-            card.setImageOrientation(orientation);
-        } else if (backPath != null) {
-            // If no front image, use back image
-            String orientation = detectImageOrientation(backPath);
-            card.setImageOrientation(orientation);
+        // Orientation comes from the front image header (if available), then the back image
+        if (front != null) {
+            card.setImageOrientation(front.orientation);
+        } else if (back != null) {
+            card.setImageOrientation(back.orientation);
         } else {
             // Default to horizontal if no images
             card.setImageOrientation("HORIZONTAL");
         }
         
-        // ensure shortCode for PUBLIC and LINK_ONLY; ensure shareToken for LINK_ONLY
+        // ensure shareToken for LINK_ONLY; PUBLIC and LINK_ONLY get a shortCode derived from the new id
         if ("LINK_ONLY".equalsIgnoreCase(card.getVisibility())) {
             if (card.getShareToken() == null || card.getShareToken().isEmpty()) {
                 card.setShareToken(java.util.UUID.randomUUID().toString());
             }
         }
-        if ("PUBLIC".equalsIgnoreCase(card.getVisibility()) || "LINK_ONLY".equalsIgnoreCase(card.getVisibility())) {
-            if (card.getShortCode() == null || card.getShortCode().isEmpty()) {
-                String code = generateShortCode();
-                Card exists = null;
-                int attempts = 0;
-                while (attempts < 5) {
-                    try {
-                        exists = cardDao.getCardByShortCode(code);
-                    } catch (Exception ignored) { exists = null; }
-                    if (exists == null) break;
-                    code = generateShortCode();
-                    attempts++;
-                }
-                card.setShortCode(code);
-            }
-        }
+        boolean needsShortCode = "PUBLIC".equalsIgnoreCase(card.getVisibility()) || "LINK_ONLY".equalsIgnoreCase(card.getVisibility());
 
-        cardDao.addCard(card);
+        awaitStored(front);
+        awaitStored(back);
+        int cardId = DbUtil.inTransaction(() -> {
+            int id = cardDao.addCard(card);
+            if (needsShortCode && id > 0) {
+                cardDao.assignShortCode(id);
+            }
+            return id;
+        });
+        scheduleVariants(cardId, front, false);
+        scheduleVariants(cardId, back, true);
     }
 
     private void updateCard(HttpServletRequest request, User user) throws SQLException, IOException, ServletException {
@@ -298,41 +287,24 @@ public class CardServlet extends HttpServlet {
 
         populateCardFromRequest(card, request);
 
-        // handle replacement: if a new file is uploaded, delete old file from disk
-        String frontPath = saveUploadedFile(request, "cardFront");
-        String backPath = saveUploadedFile(request, "cardBack");
-        String uploadBase = getServletContext().getRealPath("") + File.separator;
+        // handle replacement: the old file may be shared with other cards, UploadSweeper removes it once unreferenced
+        StoredImage front = saveUploadedFile(request, "cardFront");
+        StoredImage back = saveUploadedFile(request, "cardBack");
         
-        boolean orientationChanged = false;
-        if (frontPath != null) {
-            // delete old
-            if (card.getCardFrontPath() != null) {
-                File old = new File(uploadBase + card.getCardFrontPath().replace('/', File.separatorChar));
-                if (old.exists()) old.delete();
-            }
-            card.setCardFrontPath(frontPath);
-            orientationChanged = true;
+        if (front != null) {
+            card.setCardFrontPath(front.path);
+            card.setCardFrontVariants(null);
         }
-        if (backPath != null) {
-            if (card.getCardBackPath() != null) {
-                File old = new File(uploadBase + card.getCardBackPath().replace('/', File.separatorChar));
-                if (old.exists()) old.delete();
-            }
-            card.setCardBackPath(backPath);
-            if (!orientationChanged) {
-                orientationChanged = true;
-            }
+        if (back != null) {
+            card.setCardBackPath(back.path);
+            card.setCardBackVariants(null);
         }
         
-        // Re-detect orientation if any image was changed
-        if (orientationChanged) {
-            if (card.getCardFrontPath() != null) {
-                String orientation = detectImageOrientation(card.getCardFrontPath());
-                card.setImageOrientation(orientation);
-            } else if (card.getCardBackPath() != null) {
-                String orientation = detectImageOrientation(card.getCardBackPath());
-                card.setImageOrientation(orientation);
-            }
+        // Orientation follows the front image; the back image only decides it when there is no front image
+        if (front != null) {
+            card.setImageOrientation(front.orientation);
+        } else if (back != null && card.getCardFrontPath() == null) {
+            card.setImageOrientation(back.orientation);
         }
 
         // ensure shortCode for PUBLIC and LINK_ONLY; ensure shareToken for LINK_ONLY
@@ -343,58 +315,56 @@ public class CardServlet extends HttpServlet {
         }
         if ("PUBLIC".equalsIgnoreCase(card.getVisibility()) || "LINK_ONLY".equalsIgnoreCase(card.getVisibility())) {
             if (card.getShortCode() == null || card.getShortCode().isEmpty()) {
-                String code = generateShortCode();
-                Card exists = null;
-                int attempts = 0;
-                while (attempts < 5) {
-                    try {
-                        exists = cardDao.getCardByShortCode(code);
-                    } catch (Exception ignored) { exists = null; }
-                    if (exists == null) break;
-                    code = generateShortCode();
-                    attempts++;
-                }
-                card.setShortCode(code);
+                card.setShortCode(ShortCodeUtil.forId(card.getId()));
             }
         }
 
+        awaitStored(front);
+        awaitStored(back);
         cardDao.updateCard(card);
+        scheduleVariants(card.getId(), front, false);
+        scheduleVariants(card.getId(), back, true);
+    }
+
+    /**
+     * 提交后台尺寸版本生成，完成后写回名片；队列已满时页面继续使用原图
+     */
+    private void scheduleVariants(int cardId, StoredImage image, boolean back) {
+        if (image == null || cardId <= 0) {
+            return;
+        }
+        ImageVariantWorker.submit(image.key,
+                variants -> cardDao.updateImageVariants(cardId, back, image.path, gson.toJson(variants)));
     }
 
     private void deleteCard(HttpServletRequest request, User user) throws SQLException {
         int cardId = Integer.parseInt(request.getParameter("cardId"));
-        Card card = cardDao.getCardById(cardId);
+        DbUtil.inTransaction(() -> {
+            Card card = cardDao.getCardById(cardId);
+            if (card != null && (card.getUserId() == user.getId() || user.isAdmin())) {
+                // image files may be shared with other cards, UploadSweeper removes them once unreferenced
+                cardDao.deleteCard(cardId);
+            }
+            return null;
+        });
+    }
 
-        if (card != null && (card.getUserId() == user.getId() || user.isAdmin())) {
-            // delete files from disk if present
-            try {
-                String uploadBase = getServletContext().getRealPath("") + File.separator;
-                if (card.getCardFrontPath() != null) {
-                    File f = new File(uploadBase + card.getCardFrontPath().replace('/', File.separatorChar));
-                    if (f.exists()) f.delete();
-                }
-                if (card.getCardBackPath() != null) {
-                    File b = new File(uploadBase + card.getCardBackPath().replace('/', File.separatorChar));
-                    if (b.exists()) b.delete();
-                }
-            } catch (Exception ignored) {}
-            cardDao.deleteCard(cardId);
+    private static MessageDigest newSha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
         }
     }
 
-    /**
-     * 生成短代码
-     * @return 7位随机字符串
-     */
-    private String generateShortCode() {
-        StringBuilder sb = new StringBuilder();
-        Random rnd = new Random();
-        for (int i = 0; i < SHORT_CODE_LENGTH; i++) {
-            sb.append(BASE62.charAt(rnd.nextInt(BASE62.length())));
+    private static String toHex(byte[] bytes) {
+        StringBuilder sb = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            sb.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
         }
         return sb.toString();
     }
-    
+
     /**
      * 检查内容是否安全（防止XSS和脚本注入）
      * @param content 要检查的内容
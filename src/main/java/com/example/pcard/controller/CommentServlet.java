@@ -5,6 +5,7 @@ import com.example.pcard.dao.CommentDao;
 import com.example.pcard.model.Card;
 import com.example.pcard.model.Comment;
 import com.example.pcard.model.User;
+import com.example.pcard.util.DbUtil;
 
 import javax.servlet.ServletException;
 import javax.servlet.annotation.WebServlet;
@@ -99,15 +100,19 @@ public class CommentServlet extends HttpServlet {
         int commentId = Integer.parseInt(request.getParameter("commentId"));
         int cardId = Integer.parseInt(request.getParameter("cardId"));
 
-        Comment comment = commentDao.getCommentById(commentId);
-        Card card = cardDao.getCardById(cardId);
+        // 权限检查和删除共用一个连接
+        DbUtil.inTransaction(() -> {
+            Comment comment = commentDao.getCommentById(commentId);
+            Card card = cardDao.getCardById(cardId);
 
-        if (comment != null && card != null) {
-            // Allow deletion if user is admin, card owner, or comment owner
-            if (user.isAdmin() || user.getId() == card.getUserId() || user.getId() == comment.getUserId()) {
-                commentDao.deleteComment(commentId);
+            if (comment != null && card != null) {
+                // Allow deletion if user is admin, card owner, or comment owner
+                if (user.isAdmin() || user.getId() == card.getUserId() || user.getId() == comment.getUserId()) {
+                    commentDao.deleteComment(commentId);
+                }
             }
-        }
+            return null;
+        });
         response.sendRedirect("card/" + cardLink);
     }
 }
\ No newline at end of file
@@ -3,7 +3,7 @@ package com.example.pcard.controller;
 import com.example.pcard.dao.CardDao;
 import com.example.pcard.model.Card;
 import com.example.pcard.model.User;
-import com.example.pcard.util.ChineseConverter;
+import com.example.pcard.util.RegionResolver;
 
 import javax.servlet.ServletException;
 import javax.servlet.annotation.WebServlet;
@@ -14,11 +14,13 @@ import javax.servlet.http.HttpSession;
 import java.io.IOException;
 import java.sql.SQLException;
 import java.util.ArrayList;
-import java.util.Comparator;
 import java.util.List;
 
 @WebServlet("")
 public class HomeServlet extends HttpServlet {
+    private static final int MAX_PAGE_SIZE = 48;
+    // 主页网格缩略图使用的图片宽度（与 index.jsp 一致）
+    private static final int FEED_IMAGE_WIDTH = 640;
     private final CardDao cardDao = new CardDao();
 
     @Override
@@ -31,30 +33,33 @@ public class HomeServlet extends HttpServlet {
         // ------------------------------------------
 
         String q = request.getParameter("q");
-        int limit = parseIntOrDefault(request.getParameter("limit"), 12);
-        int offset = parseIntOrDefault(request.getParameter("offset"), 0);
+        int limit = Math.max(1, Math.min(MAX_PAGE_SIZE, parseIntOrDefault(request.getParameter("limit"), 12)));
+        // 游标：上一页最后一张名片的 id（按 id 降序翻页）
+        Integer afterId = parseCursor(request.getParameter("afterId"));
         boolean asJson = "1".equals(request.getParameter("format"));
         
         try {
             List<Card> cards;
+            // 多取一条用于判断是否还有下一页
             if (q != null && !q.trim().isEmpty()) {
-                cards = cardDao.searchPublicCardsPaged(q.trim(), offset, limit * 2); // 获取更多数据用于排序
+                cards = cardDao.searchPublicCardsKeyset(q.trim(), afterId, limit + 1);
                 request.setAttribute("query", q.trim());
             } else {
-                cards = cardDao.getPublicCardsPaged(offset, limit * 2); // 获取更多数据用于排序
+                cards = cardDao.getPublicCardsKeyset(afterId, limit + 1);
             }
 
-            // 获取用户偏好地区并进行智能排序
+            Integer nextCursor = null;
+            if (cards.size() > limit) {
+                cards = cards.subList(0, limit);
+                nextCursor = cards.get(limit - 1).getId();
+            }
+
+            // 获取用户偏好地区，在本页内进行智能排序（游标取自排序前的最后一条，翻页不会重复或遗漏）
             String preferredRegion = getUserPreferredRegion(request);
             if (preferredRegion != null && !preferredRegion.isEmpty()) {
                 cards = sortCardsByRegionPreference(cards, preferredRegion);
                 request.setAttribute("preferredRegion", preferredRegion);
             }
-            
-            // 截取所需数量
-            if (cards.size() > limit) {
-                cards = cards.subList(0, limit);
-            }
 
             if (asJson) {
                 // 输出 JSON 供动态加载使用
@@ -69,14 +74,18 @@ public class HomeServlet extends HttpServlet {
                     m.put("producerName", c.getProducerName());
                     m.put("idolName", c.getIdolName());
                     m.put("region", c.getRegion());
-                    m.put("cardFrontPath", c.getCardFrontPath());
+                    m.put("cardFrontPath", c.getFrontImagePath(FEED_IMAGE_WIDTH));
                     list.add(m);
                 }
-                response.getWriter().write(gson.toJson(list));
+                java.util.Map<String, Object> body = new java.util.HashMap<>();
+                body.put("cards", list);
+                body.put("nextCursor", nextCursor);
+                response.getWriter().write(gson.toJson(body));
                 return;
             }
 
             request.setAttribute("cards", cards);
+            request.setAttribute("nextCursor", nextCursor);
             request.getRequestDispatcher("index.jsp").forward(request, response);
         } catch (SQLException e) {
             throw new ServletException("Database error fetching public cards", e);
@@ -92,14 +101,10 @@ public class HomeServlet extends HttpServlet {
         if (session != null && session.getAttribute("user") != null) {
             User user = (User) session.getAttribute("user");
             try {
-                // 获取用户创建的名片，从中提取地区信息
-                List<Card> userCards = cardDao.getCardsByUserId(user.getId());
-                if (userCards != null && !userCards.isEmpty()) {
-                    // 使用用户最新创建的名片的地区
-                    String region = userCards.get(0).getRegion();
-                    if (region != null && !region.trim().isEmpty()) {
-                        return region.trim();
-                    }
+                // 使用用户最新名片的地区（DAO 层按用户缓存，名片写入时失效）
+                String region = cardDao.getPreferredRegion(user.getId());
+                if (region != null) {
+                    return region;
                 }
             } catch (SQLException e) {
                 // 静默失败，继续尝试其他方法
@@ -182,216 +187,46 @@ public class HomeServlet extends HttpServlet {
     
     /**
      * 根据地区偏好对名片进行排序
-     * 相同地区的名片排在前面，支持精确匹配和模糊匹配
+     * 每张名片的匹配分数只计算一次（地区解析结果有缓存），再按分数稳定分桶：
+     * 精确匹配在前，同国家/地区其次，其余保持原顺序
      */
     private List<Card> sortCardsByRegionPreference(List<Card> cards, String preferredRegion) {
         if (cards == null || cards.isEmpty() || preferredRegion == null) {
             return cards;
         }
-        
-        List<Card> result = new ArrayList<>(cards);
-        result.sort(new Comparator<Card>() {
-            @Override
-            public int compare(Card c1, Card c2) {
-                String r1 = c1.getRegion();
-                String r2 = c2.getRegion();
-                
-                // 计算匹配度：2=精确匹配，1=同国家/地区，0=不匹配
-                int score1 = getMatchScore(r1, preferredRegion);
-                int score2 = getMatchScore(r2, preferredRegion);
-                
-                // 分数高的排前面
-                return Integer.compare(score2, score1);
-            }
-        });
-        
-        return result;
-    }
-    
-    /**
-     * 计算地区匹配分数（支持简繁体）
-     * 2 = 精确匹配（完全相同或互相包含）
-     * 1 = 同国家/地区（如都是中国城市）
-     * 0 = 不匹配
-     */
-    private int getMatchScore(String cardRegion, String preferredRegion) {
-        if (cardRegion == null || preferredRegion == null) {
-            return 0;
-        }
-        
-        // 获取简繁体变体
-        String[] crVariants = getRegionVariants(cardRegion);
-        String[] prVariants = getRegionVariants(preferredRegion);
-        
-        // 检查精确匹配（包括简繁体变体）
-        for (String crVar : crVariants) {
-            for (String prVar : prVariants) {
-                // 完全匹配或包含匹配
-                if (crVar.equals(prVar) || crVar.contains(prVar) || prVar.contains(crVar)) {
-                    return 2;
-                }
-            }
-        }
-        
-        // 同国家/地区匹配
-        if (isSameCountry(cardRegion, preferredRegion)) {
-            return 1;
-        }
-        
-        return 0;
-    }
-    
-    /**
-     * 判断地区是否匹配（支持模糊匹配、层级匹配和简繁体匹配）
-     */
-    private boolean matchesRegion(String cardRegion, String preferredRegion) {
-        if (cardRegion == null || preferredRegion == null) {
-            return false;
-        }
-        
-        // 获取简繁体变体
-        String[] crVariants = getRegionVariants(cardRegion);
-        String[] prVariants = getRegionVariants(preferredRegion);
-        
-        // 对所有变体进行匹配
-        for (String crVar : crVariants) {
-            for (String prVar : prVariants) {
-                // 完全匹配
-                if (crVar.equals(prVar)) {
-                    return true;
-                }
-                
-                // 包含匹配
-                if (crVar.contains(prVar) || prVar.contains(crVar)) {
-                    return true;
-                }
-            }
-        }
-        
-        // 同国家/地区匹配（次优先级）
-        // 例如：武汉 vs 大陆，都属于中国
-        if (isSameCountry(cardRegion, preferredRegion)) {
-            return true;
-        }
-        
-        return false;
-    }
-    
-    /**
-     * 获取地区的简繁体变体（用于匹配）
-     * 返回统一为小写的变体数组
-     */
-    private String[] getRegionVariants(String region) {
-        if (region == null || region.isEmpty()) {
-            return new String[]{""};
-        }
-        
-        String trimmed = region.trim();
-        
-        // 如果包含中文，生成简繁体变体
-        if (ChineseConverter.containsChinese(trimmed)) {
-            List<String> variantsList = ChineseConverter.getSearchVariants(trimmed);
-            // 转换为小写（保持中文不变，只转换可能的英文）
-            String[] result = new String[variantsList.size()];
-            for (int i = 0; i < variantsList.size(); i++) {
-                result[i] = variantsList.get(i).toLowerCase();
-            }
-            return result;
-        } else {
-            // 非中文，只返回小写版本
-            return new String[]{trimmed.toLowerCase()};
-        }
-    }
-    
-    /**
-     * 判断两个地区是否属于同一国家/大区域（支持简繁体）
-     */
-    private boolean isSameCountry(String region1, String region2) {
-        // 获取简繁体变体用于匹配
-        String[] r1Variants = getRegionVariants(region1);
-        String[] r2Variants = getRegionVariants(region2);
-        
-        // 中国大陆城市列表（简体）
-        String[] chinaCities = {"北京", "上海", "广州", "深圳", "武汉", "成都", "重庆", 
-                                "杭州", "南京", "天津", "西安", "郑州", "长沙", "济南", 
-                                "青岛", "大连", "沈阳", "哈尔滨", "福州", "厦门", "南昌",
-                                "合肥", "石家庄", "太原", "兰州", "西宁", "乌鲁木齐", 
-                                "昆明", "贵阳", "南宁", "海口", "拉萨", "呼和浩特", "银川",
-                                "长春", "苏州", "宁波", "无锡", "佛山", "东莞", "珠海",
-                                "中山", "惠州", "汕头", "温州", "泉州", "常州", "徐州"};
-        
-        // 检查是否为中国（支持简繁体）
-        boolean r1IsChina = false;
-        boolean r2IsChina = false;
-        
-        for (String r1 : r1Variants) {
-            if (isInArray(r1, chinaCities) || 
-                r1.contains("大陆") || r1.contains("大陸") || 
-                r1.contains("中国") || r1.contains("中國") || 
-                r1.contains("cn") || r1.contains("china")) {
-                r1IsChina = true;
-                break;
-            }
-        }
-        
-        for (String r2 : r2Variants) {
-            if (isInArray(r2, chinaCities) || 
-                r2.contains("大陆") || r2.contains("大陸") || 
-                r2.contains("中国") || r2.contains("中國") || 
-                r2.contains("cn") || r2.contains("china")) {
-                r2IsChina = true;
-                break;
-            }
-        }
-        
-        // 如果两者都是中国，返回true（弱匹配）
-        if (r1IsChina && r2IsChina) {
-            return true;
-        }
-        
-        // 港澳台匹配（支持简繁体）
-        boolean r1IsHK = containsAnyVariant(r1Variants, new String[]{"香港", "hk", "hong kong"});
-        boolean r2IsHK = containsAnyVariant(r2Variants, new String[]{"香港", "hk", "hong kong"});
-        if (r1IsHK && r2IsHK) return true;
-        
-        boolean r1IsTW = containsAnyVariant(r1Variants, new String[]{"台湾", "臺灣", "台灣", "tw", "taiwan"});
-        boolean r2IsTW = containsAnyVariant(r2Variants, new String[]{"台湾", "臺灣", "台灣", "tw", "taiwan"});
-        if (r1IsTW && r2IsTW) return true;
-        
-        boolean r1IsMO = containsAnyVariant(r1Variants, new String[]{"澳门", "澳門", "mo", "macao", "macau"});
-        boolean r2IsMO = containsAnyVariant(r2Variants, new String[]{"澳门", "澳門", "mo", "macao", "macau"});
-        if (r1IsMO && r2IsMO) return true;
-        
-        return false;
-    }
-    
-    /**
-     * 检查变体数组中是否包含任何关键词
-     */
-    private boolean containsAnyVariant(String[] variants, String[] keywords) {
-        for (String variant : variants) {
-            for (String keyword : keywords) {
-                if (variant.contains(keyword.toLowerCase())) {
-                    return true;
-                }
-            }
-        }
-        return false;
-    }
-    
-    /**
-     * 判断字符串是否在数组中（不区分大小写）
-     */
-    private boolean isInArray(String str, String[] array) {
-        for (String item : array) {
-            if (str.contains(item.toLowerCase())) {
-                return true;
+
+        RegionResolver.Region preferred = RegionResolver.resolve(preferredRegion);
+        List<Card> exact = new ArrayList<>();
+        List<Card> sameCountry = new ArrayList<>();
+        List<Card> others = new ArrayList<>();
+        for (Card card : cards) {
+            int score = RegionResolver.resolve(card.getRegion()).scoreAgainst(preferred);
+            if (score == RegionResolver.SCORE_EXACT) {
+                exact.add(card);
+            } else if (score == RegionResolver.SCORE_SAME_COUNTRY) {
+                sameCountry.add(card);
+            } else {
+                others.add(card);
             }
         }
-        return false;
+
+        List<Card> result = new ArrayList<>(cards.size());
+        result.addAll(exact);
+        result.addAll(sameCountry);
+        result.addAll(others);
+        return result;
     }
 
     private int parseIntOrDefault(String s, int d) {
         try { return Integer.parseInt(s); } catch (Exception e) { return d; }
     }
+
+    private Integer parseCursor(String s) {
+        try {
+            int id = Integer.parseInt(s);
+            return id > 0 ? id : null;
+        } catch (Exception e) {
+            return null;
+        }
+    }
 }
\ No newline at end of file
@@ -0,0 +1,271 @@
+package com.example.pcard.controller;
+
+import com.example.pcard.storage.StorageBackend;
+import com.example.pcard.storage.StorageBackends;
+
+import javax.servlet.RequestDispatcher;
+import javax.servlet.ServletException;
+import javax.servlet.annotation.WebServlet;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.regex.Pattern;
+
+/**
+ * 上传图片访问控制器
+ * 直接从存储后端（UPLOAD_DIR）提供 /uploads/* 下的图片：
+ * - 文件名为内容哈希（含尺寸版本）时使用强 ETag，内容永不变化，可长期缓存；旧的随机文件名使用由大小和修改时间生成的弱 ETag
+ * - 支持 If-None-Match / If-Modified-Since 返回 304，以及单区间 Range / If-Range 请求
+ * - 连接器支持 sendfile 时交给 Tomcat 零拷贝发送，否则用 FileChannel.transferTo 写出
+ * - 存储目录中没有的文件交给默认 Servlet（兼容部署在 webapp/uploads 下的旧文件）
+ */
+@WebServlet("/uploads/*")
+public class UploadServlet extends HttpServlet {
+    // 内容哈希文件名：<sha256>[_w<宽度>].<扩展名>
+    private static final Pattern CONTENT_HASH_NAME = Pattern.compile("^[0-9a-f]{64}(_w\\d+)?\\.[a-z]+$");
+
+    private static final long ONE_YEAR = 31536000L; // 秒
+    private static final long THIRTY_DAYS = 30L * 86400L; // 秒
+
+    // Tomcat sendfile 请求属性
+    private static final String SENDFILE_SUPPORTED = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+    // 与 Tomcat 默认 sendfileSize 一致，更小的文件直接写出
+    private static final long SENDFILE_MIN_SIZE = 48 * 1024;
+
+    @Override
+    protected void doGet(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
+        String name = request.getPathInfo();
+        if (name == null || name.length() < 2 || name.indexOf('/', 1) >= 0 || name.contains("..") || name.startsWith("/.")) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        name = name.substring(1);
+
+        StorageBackend storage = StorageBackends.get();
+        Path file = storage.localPath(name);
+        if (file == null) {
+            serveFromStorage(storage, name, request, response);
+            return;
+        }
+
+        BasicFileAttributes attrs;
+        try {
+            attrs = Files.readAttributes(file, BasicFileAttributes.class);
+        } catch (NoSuchFileException e) {
+            forwardToDefault(request, response);
+            return;
+        }
+        if (!attrs.isRegularFile()) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+
+        long length = attrs.size();
+        long lastModified = attrs.lastModifiedTime().toMillis() / 1000 * 1000;
+        boolean contentAddressed = CONTENT_HASH_NAME.matcher(name).matches();
+        String etag = contentAddressed
+                ? "\"" + name.substring(0, name.lastIndexOf('.')) + "\""
+                : "W/\"" + Long.toHexString(length) + "-" + Long.toHexString(lastModified) + "\"";
+
+        setCacheHeaders(response, name, etag, contentAddressed);
+        response.setDateHeader("Last-Modified", lastModified);
+        if (isNotModified(request, etag, lastModified)) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+
+        long start = 0;
+        long end = length - 1;
+        String range = request.getHeader("Range");
+        if (range != null && isIfRangeSatisfied(request, etag, lastModified)) {
+            long[] parsed = parseRange(range, length);
+            if (parsed == null) {
+                response.setHeader("Content-Range", "bytes */" + length);
+                response.sendError(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                return;
+            }
+            if (parsed.length == 2) {
+                start = parsed[0];
+                end = parsed[1];
+                response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+                response.setHeader("Content-Range", "bytes " + start + "-" + end + "/" + length);
+            }
+        }
+        long count = end - start + 1;
+        response.setContentLengthLong(count);
+        if ("HEAD".equals(request.getMethod()) || count <= 0) {
+            return;
+        }
+
+        if (count >= SENDFILE_MIN_SIZE && Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORTED))) {
+            request.setAttribute(SENDFILE_FILENAME, file.toAbsolutePath().toString());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, end + 1);
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+            long position = start;
+            long remaining = count;
+            while (remaining > 0) {
+                long written = channel.transferTo(position, remaining, out);
+                if (written <= 0) {
+                    break;
+                }
+                position += written;
+                remaining -= written;
+            }
+        }
+    }
+
+    /**
+     * 非文件系统存储（如内存后端）：按流输出，仍支持 ETag 协商
+     */
+    private void serveFromStorage(StorageBackend storage, String name, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        boolean contentAddressed = CONTENT_HASH_NAME.matcher(name).matches();
+        String etag = contentAddressed ? "\"" + name.substring(0, name.lastIndexOf('.')) + "\"" : null;
+        if (etag != null && isNotModified(request, etag, -1)) {
+            setCacheHeaders(response, name, etag, true);
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+        try (InputStream in = storage.get(name).join()) {
+            if (in == null) {
+                response.sendError(HttpServletResponse.SC_NOT_FOUND);
+                return;
+            }
+            setCacheHeaders(response, name, etag, contentAddressed);
+            if ("HEAD".equals(request.getMethod())) {
+                return;
+            }
+            OutputStream out = response.getOutputStream();
+            byte[] buffer = new byte[8192];
+            int n;
+            while ((n = in.read(buffer)) != -1) {
+                out.write(buffer, 0, n);
+            }
+        }
+    }
+
+    private void forwardToDefault(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
+        RequestDispatcher dispatcher = getServletContext().getNamedDispatcher("default");
+        if (dispatcher == null) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        // 旧文件名不是内容哈希，内容可能被替换，缓存时间与原策略一致
+        response.setHeader("Cache-Control", "public, max-age=" + THIRTY_DAYS);
+        dispatcher.forward(request, response);
+    }
+
+    private void setCacheHeaders(HttpServletResponse response, String name, String etag, boolean contentAddressed) {
+        String mimeType = getServletContext().getMimeType(name);
+        response.setContentType(mimeType != null ? mimeType : "application/octet-stream");
+        response.setHeader("Accept-Ranges", "bytes");
+        if (etag != null) {
+            response.setHeader("ETag", etag);
+        }
+        response.setHeader("Cache-Control", contentAddressed
+                ? "public, max-age=" + ONE_YEAR + ", immutable"
+                : "public, max-age=" + THIRTY_DAYS);
+    }
+
+    /**
+     * If-None-Match 优先（弱比较）；没有时再看 If-Modified-Since
+     */
+    private static boolean isNotModified(HttpServletRequest request, String etag, long lastModified) {
+        String ifNoneMatch = request.getHeader("If-None-Match");
+        if (ifNoneMatch != null) {
+            String opaque = stripWeak(etag);
+            for (String candidate : ifNoneMatch.split(",")) {
+                String tag = candidate.trim();
+                if (tag.equals("*") || stripWeak(tag).equals(opaque)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        if (lastModified < 0) {
+            return false;
+        }
+        try {
+            long since = request.getDateHeader("If-Modified-Since");
+            return since != -1 && lastModified <= since;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    /**
+     * If-Range：强 ETag 完全相同或日期一致时才按 Range 返回部分内容，否则返回完整内容
+     */
+    private static boolean isIfRangeSatisfied(HttpServletRequest request, String etag, long lastModified) {
+        String ifRange = request.getHeader("If-Range");
+        if (ifRange == null) {
+            return true;
+        }
+        ifRange = ifRange.trim();
+        if (ifRange.startsWith("\"") || ifRange.startsWith("W/")) {
+            return !etag.startsWith("W/") && ifRange.equals(etag);
+        }
+        try {
+            return request.getDateHeader("If-Range") == lastModified;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    /**
+     * 解析单区间 Range
+     * @return {start, end}；多区间或无法识别时返回空数组（按完整内容返回）；区间不可满足时返回null
+     */
+    private static long[] parseRange(String header, long length) {
+        if (!header.startsWith("bytes=") || header.indexOf(',') >= 0) {
+            return new long[0];
+        }
+        String spec = header.substring("bytes=".length()).trim();
+        int dash = spec.indexOf('-');
+        if (dash < 0) {
+            return new long[0];
+        }
+        try {
+            long start;
+            long end;
+            if (dash == 0) {
+                long suffix = Long.parseLong(spec.substring(1));
+                if (suffix <= 0) {
+                    return null;
+                }
+                start = Math.max(0, length - suffix);
+                end = length - 1;
+            } else {
+                start = Long.parseLong(spec.substring(0, dash));
+                end = dash == spec.length() - 1 ? length - 1 : Math.min(Long.parseLong(spec.substring(dash + 1)), length - 1);
+            }
+            if (start >= length || start > end) {
+                return null;
+            }
+            return new long[]{start, end};
+        } catch (NumberFormatException e) {
+            return new long[0];
+        }
+    }
+
+    private static String stripWeak(String tag) {
+        return tag.startsWith("W/") ? tag.substring(2) : tag;
+    }
+}
@@ -0,0 +1,226 @@
+package com.example.pcard.dao;
+
+import com.example.pcard.util.DbUtil;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.UnaryOperator;
+
+/**
+ * 管理后台统计快照
+ * - 每张表一条分组查询（users 按 role、status 分组，cards 按 visibility 分组）算出全部计数，代替逐项 COUNT
+ * - 快照缓存 ADMIN_STATS_TTL_MS（默认1分钟）；本实例的写操作按增量更新缓存的快照，
+ *   无法确定旧值的写操作（如删除名片、修改可见性）直接作废快照，下次访问重新查询
+ * - 加载期间发生写入则不缓存本次结果；其他实例的写入最多在TTL内不可见
+ * - 增量写入先调用 {@link #beginWrite} 取得写序号，提交后带序号应用增量：
+ *   写入开始之后才加载的快照可能已包含该写入，此时作废快照而不是重复累加
+ */
+public final class AdminStats {
+    private static final long TTL = getEnvLong("ADMIN_STATS_TTL_MS", 60 * 1000L);
+
+    private static final AtomicReference<Snapshot> cached = new AtomicReference<>();
+    // 写序号：加载前记录，加载后若已变化说明期间有写入，结果不缓存
+    private static final AtomicLong writeSequence = new AtomicLong();
+
+    private AdminStats() {
+    }
+
+    /**
+     * 统计计数（不可变）
+     */
+    public static final class Snapshot {
+        private final int totalUsers;
+        private final int admins;
+        private final int activeUsers;
+        private final int bannedUsers;
+        private final int totalCards;
+        private final int publicCards;
+        private final int privateCards;
+        private final long loadedAt;
+        // 加载前的写序号
+        private final long sequence;
+
+        Snapshot(int totalUsers, int admins, int activeUsers, int bannedUsers,
+                 int totalCards, int publicCards, int privateCards, long loadedAt, long sequence) {
+            this.totalUsers = totalUsers;
+            this.admins = admins;
+            this.activeUsers = activeUsers;
+            this.bannedUsers = bannedUsers;
+            this.totalCards = totalCards;
+            this.publicCards = publicCards;
+            this.privateCards = privateCards;
+            this.loadedAt = loadedAt;
+            this.sequence = sequence;
+        }
+
+        public int getTotalUsers() {
+            return totalUsers;
+        }
+
+        public int getAdmins() {
+            return admins;
+        }
+
+        public int getActiveUsers() {
+            return activeUsers;
+        }
+
+        public int getBannedUsers() {
+            return bannedUsers;
+        }
+
+        public int getTotalCards() {
+            return totalCards;
+        }
+
+        public int getPublicCards() {
+            return publicCards;
+        }
+
+        public int getPrivateCards() {
+            return privateCards;
+        }
+
+        Snapshot plusUsers(int total, int admin, int active, int banned) {
+            return new Snapshot(totalUsers + total, admins + admin, activeUsers + active, bannedUsers + banned,
+                    totalCards, publicCards, privateCards, loadedAt, sequence);
+        }
+
+        Snapshot plusCards(int total, String visibility) {
+            return new Snapshot(totalUsers, admins, activeUsers, bannedUsers, totalCards + total,
+                    publicCards + ("PUBLIC".equalsIgnoreCase(visibility) ? total : 0),
+                    privateCards + ("PRIVATE".equalsIgnoreCase(visibility) ? total : 0), loadedAt, sequence);
+        }
+    }
+
+    /**
+     * 获取统计快照（过期时重新查询）
+     * @throws SQLException 数据库操作异常
+     */
+    public static Snapshot get() throws SQLException {
+        Snapshot snapshot = cached.get();
+        long now = System.currentTimeMillis();
+        if (snapshot != null && now - snapshot.loadedAt < TTL) {
+            return snapshot;
+        }
+        long sequence = writeSequence.get();
+        Snapshot loaded = load(now, sequence);
+        if (writeSequence.get() == sequence) {
+            cached.compareAndSet(snapshot, loaded);
+        }
+        return loaded;
+    }
+
+    /**
+     * 增量写入开始（执行写语句之前调用）
+     * @return 写序号，提交后传给对应的增量方法
+     */
+    static long beginWrite() {
+        return writeSequence.incrementAndGet();
+    }
+
+    /**
+     * 新用户注册（默认角色 user、状态 active）
+     * @param since {@link #beginWrite} 返回的写序号
+     */
+    static void userAdded(long since) {
+        apply(since, s -> s.plusUsers(1, 0, 1, 0));
+    }
+
+    /**
+     * 用户状态在 active / banned 之间切换
+     */
+    static void userStatusChanged(long since, String newStatus) {
+        userStatusChanged(since, newStatus, 1);
+    }
+
+    /**
+     * 批量切换用户状态
+     * @param count 实际变化的用户数
+     */
+    static void userStatusChanged(long since, String newStatus, int count) {
+        int delta = "banned".equalsIgnoreCase(newStatus) ? count : -count;
+        apply(since, s -> s.plusUsers(0, 0, -delta, delta));
+    }
+
+    /**
+     * 用户角色在 user / admin 之间切换
+     */
+    static void userRoleChanged(long since, String newRole) {
+        apply(since, s -> s.plusUsers(0, "admin".equalsIgnoreCase(newRole) ? 1 : -1, 0, 0));
+    }
+
+    /**
+     * 新增名片
+     */
+    static void cardAdded(long since, String visibility) {
+        apply(since, s -> s.plusCards(1, visibility));
+    }
+
+    /**
+     * 作废快照（写操作的旧值未知，或删除用户时级联删除了名片）
+     */
+    static void invalidate() {
+        writeSequence.incrementAndGet();
+        cached.set(null);
+    }
+
+    private static void apply(long since, UnaryOperator<Snapshot> delta) {
+        writeSequence.incrementAndGet();
+        // 写入开始后才加载的快照可能已包含本次写入，作废而不是累加
+        cached.updateAndGet(s -> s == null || s.sequence >= since ? null : delta.apply(s));
+    }
+
+    private static Snapshot load(long now, long sequence) throws SQLException {
+        int totalUsers = 0;
+        int admins = 0;
+        int activeUsers = 0;
+        int bannedUsers = 0;
+        int totalCards = 0;
+        int publicCards = 0;
+        int privateCards = 0;
+        try (Connection conn = DbUtil.getConnection(); Statement st = conn.createStatement()) {
+            try (ResultSet rs = st.executeQuery("SELECT role, status, COUNT(*) FROM users GROUP BY role, status")) {
+                while (rs.next()) {
+                    int count = rs.getInt(3);
+                    totalUsers += count;
+                    if ("admin".equalsIgnoreCase(rs.getString(1))) {
+                        admins += count;
+                    }
+                    String status = rs.getString(2);
+                    if ("active".equalsIgnoreCase(status)) {
+                        activeUsers += count;
+                    } else if ("banned".equalsIgnoreCase(status)) {
+                        bannedUsers += count;
+                    }
+                }
+            }
+            try (ResultSet rs = st.executeQuery("SELECT visibility, COUNT(*) FROM cards GROUP BY visibility")) {
+                while (rs.next()) {
+                    int count = rs.getInt(2);
+                    totalCards += count;
+                    String visibility = rs.getString(1);
+                    if ("PUBLIC".equalsIgnoreCase(visibility)) {
+                        publicCards += count;
+                    } else if ("PRIVATE".equalsIgnoreCase(visibility)) {
+                        privateCards += count;
+                    }
+                }
+            }
+        }
+        return new Snapshot(totalUsers, admins, activeUsers, bannedUsers, totalCards, publicCards, privateCards, now, sequence);
+    }
+
+    private static long getEnvLong(String name, long defVal) {
+        try {
+            String v = System.getenv(name);
+            return v == null ? defVal : Long.parseLong(v);
+        } catch (Exception e) {
+            return defVal;
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package com.example.pcard.dao;
+
+import com.example.pcard.model.Card;
+import com.example.pcard.util.BoundedCache;
+import com.example.pcard.util.CacheUtil;
+import com.example.pcard.util.DbUtil;
+
+import java.sql.SQLException;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 名片读穿透缓存
+ * - 同一张名片以 id / unique_link_id / short_code / share_token 四种键缓存，指向同一个不可变快照
+ * - 对外只返回快照的副本，调用方修改名片不会污染缓存
+ * - 写操作（更新/可见性/删除）后按 id 失效全部键；加载期间发生写入则丢弃本次加载结果
+ * - 多实例部署下其他实例无法收到失效通知，因此TTL较短，以限制跨实例的陈旧时间
+ */
+final class CardCache {
+    private static final String KEY_ID = "id:";
+    private static final String KEY_LINK = "link:";
+    private static final String KEY_CODE = "code:";
+    private static final String KEY_TOKEN = "token:";
+
+    private static final long TTL = getEnvLong("CARD_CACHE_TTL_MS", 60 * 1000L);
+    private static final int MAX_ENTRIES = 20000;
+
+    private static final BoundedCache<String, Card> cache = CacheUtil.newCache("card", MAX_ENTRIES, TTL);
+
+    // 名片写序号：加载前记录，加载后若已变化说明期间有写入，需要丢弃加载结果
+    private static final AtomicLong writeSequence = new AtomicLong();
+
+    @FunctionalInterface
+    interface CardLoader {
+        Card load() throws SQLException;
+    }
+
+    private CardCache() {
+    }
+
+    static Card getById(int id, CardLoader loader) throws SQLException {
+        return get(KEY_ID + id, loader);
+    }
+
+    static Card getByUniqueLinkId(String uniqueLinkId, CardLoader loader) throws SQLException {
+        return get(KEY_LINK + uniqueLinkId, loader);
+    }
+
+    static Card getByShortCode(String shortCode, CardLoader loader) throws SQLException {
+        return get(KEY_CODE + shortCode, loader);
+    }
+
+    static Card getByShareToken(String shareToken, CardLoader loader) throws SQLException {
+        return get(KEY_TOKEN + shareToken, loader);
+    }
+
+    private static Card get(String key, CardLoader loader) throws SQLException {
+        if (DbUtil.isInTransaction()) {
+            // 事务内可能读到本事务尚未提交的写入，回滚后会留在缓存中：只读缓存，未命中时直接查库不回填
+            Card cached = cache.getIfPresent(key);
+            Card card = cached != null ? cached : loader.load();
+            return card == null ? null : new Card(card);
+        }
+        long[] loadedAt = {-1L};
+        Card card = cache.get(key, k -> {
+            loadedAt[0] = writeSequence.get();
+            Card loaded = loader.load();
+            return loaded == null ? null : new Card(loaded);
+        });
+        if (card == null) {
+            return null;
+        }
+        if (loadedAt[0] >= 0) {
+            // 本次由数据库加载：补齐其余键，并再次确认加载期间没有写入
+            putAliases(card);
+            if (writeSequence.get() != loadedAt[0]) {
+                invalidateKeys(card);
+            }
+        }
+        return new Card(card);
+    }
+
+    /**
+     * 名片写入后失效（已知名片当前内容时使用）
+     */
+    static void invalidate(Card card) {
+        // 先按 id 找到旧快照失效旧别名（短码/分享令牌可能已变），再失效新值对应的键
+        invalidateById(card.getId());
+        invalidateKeys(card);
+    }
+
+    /**
+     * 按 id 失效名片的全部缓存键
+     */
+    static void invalidateById(int cardId) {
+        writeSequence.incrementAndGet();
+        Card snapshot = cache.peek(KEY_ID + cardId);
+        if (snapshot != null) {
+            invalidateKeys(snapshot);
+        } else {
+            // id 键已被淘汰时，别名键可能仍在，退化为全量扫描（仅在写路径发生）
+            cache.invalidateIf(c -> c.getId() == cardId);
+        }
+    }
+
+    /**
+     * 批量按 id 失效；id 键已被淘汰的名片合并为一次全量扫描
+     */
+    static void invalidateByIds(Set<Integer> cardIds) {
+        writeSequence.incrementAndGet();
+        Set<Integer> missing = new HashSet<>();
+        for (int cardId : cardIds) {
+            Card snapshot = cache.peek(KEY_ID + cardId);
+            if (snapshot != null) {
+                invalidateKeys(snapshot);
+            } else {
+                missing.add(cardId);
+            }
+        }
+        if (!missing.isEmpty()) {
+            cache.invalidateIf(c -> missing.contains(c.getId()));
+        }
+    }
+
+    /**
+     * 失效某用户的全部名片（删除用户时级联删除了名片）
+     */
+    static void invalidateByUserId(int userId) {
+        writeSequence.incrementAndGet();
+        cache.invalidateIf(c -> c.getUserId() == userId);
+    }
+
+    private static void putAliases(Card card) {
+        cache.put(KEY_ID + card.getId(), card);
+        if (card.getUniqueLinkId() != null) {
+            cache.put(KEY_LINK + card.getUniqueLinkId(), card);
+        }
+        if (card.getShortCode() != null && !card.getShortCode().isEmpty()) {
+            cache.put(KEY_CODE + card.getShortCode(), card);
+        }
+        if (card.getShareToken() != null && !card.getShareToken().isEmpty()) {
+            cache.put(KEY_TOKEN + card.getShareToken(), card);
+        }
+    }
+
+    private static void invalidateKeys(Card card) {
+        cache.invalidate(KEY_ID + card.getId());
+        if (card.getUniqueLinkId() != null) {
+            cache.invalidate(KEY_LINK + card.getUniqueLinkId());
+        }
+        if (card.getShortCode() != null) {
+            cache.invalidate(KEY_CODE + card.getShortCode());
+        }
+        if (card.getShareToken() != null) {
+            cache.invalidate(KEY_TOKEN + card.getShareToken());
+        }
+    }
+
+    /**
+     * 缓存统计（命中率、平均加载耗时等）
+     */
+    static String getStats() {
+        return cache.getStats();
+    }
+
+    private static long getEnvLong(String name, long defVal) {
+        try {
+            String v = System.getenv(name);
+            return v == null ? defVal : Long.parseLong(v);
+        } catch (Exception e) {
+            return defVal;
+        }
+    }
+}
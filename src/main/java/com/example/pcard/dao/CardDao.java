@@ -1,12 +1,20 @@
 package com.example.pcard.dao;
 
 import com.example.pcard.model.Card;
+import com.example.pcard.util.BoundedCache;
+import com.example.pcard.util.CacheUtil;
 import com.example.pcard.util.DbUtil;
 import com.example.pcard.util.ChineseConverter;
+import com.example.pcard.util.ShortCodeUtil;
 
+import java.io.IOException;
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.UUID;
 
 /**
@@ -14,15 +22,34 @@ import java.util.UUID;
  * 处理电子名片相关的数据库操作
  */
 public class CardDao {
+    // 用户偏好地区（取自最新一张名片）缓存：主页每次访问都需要，名片写入时失效
+    private static final BoundedCache<Integer, PreferredRegion> preferredRegionCache =
+            CacheUtil.newCache("preferredRegion", 10000, 10 * 60 * 1000L);
+
+    /**
+     * 用户偏好地区及其来源名片；region 为空串表示该用户没有可用地区
+     */
+    private static final class PreferredRegion {
+        final int cardId;
+        final String region;
+
+        PreferredRegion(int cardId, String region) {
+            this.cardId = cardId;
+            this.region = region;
+        }
+    }
 
     /**
      * 添加新名片
-     * @param card 名片对象
+     * @param card 名片对象，写入后设置生成的 id
+     * @return 新名片 id
      * @throws SQLException 数据库操作异常
      */
-    public void addCard(Card card) throws SQLException {
-        String sql = "INSERT INTO cards (user_id, producer_name, region, idol_name, card_front_path, card_back_path, unique_link_id, custom_sns, visibility, share_token, short_code, image_orientation) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
-        try (Connection conn = DbUtil.getConnection(); PreparedStatement ps = conn.prepareStatement(sql)) {
+    public int addCard(Card card) throws SQLException {
+        String sql = "INSERT INTO cards (user_id, producer_name, region, idol_name, card_front_path, card_back_path, unique_link_id, custom_sns, visibility, share_token, short_code, image_orientation, " +
+                "producer_name_sk, region_sk, idol_name_sk, search_key_version, card_front_variants, card_back_variants) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+        long statsSince = AdminStats.beginWrite();
+        try (Connection conn = DbUtil.getConnection(); PreparedStatement ps = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
             ps.setInt(1, card.getUserId());
             ps.setString(2, card.getProducerName());
             ps.setString(3, card.getRegion());
@@ -35,8 +62,66 @@ public class CardDao {
             ps.setString(10, card.getShareToken());
             ps.setString(11, card.getShortCode());
             ps.setString(12, card.getImageOrientation());
+            setSearchKeys(ps, 13, card);
+            ps.setString(17, card.getCardFrontVariants());
+            ps.setString(18, card.getCardBackVariants());
+            ps.executeUpdate();
+            try (ResultSet keys = ps.getGeneratedKeys()) {
+                if (keys.next()) {
+                    card.setId(keys.getInt(1));
+                }
+            }
+        }
+        int userId = card.getUserId();
+        String visibility = card.getVisibility();
+        DbUtil.afterCommit(() -> {
+            preferredRegionCache.invalidate(userId);
+            AdminStats.cardAdded(statsSince, visibility);
+        });
+        return card.getId();
+    }
+
+    /**
+     * 为名片写入由 id 派生的短码（见 {@link ShortCodeUtil}），已有短码时不覆盖
+     * 新建名片时与 {@link #addCard} 在同一工作单元内调用
+     * @param cardId 名片ID
+     * @throws SQLException 数据库操作异常
+     */
+    public void assignShortCode(int cardId) throws SQLException {
+        String sql = "UPDATE cards SET short_code = ? WHERE id = ? AND (short_code IS NULL OR short_code = '')";
+        try (Connection conn = DbUtil.getConnection(); PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setString(1, ShortCodeUtil.forId(cardId));
+            ps.setInt(2, cardId);
             ps.executeUpdate();
         }
+        DbUtil.afterCommit(() -> CardCache.invalidateById(cardId));
+    }
+
+    /**
+     * 保存后台生成的图片尺寸版本
+     * 只在该面图片仍是生成时所用的原图时写入，避免覆盖期间重新上传的图片
+     * @param cardId 名片ID
+     * @param back true 为背面，false 为正面
+     * @param sourcePath 生成所用原图的访问路径
+     * @param variantsJson 尺寸版本（JSON：宽度 -> 访问路径）
+     * @return 是否写入
+     * @throws SQLException 数据库操作异常
+     */
+    public boolean updateImageVariants(int cardId, boolean back, String sourcePath, String variantsJson) throws SQLException {
+        String sql = back
+                ? "UPDATE cards SET card_back_variants = ? WHERE id = ? AND card_back_path = ?"
+                : "UPDATE cards SET card_front_variants = ? WHERE id = ? AND card_front_path = ?";
+        boolean updated;
+        try (Connection conn = DbUtil.getConnection(); PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setString(1, variantsJson);
+            ps.setInt(2, cardId);
+            ps.setString(3, sourcePath);
+            updated = ps.executeUpdate() > 0;
+        }
+        if (updated) {
+            DbUtil.afterCommit(() -> CardCache.invalidateById(cardId));
+        }
+        return updated;
     }
 
     public Card getCardByUserId(int userId) throws SQLException {
@@ -52,6 +137,44 @@ public class CardDao {
         return null;
     }
 
+    /**
+     * 获取用户偏好地区：用户最新一张名片的地区（读缓存）
+     * @param userId 用户ID
+     * @return 地区，用户没有名片或地区为空时返回null
+     * @throws SQLException 数据库操作异常
+     */
+    public String getPreferredRegion(int userId) throws SQLException {
+        PreferredRegion preferred = preferredRegionCache.get(userId, id -> {
+            String sql = "SELECT id, region FROM cards WHERE user_id = ? ORDER BY id DESC LIMIT 1";
+            try (Connection conn = DbUtil.getConnection(); PreparedStatement ps = conn.prepareStatement(sql)) {
+                ps.setInt(1, id);
+                try (ResultSet rs = ps.executeQuery()) {
+                    if (rs.next()) {
+                        String region = rs.getString("region");
+                        return new PreferredRegion(rs.getInt("id"), region == null ? "" : region.trim());
+                    }
+                }
+            }
+            return new PreferredRegion(0, "");
+        });
+        return preferred.region.isEmpty() ? null : preferred.region;
+    }
+
+    /**
+     * 用户删除后清理其偏好地区缓存
+     */
+    static void invalidatePreferredRegion(int userId) {
+        preferredRegionCache.invalidate(userId);
+    }
+
+    private static void invalidatePreferredRegionOf(Card card) {
+        if (card.getUserId() > 0) {
+            preferredRegionCache.invalidate(card.getUserId());
+        } else {
+            preferredRegionCache.invalidateIf(p -> p.cardId == card.getId());
+        }
+    }
+
     // New: get all cards belonging to a user
     public List<Card> getCardsByUserId(int userId) throws SQLException {
         List<Card> cards = new ArrayList<>();
@@ -69,7 +192,14 @@ public class CardDao {
         return cards;
     }
 
+    /**
+     * 按 id 获取名片（读穿透缓存，见 {@link CardCache}）
+     */
     public Card getCardById(int cardId) throws SQLException {
+        return CardCache.getById(cardId, () -> getCardByIdFromDb(cardId));
+    }
+
+    private Card getCardByIdFromDb(int cardId) throws SQLException {
         String sql = "SELECT c.*, u.username FROM cards c JOIN users u ON c.user_id = u.id WHERE c.id = ?";
         try (Connection conn = DbUtil.getConnection(); PreparedStatement ps = conn.prepareStatement(sql)) {
             ps.setInt(1, cardId);
@@ -85,6 +215,10 @@ public class CardDao {
     }
 
     public Card getCardByUniqueLinkId(String uniqueLinkId) throws SQLException {
+        return CardCache.getByUniqueLinkId(uniqueLinkId, () -> getCardByUniqueLinkIdFromDb(uniqueLinkId));
+    }
+
+    private Card getCardByUniqueLinkIdFromDb(String uniqueLinkId) throws SQLException {
         String sql = "SELECT c.*, u.username FROM cards c JOIN users u ON c.user_id = u.id WHERE c.unique_link_id = ?";
         try (Connection conn = DbUtil.getConnection(); PreparedStatement ps = conn.prepareStatement(sql)) {
             ps.setString(1, uniqueLinkId);
@@ -100,6 +234,10 @@ public class CardDao {
     }
 
     public Card getCardByShareToken(String token) throws SQLException {
+        return CardCache.getByShareToken(token, () -> getCardByShareTokenFromDb(token));
+    }
+
+    private Card getCardByShareTokenFromDb(String token) throws SQLException {
         String sql = "SELECT c.*, u.username FROM cards c JOIN users u ON c.user_id = u.id WHERE c.share_token = ?";
         try (Connection conn = DbUtil.getConnection(); PreparedStatement ps = conn.prepareStatement(sql)) {
             ps.setString(1, token);
@@ -115,6 +253,10 @@ public class CardDao {
     }
 
     public Card getCardByShortCode(String shortCode) throws SQLException {
+        return CardCache.getByShortCode(shortCode, () -> getCardByShortCodeFromDb(shortCode));
+    }
+
+    private Card getCardByShortCodeFromDb(String shortCode) throws SQLException {
         String sql = "SELECT c.*, u.username FROM cards c JOIN users u ON c.user_id = u.id WHERE c.short_code = ?";
         try (Connection conn = DbUtil.getConnection(); PreparedStatement ps = conn.prepareStatement(sql)) {
             ps.setString(1, shortCode);
@@ -129,22 +271,39 @@ public class CardDao {
         return null;
     }
 
+    /**
+     * 更新名片
+     * 尺寸版本列不取自调用方读到的快照（后台任务可能已在此期间写入），只在对应图片路径变化时清空；
+     * MySQL 按顺序执行赋值，清空判断须写在路径赋值之前，比较的才是旧路径
+     */
     public void updateCard(Card card) throws SQLException {
-        String sql = "UPDATE cards SET producer_name = ?, region = ?, idol_name = ?, card_front_path = ?, card_back_path = ?, custom_sns = ?, visibility = ?, share_token = ?, short_code = ?, image_orientation = ? WHERE id = ?";
+        String sql = "UPDATE cards SET card_front_variants = IF(card_front_path <=> ?, card_front_variants, NULL), " +
+                "card_back_variants = IF(card_back_path <=> ?, card_back_variants, NULL), " +
+                "producer_name = ?, region = ?, idol_name = ?, card_front_path = ?, card_back_path = ?, custom_sns = ?, visibility = ?, share_token = ?, short_code = ?, image_orientation = ?, " +
+                "producer_name_sk = ?, region_sk = ?, idol_name_sk = ?, search_key_version = ? WHERE id = ?";
         try (Connection conn = DbUtil.getConnection(); PreparedStatement ps = conn.prepareStatement(sql)) {
-            ps.setString(1, card.getProducerName());
-            ps.setString(2, card.getRegion());
-            ps.setString(3, card.getIdolName());
-            ps.setString(4, card.getCardFrontPath());
-            ps.setString(5, card.getCardBackPath());
-            ps.setString(6, card.getCustomSns());
-            ps.setString(7, card.getVisibility());
-            ps.setString(8, card.getShareToken());
-            ps.setString(9, card.getShortCode());
-            ps.setString(10, card.getImageOrientation());
-            ps.setInt(11, card.getId());
+            ps.setString(1, card.getCardFrontPath());
+            ps.setString(2, card.getCardBackPath());
+            ps.setString(3, card.getProducerName());
+            ps.setString(4, card.getRegion());
+            ps.setString(5, card.getIdolName());
+            ps.setString(6, card.getCardFrontPath());
+            ps.setString(7, card.getCardBackPath());
+            ps.setString(8, card.getCustomSns());
+            ps.setString(9, card.getVisibility());
+            ps.setString(10, card.getShareToken());
+            ps.setString(11, card.getShortCode());
+            ps.setString(12, card.getImageOrientation());
+            setSearchKeys(ps, 13, card);
+            ps.setInt(17, card.getId());
             ps.executeUpdate();
         }
+        DbUtil.afterCommit(() -> {
+            CardCache.invalidate(card);
+            invalidatePreferredRegionOf(card);
+            // 可见性可能变化，旧值未知
+            AdminStats.invalidate();
+        });
     }
 
     public void deleteCard(int cardId) throws SQLException {
@@ -153,6 +312,114 @@ public class CardDao {
             ps.setInt(1, cardId);
             ps.executeUpdate();
         }
+        DbUtil.afterCommit(() -> {
+            CardCache.invalidateById(cardId);
+            CommentTreeCache.invalidateCard(cardId);
+            preferredRegionCache.invalidateIf(p -> p.cardId == cardId);
+            AdminStats.invalidate();
+        });
+    }
+
+    /**
+     * 批量删除名片，在一个事务内先锁定存在的行，再用一条 DELETE 删除
+     * @param cardIds 名片ID
+     * @return 实际被删除的名片ID；不在其中的ID不存在
+     * @throws SQLException 数据库操作异常（事务已回滚）
+     */
+    public Set<Integer> deleteCards(Collection<Integer> cardIds) throws SQLException {
+        Set<Integer> ids = new LinkedHashSet<>(cardIds);
+        if (ids.isEmpty()) {
+            return Collections.emptySet();
+        }
+        return DbUtil.inTransaction(() -> {
+            Set<Integer> deleted = new LinkedHashSet<>();
+            String select = "SELECT id FROM cards WHERE id IN (" + DbUtil.placeholders(ids.size()) + ") FOR UPDATE";
+            try (Connection conn = DbUtil.getConnection()) {
+                try (PreparedStatement ps = conn.prepareStatement(select)) {
+                    DbUtil.setInts(ps, 1, ids);
+                    try (ResultSet rs = ps.executeQuery()) {
+                        while (rs.next()) {
+                            deleted.add(rs.getInt(1));
+                        }
+                    }
+                }
+                if (!deleted.isEmpty()) {
+                    String delete = "DELETE FROM cards WHERE id IN (" + DbUtil.placeholders(deleted.size()) + ")";
+                    try (PreparedStatement ps = conn.prepareStatement(delete)) {
+                        DbUtil.setInts(ps, 1, deleted);
+                        ps.executeUpdate();
+                    }
+                }
+            }
+            if (!deleted.isEmpty()) {
+                DbUtil.afterCommit(() -> {
+                    CardCache.invalidateByIds(deleted);
+                    for (int cardId : deleted) {
+                        CommentTreeCache.invalidateCard(cardId);
+                    }
+                    preferredRegionCache.invalidateIf(p -> deleted.contains(p.cardId));
+                    AdminStats.invalidate();
+                });
+            }
+            return deleted;
+        });
+    }
+
+    /**
+     * 批量设置名片可见性，在一个事务内完成：锁定存在的行并读取分享令牌和短码，再以 JDBC 批量更新
+     * （连接已启用 rewriteBatchedStatements，一次往返发送）
+     * 设为 LINK_ONLY 时补齐缺失的分享令牌，设为 PUBLIC/LINK_ONLY 时补齐缺失的短码（由 id 派生）
+     * @param cardIds 名片ID
+     * @param visibility 新的可见性
+     * @return 实际更新的名片ID；不在其中的ID不存在
+     * @throws SQLException 数据库操作异常（事务已回滚）
+     */
+    public Set<Integer> setVisibility(Collection<Integer> cardIds, String visibility) throws SQLException {
+        Set<Integer> ids = new LinkedHashSet<>(cardIds);
+        if (ids.isEmpty()) {
+            return Collections.emptySet();
+        }
+        boolean needsToken = "LINK_ONLY".equals(visibility);
+        boolean needsCode = "PUBLIC".equals(visibility) || "LINK_ONLY".equals(visibility);
+        return DbUtil.inTransaction(() -> {
+            Set<Integer> updated = new LinkedHashSet<>();
+            String select = "SELECT id, share_token, short_code FROM cards WHERE id IN (" + DbUtil.placeholders(ids.size()) + ") FOR UPDATE";
+            String update = "UPDATE cards SET visibility = ?, share_token = ?, short_code = ? WHERE id = ?";
+            try (Connection conn = DbUtil.getConnection();
+                 PreparedStatement query = conn.prepareStatement(select);
+                 PreparedStatement ps = conn.prepareStatement(update)) {
+                DbUtil.setInts(query, 1, ids);
+                try (ResultSet rs = query.executeQuery()) {
+                    while (rs.next()) {
+                        int cardId = rs.getInt(1);
+                        String shareToken = rs.getString(2);
+                        String shortCode = rs.getString(3);
+                        if (needsToken && (shareToken == null || shareToken.isEmpty())) {
+                            shareToken = UUID.randomUUID().toString();
+                        }
+                        if (needsCode && (shortCode == null || shortCode.isEmpty())) {
+                            shortCode = ShortCodeUtil.forId(cardId);
+                        }
+                        ps.setString(1, visibility);
+                        ps.setString(2, shareToken);
+                        ps.setString(3, shortCode);
+                        ps.setInt(4, cardId);
+                        ps.addBatch();
+                        updated.add(cardId);
+                    }
+                }
+                if (!updated.isEmpty()) {
+                    ps.executeBatch();
+                }
+            }
+            if (!updated.isEmpty()) {
+                DbUtil.afterCommit(() -> {
+                    CardCache.invalidateByIds(updated);
+                    AdminStats.invalidate();
+                });
+            }
+            return updated;
+        });
     }
 
     public List<Card> getAllCards() throws SQLException {
@@ -168,6 +435,33 @@ public class CardDao {
         return cards;
     }
 
+    /**
+     * 按 id 顺序流式读取全部名片（导出用），每行交给 handler 后即丢弃，内存占用与名片数量无关
+     * 只查询导出需要的列
+     * @param handler 逐行回调
+     * @throws SQLException 数据库操作异常
+     * @throws IOException handler 写出失败（如客户端断开）
+     */
+    public void streamAllCards(RowHandler<Card> handler) throws SQLException, IOException {
+        String sql = "SELECT c.id, u.username, c.producer_name, c.idol_name, c.region, c.visibility, c.unique_link_id "
+                + "FROM cards c JOIN users u ON c.user_id = u.id ORDER BY c.id";
+        try (Connection conn = DbUtil.getConnection();
+             PreparedStatement ps = DbUtil.prepareStreaming(conn, sql);
+             ResultSet rs = ps.executeQuery()) {
+            Card card = new Card();
+            while (rs.next()) {
+                card.setId(rs.getInt(1));
+                card.setOwnerUsername(rs.getString(2));
+                card.setProducerName(rs.getString(3));
+                card.setIdolName(rs.getString(4));
+                card.setRegion(rs.getString(5));
+                card.setVisibility(rs.getString(6));
+                card.setUniqueLinkId(rs.getString(7));
+                handler.handle(card);
+            }
+        }
+    }
+
     public List<Card> getAllCardsPaged(int offset, int limit) throws SQLException {
         List<Card> cards = new ArrayList<>();
         String sql = "SELECT c.*, u.username FROM cards c JOIN users u ON c.user_id = u.id ORDER BY c.id DESC LIMIT ? OFFSET ?";
@@ -185,6 +479,13 @@ public class CardDao {
         return cards;
     }
 
+    /**
+     * 全部名片的游标分页，参数含义同 {@link #adminSearchCardsKeyset}
+     */
+    public List<Card> getAllCardsKeyset(Integer afterId, Integer beforeId, int limit) throws SQLException {
+        return adminSearchCardsKeyset(null, null, afterId, beforeId, limit);
+    }
+
     public List<Card> getPublicCards() throws SQLException {
         List<Card> cards = new ArrayList<>();
         String sql = "SELECT c.*, u.username FROM cards c JOIN users u ON c.user_id = u.id WHERE (c.visibility IS NULL OR c.visibility = 'PUBLIC')";
@@ -219,9 +520,37 @@ public class CardDao {
     }
 
     /**
-     * 模糊搜索公开卡片（producer_name / idol_name / region / unique_link_id）。
-     * 支持简繁体互相匹配，使用参数化查询并限制返回数量以避免扫描过多记录。
-     * 性能优化：先检查是否包含中文，仅在必要时生成简繁体变体
+     * 公开名片游标分页（keyset）：取 id 小于 afterId 的最新 limit 条
+     * 无论翻到多深，都只是主键上的一次范围扫描，不需要像 OFFSET 那样扫描并丢弃前面的行
+     * @param afterId 上一页最后一张名片的 id，为 null 时从最新开始
+     * @param limit 条数
+     */
+    public List<Card> getPublicCardsKeyset(Integer afterId, int limit) throws SQLException {
+        List<Card> cards = new ArrayList<>();
+        String sql = "SELECT c.*, u.username FROM cards c JOIN users u ON c.user_id = u.id " +
+                "WHERE (c.visibility IS NULL OR c.visibility = 'PUBLIC')" +
+                (afterId != null ? " AND c.id < ?" : "") +
+                " ORDER BY c.id DESC LIMIT ?";
+        try (Connection conn = DbUtil.getConnection(); PreparedStatement ps = conn.prepareStatement(sql)) {
+            int i = 1;
+            if (afterId != null) {
+                ps.setInt(i++, afterId);
+            }
+            ps.setInt(i, limit);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    Card card = mapRowToCard(rs);
+                    card.setOwnerUsername(rs.getString("username"));
+                    cards.add(card);
+                }
+            }
+        }
+        return cards;
+    }
+
+    /**
+     * 搜索公开卡片（producer_name / idol_name / region / unique_link_id）。
+     * 支持简繁体互相匹配，匹配条件见 {@link CardSearch}，并限制返回数量。
      */
     public List<Card> searchPublicCards(String query) throws SQLException {
         List<Card> cards = new ArrayList<>();
@@ -231,37 +560,19 @@ public class CardDao {
             return cards;
         }
         
-        // 检查是否包含中文，如果包含则生成简繁体变体进行搜索
-        List<String> searchVariants;
-        if (ChineseConverter.containsChinese(query)) {
-            searchVariants = ChineseConverter.getSearchVariants(query);
-        } else {
-            searchVariants = new ArrayList<>();
-            searchVariants.add(query);
-        }
-        
-        // 构建动态SQL，根据变体数量调整OR条件
         StringBuilder sql = new StringBuilder(
             "SELECT c.*, u.username FROM cards c " +
             "JOIN users u ON c.user_id = u.id " +
-            "WHERE (c.visibility IS NULL OR c.visibility = 'PUBLIC') AND ("
+            "WHERE (c.visibility IS NULL OR c.visibility = 'PUBLIC')"
         );
-        
-        List<String> conditions = new ArrayList<>();
-        for (int i = 0; i < searchVariants.size(); i++) {
-            conditions.add("(LOWER(c.producer_name) LIKE ? OR LOWER(c.idol_name) LIKE ? OR LOWER(c.region) LIKE ? OR LOWER(c.unique_link_id) LIKE ?)");
-        }
-        sql.append(String.join(" OR ", conditions));
-        sql.append(") ORDER BY c.id DESC LIMIT 100"); // 安全上限
+        List<Object> params = new ArrayList<>();
+        CardSearch.appendCondition(sql, params, query, false);
+        sql.append(" ORDER BY c.id DESC LIMIT 100"); // 安全上限
         
         try (Connection conn = DbUtil.getConnection(); PreparedStatement ps = conn.prepareStatement(sql.toString())) {
             int paramIndex = 1;
-            for (String variant : searchVariants) {
-                String pattern = "%" + variant.toLowerCase() + "%";
-                ps.setString(paramIndex++, pattern);
-                ps.setString(paramIndex++, pattern);
-                ps.setString(paramIndex++, pattern);
-                ps.setString(paramIndex++, pattern);
+            for (Object p : params) {
+                ps.setObject(paramIndex++, p);
             }
             
             try (ResultSet rs = ps.executeQuery()) {
@@ -283,37 +594,19 @@ public class CardDao {
             return getPublicCardsPaged(offset, limit);
         }
         
-        // 检查是否包含中文，如果包含则生成简繁体变体进行搜索
-        List<String> searchVariants;
-        if (ChineseConverter.containsChinese(query)) {
-            searchVariants = ChineseConverter.getSearchVariants(query);
-        } else {
-            searchVariants = new ArrayList<>();
-            searchVariants.add(query);
-        }
-        
-        // 构建动态SQL，根据变体数量调整OR条件
         StringBuilder sql = new StringBuilder(
             "SELECT c.*, u.username FROM cards c " +
             "JOIN users u ON c.user_id = u.id " +
-            "WHERE (c.visibility IS NULL OR c.visibility = 'PUBLIC') AND ("
+            "WHERE (c.visibility IS NULL OR c.visibility = 'PUBLIC')"
         );
-        
-        List<String> conditions = new ArrayList<>();
-        for (int i = 0; i < searchVariants.size(); i++) {
-            conditions.add("(LOWER(c.producer_name) LIKE ? OR LOWER(c.idol_name) LIKE ? OR LOWER(c.region) LIKE ? OR LOWER(c.unique_link_id) LIKE ?)");
-        }
-        sql.append(String.join(" OR ", conditions));
-        sql.append(") ORDER BY c.id DESC LIMIT ? OFFSET ?");
+        List<Object> params = new ArrayList<>();
+        CardSearch.appendCondition(sql, params, query, false);
+        sql.append(" ORDER BY c.id DESC LIMIT ? OFFSET ?");
         
         try (Connection conn = DbUtil.getConnection(); PreparedStatement ps = conn.prepareStatement(sql.toString())) {
             int paramIndex = 1;
-            for (String variant : searchVariants) {
-                String pattern = "%" + variant.toLowerCase() + "%";
-                ps.setString(paramIndex++, pattern);
-                ps.setString(paramIndex++, pattern);
-                ps.setString(paramIndex++, pattern);
-                ps.setString(paramIndex++, pattern);
+            for (Object p : params) {
+                ps.setObject(paramIndex++, p);
             }
             ps.setInt(paramIndex++, limit);
             ps.setInt(paramIndex, offset);
@@ -329,6 +622,49 @@ public class CardDao {
         return cards;
     }
 
+    /**
+     * 公开名片搜索的游标分页，匹配规则同 {@link #searchPublicCardsPaged}
+     * @param afterId 上一页最后一张名片的 id，为 null 时从最新开始
+     */
+    public List<Card> searchPublicCardsKeyset(String query, Integer afterId, int limit) throws SQLException {
+        List<Card> cards = new ArrayList<>();
+        if (query == null) query = "";
+        query = query.trim();
+        if (query.isEmpty()) {
+            return getPublicCardsKeyset(afterId, limit);
+        }
+
+        StringBuilder sql = new StringBuilder(
+            "SELECT c.*, u.username FROM cards c " +
+            "JOIN users u ON c.user_id = u.id " +
+            "WHERE (c.visibility IS NULL OR c.visibility = 'PUBLIC')"
+        );
+        List<Object> params = new ArrayList<>();
+        CardSearch.appendCondition(sql, params, query, false);
+        if (afterId != null) {
+            sql.append(" AND c.id < ?");
+            params.add(afterId);
+        }
+        sql.append(" ORDER BY c.id DESC LIMIT ?");
+
+        try (Connection conn = DbUtil.getConnection(); PreparedStatement ps = conn.prepareStatement(sql.toString())) {
+            int paramIndex = 1;
+            for (Object p : params) {
+                ps.setObject(paramIndex++, p);
+            }
+            ps.setInt(paramIndex, limit);
+
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    Card card = mapRowToCard(rs);
+                    card.setOwnerUsername(rs.getString("username"));
+                    cards.add(card);
+                }
+            }
+        }
+        return cards;
+    }
+
     // Admin: search cards with optional visibility, and match owner username too
     // 支持简繁体搜索
     public List<Card> adminSearchCards(String q, String visibility) throws SQLException {
@@ -337,25 +673,7 @@ public class CardDao {
         List<Object> params = new ArrayList<>();
 
         if (q != null && !q.trim().isEmpty()) {
-            q = q.trim();
-            
-            // 检查是否包含中文，如果包含则生成简繁体变体进行搜索
-            List<String> searchVariants;
-            if (ChineseConverter.containsChinese(q)) {
-                searchVariants = ChineseConverter.getSearchVariants(q);
-            } else {
-                searchVariants = new ArrayList<>();
-                searchVariants.add(q);
-            }
-            
-            // 构建动态搜索条件
-            List<String> conditions = new ArrayList<>();
-            for (String variant : searchVariants) {
-                String like = "%" + variant.toLowerCase() + "%";
-                conditions.add("(LOWER(c.producer_name) LIKE ? OR LOWER(c.idol_name) LIKE ? OR LOWER(c.region) LIKE ? OR LOWER(c.unique_link_id) LIKE ? OR LOWER(u.username) LIKE ?)");
-                params.add(like); params.add(like); params.add(like); params.add(like); params.add(like);
-            }
-            sql.append(" AND (").append(String.join(" OR ", conditions)).append(")");
+            CardSearch.appendCondition(sql, params, q.trim(), true);
         }
         
         if (visibility != null && !visibility.trim().isEmpty() && !"all".equalsIgnoreCase(visibility)) {
@@ -385,25 +703,7 @@ public class CardDao {
         List<Object> params = new ArrayList<>();
 
         if (q != null && !q.trim().isEmpty()) {
-            q = q.trim();
-            
-            // 检查是否包含中文，如果包含则生成简繁体变体进行搜索
-            List<String> searchVariants;
-            if (ChineseConverter.containsChinese(q)) {
-                searchVariants = ChineseConverter.getSearchVariants(q);
-            } else {
-                searchVariants = new ArrayList<>();
-                searchVariants.add(q);
-            }
-            
-            // 构建动态搜索条件
-            List<String> conditions = new ArrayList<>();
-            for (String variant : searchVariants) {
-                String like = "%" + variant.toLowerCase() + "%";
-                conditions.add("(LOWER(c.producer_name) LIKE ? OR LOWER(c.idol_name) LIKE ? OR LOWER(c.region) LIKE ? OR LOWER(c.unique_link_id) LIKE ? OR LOWER(u.username) LIKE ?)");
-                params.add(like); params.add(like); params.add(like); params.add(like); params.add(like);
-            }
-            sql.append(" AND (").append(String.join(" OR ", conditions)).append(")");
+            CardSearch.appendCondition(sql, params, q.trim(), true);
         }
         
         if (visibility != null && !visibility.trim().isEmpty() && !"all".equalsIgnoreCase(visibility)) {
@@ -428,6 +728,54 @@ public class CardDao {
         return cards;
     }
 
+    /**
+     * 管理后台名片列表的游标分页
+     * - afterId 非空：下一页，取 id 小于 afterId 的 limit 条
+     * - beforeId 非空：上一页，取 id 大于 beforeId 的 limit 条（按 id 升序取出后反转）
+     * - 均为空：第一页
+     * 结果始终按 id 降序排列
+     */
+    public List<Card> adminSearchCardsKeyset(String q, String visibility, Integer afterId, Integer beforeId, int limit) throws SQLException {
+        List<Card> cards = new ArrayList<>();
+        StringBuilder sql = new StringBuilder("SELECT c.*, u.username FROM cards c JOIN users u ON c.user_id = u.id WHERE 1=1");
+        List<Object> params = new ArrayList<>();
+
+        if (q != null && !q.trim().isEmpty()) {
+            CardSearch.appendCondition(sql, params, q.trim(), true);
+        }
+
+        if (visibility != null && !visibility.trim().isEmpty() && !"all".equalsIgnoreCase(visibility)) {
+            sql.append(" AND c.visibility = ?");
+            params.add(visibility);
+        }
+        boolean backward = afterId == null && beforeId != null;
+        if (afterId != null) {
+            sql.append(" AND c.id < ?");
+            params.add(afterId);
+        } else if (backward) {
+            sql.append(" AND c.id > ?");
+            params.add(beforeId);
+        }
+        sql.append(backward ? " ORDER BY c.id ASC LIMIT ?" : " ORDER BY c.id DESC LIMIT ?");
+
+        try (Connection conn = DbUtil.getConnection(); PreparedStatement ps = conn.prepareStatement(sql.toString())) {
+            int i = 1;
+            for (Object p : params) ps.setObject(i++, p);
+            ps.setInt(i, limit);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    Card card = mapRowToCard(rs);
+                    card.setOwnerUsername(rs.getString("username"));
+                    cards.add(card);
+                }
+            }
+        }
+        if (backward) {
+            Collections.reverse(cards);
+        }
+        return cards;
+    }
+
     public void updateVisibility(int cardId, String visibility) throws SQLException {
         String sql = "UPDATE cards SET visibility = ? WHERE id = ?";
         try (Connection conn = DbUtil.getConnection(); PreparedStatement ps = conn.prepareStatement(sql)) {
@@ -435,6 +783,10 @@ public class CardDao {
             ps.setInt(2, cardId);
             ps.executeUpdate();
         }
+        DbUtil.afterCommit(() -> {
+            CardCache.invalidateById(cardId);
+            AdminStats.invalidate();
+        });
     }
 
     public int countAdminCards(String q, String visibility) throws SQLException {
@@ -442,25 +794,7 @@ public class CardDao {
         List<Object> params = new ArrayList<>();
         
         if (q != null && !q.trim().isEmpty()) {
-            q = q.trim();
-            
-            // 检查是否包含中文，如果包含则生成简繁体变体进行搜索
-            List<String> searchVariants;
-            if (ChineseConverter.containsChinese(q)) {
-                searchVariants = ChineseConverter.getSearchVariants(q);
-            } else {
-                searchVariants = new ArrayList<>();
-                searchVariants.add(q);
-            }
-            
-            // 构建动态搜索条件
-            List<String> conditions = new ArrayList<>();
-            for (String variant : searchVariants) {
-                String like = "%" + variant.toLowerCase() + "%";
-                conditions.add("(LOWER(c.producer_name) LIKE ? OR LOWER(c.idol_name) LIKE ? OR LOWER(c.region) LIKE ? OR LOWER(c.unique_link_id) LIKE ? OR LOWER(u.username) LIKE ?)");
-                params.add(like); params.add(like); params.add(like); params.add(like); params.add(like);
-            }
-            sql.append(" AND (").append(String.join(" OR ", conditions)).append(")");
+            CardSearch.appendCondition(sql, params, q.trim(), true);
         }
         
         if (visibility != null && !visibility.trim().isEmpty() && !"all".equalsIgnoreCase(visibility)) {
@@ -475,6 +809,50 @@ public class CardDao {
         return 0;
     }
 
+    /**
+     * 出现次数最多的地区和偶像名称（用于启动时预热简繁体转换缓存）
+     * @param limit 每类最多返回的条数
+     * @return 地区与偶像名称列表
+     * @throws SQLException 数据库操作异常
+     */
+    public List<String> getFrequentSearchTerms(int limit) throws SQLException {
+        List<String> terms = new ArrayList<>();
+        String[] sqls = {
+            "SELECT region FROM cards WHERE region IS NOT NULL AND region <> '' GROUP BY region ORDER BY COUNT(*) DESC LIMIT ?",
+            "SELECT idol_name FROM cards WHERE idol_name IS NOT NULL AND idol_name <> '' GROUP BY idol_name ORDER BY COUNT(*) DESC LIMIT ?"
+        };
+        try (Connection conn = DbUtil.getConnection()) {
+            for (String sql : sqls) {
+                try (PreparedStatement ps = conn.prepareStatement(sql)) {
+                    ps.setInt(1, limit);
+                    try (ResultSet rs = ps.executeQuery()) {
+                        while (rs.next()) {
+                            terms.add(rs.getString(1));
+                        }
+                    }
+                }
+            }
+        }
+        return terms;
+    }
+
+    /**
+     * 名片缓存统计信息（命中率、平均加载耗时）
+     */
+    public static String getCacheStats() {
+        return CardCache.getStats();
+    }
+
+    /**
+     * 写入搜索影子列（规范化后的 producer_name / region / idol_name 及规则版本），占用4个参数位
+     */
+    private static void setSearchKeys(PreparedStatement ps, int index, Card card) throws SQLException {
+        ps.setString(index, ChineseConverter.toSearchKey(card.getProducerName()));
+        ps.setString(index + 1, ChineseConverter.toSearchKey(card.getRegion()));
+        ps.setString(index + 2, ChineseConverter.toSearchKey(card.getIdolName()));
+        ps.setInt(index + 3, CardSearch.SEARCH_KEY_VERSION);
+    }
+
     private Card mapRowToCard(ResultSet rs) throws SQLException {
         Card card = new Card();
         card.setId(rs.getInt("id"));
@@ -499,6 +877,10 @@ public class CardDao {
         try {
             card.setImageOrientation(rs.getString("image_orientation"));
         } catch (SQLException ignored) {}
+        try {
+            card.setCardFrontVariants(rs.getString("card_front_variants"));
+            card.setCardBackVariants(rs.getString("card_back_variants"));
+        } catch (SQLException ignored) {}
         return card;
     }
 }
\ No newline at end of file
@@ -0,0 +1,110 @@
+package com.example.pcard.dao;
+
+import com.example.pcard.util.ChineseConverter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 名片搜索条件构造
+ * - 写入名片时把 producer_name / idol_name / region 规范化（繁转简、小写）后存入 *_sk 影子列，
+ *   搜索时关键词做同样处理，只需一个变体、一组条件，不再在查询时生成简繁体变体
+ * - 关键词长度达到 ngram 分词长度时，使用影子列上的 ngram FULLTEXT 索引（ft_cards_search）
+ * - 关键词过短（单字）时 ngram 索引无法命中，对影子列做 LIKE 匹配
+ * - 存量数据回填（{@link SearchKeyBackfill}）完成前，影子列可能为空，仍使用原有的多变体 LIKE 匹配
+ */
+final class CardSearch {
+    /**
+     * 搜索键规范化规则的版本，规则变化时递增，由回填任务重新计算旧版本的行
+     */
+    static final int SEARCH_KEY_VERSION = 1;
+
+    // 与 MySQL ngram_token_size（默认 2）一致
+    private static final int NGRAM_TOKEN_SIZE = 2;
+
+    private static final String MATCH_COLUMNS = "c.producer_name_sk, c.idol_name_sk, c.region_sk, c.unique_link_id";
+
+    private static volatile boolean searchKeysReady = false;
+
+    private CardSearch() {
+    }
+
+    /**
+     * 回填完成后调用，此后搜索只使用影子列
+     */
+    static void markSearchKeysReady() {
+        searchKeysReady = true;
+    }
+
+    /**
+     * 追加 " AND (...)" 搜索条件及其参数
+     * @param sql SQL 构造器，需已包含 cards 表别名 c（matchOwner 时还需 users 表别名 u）
+     * @param params 参数列表
+     * @param query 已去除首尾空白的非空关键词
+     * @param matchOwner 是否同时匹配名片所有者用户名（管理后台）
+     */
+    static void appendCondition(StringBuilder sql, List<Object> params, String query, boolean matchOwner) {
+        if (!searchKeysReady) {
+            appendLegacyCondition(sql, params, query, matchOwner);
+            return;
+        }
+        String key = ChineseConverter.toSearchKey(query);
+        sql.append(" AND (");
+        if (isFullTextEligible(key)) {
+            sql.append("MATCH(").append(MATCH_COLUMNS).append(") AGAINST (? IN BOOLEAN MODE)");
+            params.add('"' + key.replace('"', ' ') + '"');
+        } else {
+            String like = "%" + key + "%";
+            sql.append("c.producer_name_sk LIKE ? OR c.idol_name_sk LIKE ? OR c.region_sk LIKE ? OR c.unique_link_id LIKE ?");
+            params.add(like); params.add(like); params.add(like); params.add(like);
+        }
+        if (matchOwner) {
+            // 用户名未规范化，按原文匹配
+            sql.append(" OR LOWER(u.username) LIKE ?");
+            params.add("%" + query.toLowerCase() + "%");
+        }
+        sql.append(")");
+    }
+
+    /**
+     * 按原始列、逐个简繁体变体做 LIKE 匹配（影子列就绪前使用）
+     */
+    private static void appendLegacyCondition(StringBuilder sql, List<Object> params, String query, boolean matchOwner) {
+        List<String> variants;
+        if (ChineseConverter.containsChinese(query)) {
+            variants = ChineseConverter.getSearchVariants(query);
+        } else {
+            variants = new ArrayList<>();
+            variants.add(query);
+        }
+        List<String> conditions = new ArrayList<>();
+        for (String variant : variants) {
+            String like = "%" + variant.toLowerCase() + "%";
+            conditions.add(matchOwner
+                    ? "(LOWER(c.producer_name) LIKE ? OR LOWER(c.idol_name) LIKE ? OR LOWER(c.region) LIKE ? OR LOWER(c.unique_link_id) LIKE ? OR LOWER(u.username) LIKE ?)"
+                    : "(LOWER(c.producer_name) LIKE ? OR LOWER(c.idol_name) LIKE ? OR LOWER(c.region) LIKE ? OR LOWER(c.unique_link_id) LIKE ?)");
+            params.add(like); params.add(like); params.add(like); params.add(like);
+            if (matchOwner) {
+                params.add(like);
+            }
+        }
+        sql.append(" AND (").append(String.join(" OR ", conditions)).append(")");
+    }
+
+    /**
+     * ngram 分词先按空白和标点切分再切 n-gram，任一词短于分词长度都无法通过索引命中
+     */
+    private static boolean isFullTextEligible(String query) {
+        boolean hasWord = false;
+        for (String word : query.split("[^\\p{L}\\p{N}]+")) {
+            if (word.isEmpty()) {
+                continue;
+            }
+            if (word.codePointCount(0, word.length()) < NGRAM_TOKEN_SIZE) {
+                return false;
+            }
+            hasWord = true;
+        }
+        return hasWord;
+    }
+}
@@ -5,9 +5,7 @@ import com.example.pcard.util.DbUtil;
 
 import java.sql.*;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 
 /**
  * 评论数据访问对象
@@ -16,14 +14,14 @@ import java.util.Map;
 public class CommentDao {
 
     /**
-     * 添加评论
+     * 添加评论，成功后回填评论ID并挂到缓存的评论树上
      * @param comment 评论对象
      * @throws SQLException 数据库操作异常
      */
     public void addComment(Comment comment) throws SQLException {
         String sql = "INSERT INTO comments (card_id, user_id, username, nickname, content, parent_id, reply_to_username, reply_to_nickname) VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
         try (Connection conn = DbUtil.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql)) {
+             PreparedStatement ps = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
             ps.setInt(1, comment.getCardId());
             ps.setInt(2, comment.getUserId());
             ps.setString(3, comment.getUsername());
@@ -37,18 +35,37 @@ public class CommentDao {
             ps.setString(7, comment.getReplyToUsername());
             ps.setString(8, comment.getReplyToNickname());
             ps.executeUpdate();
+            try (ResultSet keys = ps.getGeneratedKeys()) {
+                if (!keys.next()) {
+                    int cardId = comment.getCardId();
+                    DbUtil.afterCommit(() -> CommentTreeCache.invalidateCard(cardId));
+                    return;
+                }
+                comment.setId(keys.getInt(1));
+            }
         }
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        comment.setCreatedAt(now);
+        comment.setUpdatedAt(now);
+        DbUtil.afterCommit(() -> CommentTreeCache.onAdded(comment));
     }
 
     /**
-     * 获取指定名片的所有评论(树形结构)
+     * 获取指定名片的所有评论(树形结构，读缓存，见 {@link CommentTreeCache})
      * @param cardId 名片ID
-     * @return 顶级评论列表(包含子评论)
+     * @return 顶级评论列表(包含子评论)，只读
      * @throws SQLException 数据库操作异常
      */
     public List<Comment> getCommentsByCardId(int cardId) throws SQLException {
+        return CommentTreeCache.get(cardId, () -> getCommentsFlatByCardId(cardId));
+    }
+
+    /**
+     * 按创建时间升序加载名片的全部评论(扁平列表)
+     */
+    private List<Comment> getCommentsFlatByCardId(int cardId) throws SQLException {
         List<Comment> allComments = new ArrayList<>();
-        String sql = "SELECT * FROM comments WHERE card_id = ? ORDER BY created_at ASC";
+        String sql = "SELECT * FROM comments WHERE card_id = ? ORDER BY created_at ASC, id ASC";
         try (Connection conn = DbUtil.getConnection();
              PreparedStatement ps = conn.prepareStatement(sql)) {
             ps.setInt(1, cardId);
@@ -58,51 +75,32 @@ public class CommentDao {
                 }
             }
         }
-
-        return buildCommentTree(allComments);
+        return allComments;
     }
 
     /**
-     * 构建评论树形结构
-     * @param allComments 所有评论的扁平列表
-     * @return 树形结构的顶级评论列表
-     */
-    private List<Comment> buildCommentTree(List<Comment> allComments) {
-        Map<Integer, Comment> commentMap = new HashMap<>();
-        List<Comment> rootComments = new ArrayList<>();
-
-        // 将所有评论放入映射表
-        for (Comment comment : allComments) {
-            commentMap.put(comment.getId(), comment);
-        }
-
-        // 构建树形结构
-        for (Comment comment : allComments) {
-            if (comment.getParentId() == null) {
-                rootComments.add(comment);
-            } else {
-                Comment parent = commentMap.get(comment.getParentId());
-                if (parent != null) {
-                    parent.addReply(comment);
-                }
-            }
-        }
-
-        return rootComments;
-    }
-
-    /**
-     * 删除评论(级联删除子评论)
+     * 删除评论(级联删除子评论)，并从缓存的评论树上剪掉对应子树
      * @param commentId 评论ID
      * @throws SQLException 数据库操作异常
      */
     public void deleteComment(int commentId) throws SQLException {
-        String sql = "DELETE FROM comments WHERE id = ?";
-        try (Connection conn = DbUtil.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql)) {
-            ps.setInt(1, commentId);
-            ps.executeUpdate();
+        int cardId;
+        try (Connection conn = DbUtil.getConnection()) {
+            try (PreparedStatement ps = conn.prepareStatement("SELECT card_id FROM comments WHERE id = ?")) {
+                ps.setInt(1, commentId);
+                try (ResultSet rs = ps.executeQuery()) {
+                    if (!rs.next()) {
+                        return;
+                    }
+                    cardId = rs.getInt(1);
+                }
+            }
+            try (PreparedStatement ps = conn.prepareStatement("DELETE FROM comments WHERE id = ?")) {
+                ps.setInt(1, commentId);
+                ps.executeUpdate();
+            }
         }
+        DbUtil.afterCommit(() -> CommentTreeCache.onDeleted(cardId, commentId));
     }
 
     /**
@@ -213,6 +211,13 @@ public class CommentDao {
         return 0;
     }
 
+    /**
+     * 评论树缓存统计信息
+     */
+    public static String getCacheStats() {
+        return CommentTreeCache.getStats();
+    }
+
     /**
      * 将ResultSet行映射为Comment对象
      * @param rs 结果集
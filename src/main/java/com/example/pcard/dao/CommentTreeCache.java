@@ -0,0 +1,182 @@
+package com.example.pcard.dao;
+
+import com.example.pcard.model.Comment;
+import com.example.pcard.util.BoundedCache;
+import com.example.pcard.util.CacheUtil;
+
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * 名片评论树缓存
+ * - 每张名片缓存一棵已组装好的评论树，查看名片时不再查询全部评论并重新建树
+ * - 新增评论只插入一个节点，删除评论只剪掉对应子树；树不在缓存中时使其失效，由下次读取重新加载
+ * - 每次增删都先使进行中的加载作废，写入前开始的加载不会用旧树覆盖已更新的树
+ * - 子评论列表使用 CopyOnWriteArrayList，页面渲染遍历时可与增删并发进行
+ * - 多实例部署下其他实例无法收到增删通知，因此TTL较短
+ */
+final class CommentTreeCache {
+    private static final long TTL = getEnvLong("COMMENT_TREE_CACHE_TTL_MS", 30 * 1000L);
+    private static final int MAX_CARDS = 2000;
+
+    private static final BoundedCache<Integer, Tree> cache = CacheUtil.newCache("commentTree", MAX_CARDS, TTL);
+
+    @FunctionalInterface
+    interface CommentsLoader {
+        /**
+         * 按创建时间升序加载名片的全部评论（扁平列表）
+         */
+        List<Comment> load() throws SQLException;
+    }
+
+    private CommentTreeCache() {
+    }
+
+    /**
+     * 获取名片的顶级评论列表（包含子评论），返回的结构只读
+     */
+    static List<Comment> get(int cardId, CommentsLoader loader) throws SQLException {
+        return cache.get(cardId, k -> Tree.build(loader.load())).roots();
+    }
+
+    /**
+     * 评论写入数据库后调用：把新节点挂到缓存的树上
+     * @param comment 已设置 id 和创建时间的评论，调用后归缓存所有，调用方不应再修改
+     */
+    static void onAdded(Comment comment) {
+        cache.discardPendingLoads(comment.getCardId());
+        Tree tree = cache.getIfPresent(comment.getCardId());
+        if (tree == null || !tree.insert(comment)) {
+            // 树不在缓存中（可能正在加载）或找不到父节点：作废，保证不会缓存缺少该评论的树
+            cache.invalidate(comment.getCardId());
+        }
+    }
+
+    /**
+     * 评论从数据库删除后调用：剪掉该评论及其全部回复
+     */
+    static void onDeleted(int cardId, int commentId) {
+        cache.discardPendingLoads(cardId);
+        Tree tree = cache.getIfPresent(cardId);
+        if (tree == null) {
+            cache.invalidate(cardId);
+        } else {
+            tree.remove(commentId);
+        }
+    }
+
+    /**
+     * 名片删除后调用（评论随外键级联删除）
+     */
+    static void invalidateCard(int cardId) {
+        cache.invalidate(cardId);
+    }
+
+    /**
+     * 用户删除后调用：其评论分布在任意名片上，直接清空全部评论树
+     */
+    static void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    static String getStats() {
+        return cache.getStats();
+    }
+
+    /**
+     * 单张名片的评论树
+     * 写操作在树对象上同步；读操作只遍历 CopyOnWriteArrayList，无需加锁
+     */
+    private static final class Tree {
+        private final Map<Integer, Comment> nodes = new HashMap<>();
+        private final List<Comment> roots = new CopyOnWriteArrayList<>();
+        private final List<Comment> readOnlyRoots = Collections.unmodifiableList(roots);
+
+        static Tree build(List<Comment> allComments) {
+            Tree tree = new Tree();
+            for (Comment comment : allComments) {
+                comment.setReplies(new CopyOnWriteArrayList<>());
+                tree.nodes.put(comment.getId(), comment);
+            }
+            for (Comment comment : allComments) {
+                if (comment.getParentId() == null) {
+                    tree.roots.add(comment);
+                } else {
+                    Comment parent = tree.nodes.get(comment.getParentId());
+                    if (parent != null) {
+                        parent.addReply(comment);
+                    }
+                }
+            }
+            return tree;
+        }
+
+        List<Comment> roots() {
+            return readOnlyRoots;
+        }
+
+        /**
+         * @return 父节点不存在时返回false
+         */
+        synchronized boolean insert(Comment comment) {
+            if (nodes.containsKey(comment.getId())) {
+                // 加载时已读到该评论
+                return true;
+            }
+            Comment parent = null;
+            if (comment.getParentId() != null) {
+                parent = nodes.get(comment.getParentId());
+                if (parent == null) {
+                    return false;
+                }
+            }
+            comment.setReplies(new CopyOnWriteArrayList<>());
+            nodes.put(comment.getId(), comment);
+            if (parent == null) {
+                roots.add(comment);
+            } else {
+                parent.addReply(comment);
+            }
+            return true;
+        }
+
+        synchronized void remove(int commentId) {
+            Comment comment = nodes.get(commentId);
+            if (comment == null) {
+                return;
+            }
+            if (comment.getParentId() == null) {
+                roots.remove(comment);
+            } else {
+                Comment parent = nodes.get(comment.getParentId());
+                if (parent != null) {
+                    parent.getReplies().remove(comment);
+                }
+            }
+            Deque<Comment> pending = new ArrayDeque<>();
+            pending.push(comment);
+            while (!pending.isEmpty()) {
+                Comment node = pending.pop();
+                nodes.remove(node.getId());
+                for (Comment reply : node.getReplies()) {
+                    pending.push(reply);
+                }
+            }
+        }
+    }
+
+    private static long getEnvLong(String name, long defVal) {
+        try {
+            String v = System.getenv(name);
+            return v == null ? defVal : Long.parseLong(v);
+        } catch (Exception e) {
+            return defVal;
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package com.example.pcard.dao;
+
+import com.example.pcard.ratelimit.SharedCounterStore;
+import com.example.pcard.util.DbUtil;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 限流计数共享存储（MySQL，rate_limit_counters 表）
+ * 每次同步用一条多行 INSERT ... ON DUPLICATE KEY UPDATE 累加增量，再按主键取回总数；只在限流同步线程中调用
+ * 限流键含客户端提供的 IP 头，超过列宽的键改存为摘要，避免单个超长键使整批写入失败
+ */
+public class RateLimitCounterDao implements SharedCounterStore {
+    // 单条语句的最大行数
+    private static final int CHUNK_SIZE = 500;
+    // counter_key 列宽
+    private static final int MAX_KEY_LENGTH = 128;
+
+    @Override
+    public Map<String, Long> addAndGet(long window, Map<String, Long> deltas) throws SQLException {
+        if (deltas.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        // 存储键 -> 原始键；超长键按摘要存储，取回总数后再映射回原始键
+        Map<String, String> keys = new HashMap<>(deltas.size() * 2);
+        Map<String, Long> stored = new HashMap<>(deltas.size() * 2);
+        deltas.forEach((key, delta) -> {
+            String storedKey = storedKey(key);
+            keys.put(storedKey, key);
+            stored.merge(storedKey, delta, Long::sum);
+        });
+        Map<String, Long> storedTotals = new HashMap<>(stored.size() * 2);
+        List<Map.Entry<String, Long>> entries = new ArrayList<>(stored.entrySet());
+        try (Connection conn = DbUtil.getConnection()) {
+            for (int from = 0; from < entries.size(); from += CHUNK_SIZE) {
+                List<Map.Entry<String, Long>> chunk = entries.subList(from, Math.min(entries.size(), from + CHUNK_SIZE));
+                upsert(conn, window, chunk);
+                select(conn, window, chunk, storedTotals);
+            }
+        }
+        Map<String, Long> totals = new HashMap<>(storedTotals.size() * 2);
+        storedTotals.forEach((storedKey, total) -> {
+            String key = keys.get(storedKey);
+            if (key != null) {
+                totals.put(key, total);
+            }
+        });
+        return totals;
+    }
+
+    @Override
+    public void expireBefore(long window) throws SQLException {
+        String sql = "DELETE FROM rate_limit_counters WHERE window_id < ?";
+        try (Connection conn = DbUtil.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setLong(1, window);
+            ps.executeUpdate();
+        }
+    }
+
+    private void upsert(Connection conn, long window, List<Map.Entry<String, Long>> chunk) throws SQLException {
+        StringBuilder sql = new StringBuilder("INSERT INTO rate_limit_counters (counter_key, window_id, count) VALUES ");
+        for (int i = 0; i < chunk.size(); i++) {
+            sql.append(i == 0 ? "(?, ?, ?)" : ", (?, ?, ?)");
+        }
+        sql.append(" ON DUPLICATE KEY UPDATE count = count + VALUES(count)");
+        try (PreparedStatement ps = conn.prepareStatement(sql.toString())) {
+            int index = 1;
+            for (Map.Entry<String, Long> entry : chunk) {
+                ps.setString(index++, entry.getKey());
+                ps.setLong(index++, window);
+                ps.setLong(index++, entry.getValue());
+            }
+            ps.executeUpdate();
+        }
+    }
+
+    private void select(Connection conn, long window, List<Map.Entry<String, Long>> chunk, Map<String, Long> totals) throws SQLException {
+        StringBuilder sql = new StringBuilder("SELECT counter_key, count FROM rate_limit_counters WHERE window_id = ? AND counter_key IN (");
+        for (int i = 0; i < chunk.size(); i++) {
+            sql.append(i == 0 ? "?" : ", ?");
+        }
+        sql.append(")");
+        try (PreparedStatement ps = conn.prepareStatement(sql.toString())) {
+            ps.setLong(1, window);
+            int index = 2;
+            for (Map.Entry<String, Long> entry : chunk) {
+                ps.setString(index++, entry.getKey());
+            }
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    totals.put(rs.getString("counter_key"), rs.getLong("count"));
+                }
+            }
+        }
+    }
+
+    /**
+     * 列宽以内的键原样存储，超长键存为 "sha256:" + 摘要（71 个字符）
+     */
+    private static String storedKey(String key) {
+        if (key.length() <= MAX_KEY_LENGTH) {
+            return key;
+        }
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(key.getBytes(StandardCharsets.UTF_8));
+            return "sha256:" + toHex(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static String toHex(byte[] bytes) {
+        StringBuilder sb = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            sb.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,12 @@
+package com.example.pcard.dao;
+
+import java.io.IOException;
+
+/**
+ * 流式查询的逐行回调，每行映射后立即交给调用方处理，不在内存中累积
+ * @param <T> 行对象类型
+ */
+@FunctionalInterface
+public interface RowHandler<T> {
+    void handle(T row) throws IOException;
+}
@@ -0,0 +1,80 @@
+package com.example.pcard.dao;
+
+import com.example.pcard.util.ChineseConverter;
+import com.example.pcard.util.DbUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * 名片搜索影子列回填任务
+ * - 为 search_key_version 为空或低于当前版本的存量名片计算 *_sk 影子列，按 id 分批处理
+ * - 只在原始列未被并发修改时写入（比较原值），避免覆盖 updateCard 刚写入的新搜索键
+ * - 可重复执行，多实例同时执行也只是重复计算同一批行；全部完成后搜索切换到影子列
+ */
+public final class SearchKeyBackfill {
+    private static final Logger logger = LoggerFactory.getLogger(SearchKeyBackfill.class);
+
+    private static final int BATCH_SIZE = 500;
+
+    private SearchKeyBackfill() {
+    }
+
+    /**
+     * 执行回填，完成后启用影子列搜索
+     * @return 本次更新的行数
+     * @throws SQLException 数据库操作异常（此时搜索继续使用原有匹配方式）
+     */
+    public static int run() throws SQLException {
+        String selectSql = "SELECT id, producer_name, region, idol_name FROM cards " +
+                "WHERE id > ? AND (search_key_version IS NULL OR search_key_version < ?) ORDER BY id LIMIT ?";
+        String updateSql = "UPDATE cards SET producer_name_sk = ?, region_sk = ?, idol_name_sk = ?, search_key_version = ? " +
+                "WHERE id = ? AND producer_name <=> ? AND region <=> ? AND idol_name <=> ?";
+        int updated = 0;
+        int lastId = 0;
+        try (Connection conn = DbUtil.getConnection();
+             PreparedStatement select = conn.prepareStatement(selectSql);
+             PreparedStatement update = conn.prepareStatement(updateSql)) {
+            while (true) {
+                select.setInt(1, lastId);
+                select.setInt(2, CardSearch.SEARCH_KEY_VERSION);
+                select.setInt(3, BATCH_SIZE);
+                int rows = 0;
+                try (ResultSet rs = select.executeQuery()) {
+                    while (rs.next()) {
+                        rows++;
+                        lastId = rs.getInt("id");
+                        String producerName = rs.getString("producer_name");
+                        String region = rs.getString("region");
+                        String idolName = rs.getString("idol_name");
+                        update.setString(1, ChineseConverter.toSearchKey(producerName));
+                        update.setString(2, ChineseConverter.toSearchKey(region));
+                        update.setString(3, ChineseConverter.toSearchKey(idolName));
+                        update.setInt(4, CardSearch.SEARCH_KEY_VERSION);
+                        update.setInt(5, lastId);
+                        update.setString(6, producerName);
+                        update.setString(7, region);
+                        update.setString(8, idolName);
+                        update.addBatch();
+                    }
+                }
+                if (rows == 0) {
+                    break;
+                }
+                for (int count : update.executeBatch()) {
+                    if (count > 0) {
+                        updated += count;
+                    }
+                }
+                logger.debug("搜索键回填进度: 已处理至 id={}, 累计更新 {} 行", lastId, updated);
+            }
+        }
+        CardSearch.markSearchKeysReady();
+        logger.info("搜索键回填完成，更新 {} 行，名片搜索已切换到规范化影子列", updated);
+        return updated;
+    }
+}
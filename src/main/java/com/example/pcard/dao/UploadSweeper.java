@@ -0,0 +1,174 @@
+package com.example.pcard.dao;
+
+import com.example.pcard.storage.StorageBackend;
+import com.example.pcard.storage.StoredObject;
+import com.example.pcard.util.DbUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.regex.Pattern;
+
+/**
+ * 上传文件标记-清除任务
+ * - 上传文件按内容哈希命名，多张名片可能引用同一文件，更新/删除名片时不再直接删除文件
+ * - 标记：读取 cards 表中所有 card_front_path / card_back_path，取文件名（去掉扩展名）作为被引用的键
+ * - 清除：通过存储后端删除未被引用、且最后修改时间超过宽限期的原图及其尺寸版本（{@code _w<宽度>}），以及残留的临时文件
+ * - 上传命中已有文件时会刷新其修改时间，宽限期内刚被复用、尚未写入名片的文件不会被清除
+ * - 列出存储期间可能有上传复用了旧文件并写入名片：删除前重新读取引用，并逐个复核修改时间，
+ *   已被引用或修改时间已进入宽限期的组整体跳过
+ * - 多实例同时执行结果相同，可重复执行
+ */
+public final class UploadSweeper {
+    private static final Logger logger = LoggerFactory.getLogger(UploadSweeper.class);
+
+    // 尺寸版本文件名后缀，如 <hash>_w640.jpg
+    private static final Pattern VARIANT_SUFFIX = Pattern.compile("_w\\d+$");
+    // 文件系统存储后端暂存文件的前缀
+    private static final String[] TEMP_PREFIXES = {".upload-"};
+
+    private UploadSweeper() {
+    }
+
+    /**
+     * 执行一次标记-清除
+     * @param storage 存储后端
+     * @param graceMillis 宽限期（毫秒），修改时间在此之内的文件不删除
+     * @return 删除的文件数
+     * @throws SQLException 数据库操作异常（此时不删除任何文件）
+     */
+    public static int run(StorageBackend storage, long graceMillis) throws SQLException {
+        long cutoff = System.currentTimeMillis() - graceMillis;
+        // 先标记再列出存储：标记之后才写入或被复用的文件修改时间在宽限期内，不会被误删
+        Set<String> referenced = loadReferencedKeys();
+
+        int kept = 0;
+        // 未引用的文件按键分组：原图和尺寸版本一起保留或一起删除，以组内最新的修改时间为准
+        Map<String, List<String>> orphans = new HashMap<>();
+        Map<String, Long> newest = new HashMap<>();
+        for (StoredObject object : storage.list().join()) {
+            String name = object.getKey();
+            boolean temp = isTempFile(name);
+            // 其他隐藏文件不是本应用写入的，不处理
+            if (!temp && name.startsWith(".")) {
+                continue;
+            }
+            String key = temp ? name : keyOf(name);
+            if (!temp && referenced.contains(key)) {
+                kept++;
+                continue;
+            }
+            orphans.computeIfAbsent(key, k -> new ArrayList<>()).add(name);
+            newest.merge(key, object.getLastModified(), Math::max);
+        }
+
+        Map<String, List<String>> candidates = new HashMap<>();
+        for (Map.Entry<String, List<String>> group : orphans.entrySet()) {
+            if (newest.get(group.getKey()) <= cutoff) {
+                candidates.put(group.getKey(), group.getValue());
+            }
+        }
+        if (candidates.isEmpty()) {
+            logger.info("上传目录清理完成: 删除 0 个未引用文件, 保留 {} 个被引用文件", kept);
+            return 0;
+        }
+        // 复核引用：列出存储之后写入的名片可能引用了候选文件
+        Set<String> referencedNow = loadReferencedKeys();
+
+        List<CompletableFuture<Boolean>> deletions = new ArrayList<>();
+        for (Map.Entry<String, List<String>> group : candidates.entrySet()) {
+            if (!isTempFile(group.getKey()) && referencedNow.contains(group.getKey())) {
+                kept += group.getValue().size();
+                continue;
+            }
+            if (touchedSince(storage, group.getValue(), cutoff)) {
+                continue;
+            }
+            for (String name : group.getValue()) {
+                deletions.add(storage.delete(name).exceptionally(e -> {
+                    logger.warn("清理上传文件失败: {}", name, e);
+                    return false;
+                }));
+            }
+        }
+        int deleted = 0;
+        for (CompletableFuture<Boolean> deletion : deletions) {
+            if (deletion.join()) {
+                deleted++;
+            }
+        }
+        logger.info("上传目录清理完成: 删除 {} 个未引用文件, 保留 {} 个被引用文件", deleted, kept);
+        return deleted;
+    }
+
+    /**
+     * 组内是否有文件在列出之后被刷新了修改时间（上传复用），复核失败时按已刷新处理
+     */
+    private static boolean touchedSince(StorageBackend storage, List<String> names, long cutoff) {
+        for (String name : names) {
+            try {
+                Long lastModified = storage.lastModified(name).join();
+                if (lastModified != null && lastModified > cutoff) {
+                    return true;
+                }
+            } catch (RuntimeException e) {
+                logger.warn("复核上传文件修改时间失败，跳过: {}", name, e);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 被名片引用的文件键（文件名去掉扩展名）
+     */
+    private static Set<String> loadReferencedKeys() throws SQLException {
+        Set<String> keys = new HashSet<>();
+        String sql = "SELECT card_front_path, card_back_path FROM cards " +
+                "WHERE card_front_path IS NOT NULL OR card_back_path IS NOT NULL";
+        try (Connection conn = DbUtil.getConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            while (rs.next()) {
+                addKey(keys, rs.getString(1));
+                addKey(keys, rs.getString(2));
+            }
+        }
+        return keys;
+    }
+
+    private static void addKey(Set<String> keys, String path) {
+        if (path == null || path.isEmpty()) {
+            return;
+        }
+        keys.add(keyOf(path.substring(path.lastIndexOf('/') + 1)));
+    }
+
+    /**
+     * 文件名 -> 键：去掉扩展名和尺寸版本后缀
+     */
+    static String keyOf(String fileName) {
+        int dot = fileName.lastIndexOf('.');
+        String base = dot > 0 ? fileName.substring(0, dot) : fileName;
+        return VARIANT_SUFFIX.matcher(base).replaceFirst("");
+    }
+
+    private static boolean isTempFile(String name) {
+        for (String prefix : TEMP_PREFIXES) {
+            if (name.startsWith(prefix) && name.endsWith(".tmp")) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
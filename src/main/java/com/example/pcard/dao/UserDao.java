@@ -1,18 +1,33 @@
 package com.example.pcard.dao;
 
 import com.example.pcard.model.User;
+import com.example.pcard.util.BoundedCache;
+import com.example.pcard.util.CacheUtil;
 import com.example.pcard.util.DbUtil;
 import com.example.pcard.util.ChineseConverter;
 
+import java.io.IOException;
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * 用户数据访问对象
  * 处理用户相关的数据库操作
  */
 public class UserDao {
+    // 用户状态缓存：AuthRefreshFilter 每个请求都要检查封禁/角色，短TTL + 写入时主动失效
+    // 失效会递增该用户所在分段的版本号，进行中的加载结果随之作废，封禁和角色变更在本实例立即生效
+    // 其他实例收不到失效通知，最多在TTL内看到旧状态
+    private static final long USER_STATE_TTL = getEnvLong("USER_STATE_CACHE_TTL_MS", 30 * 1000L);
+    private static final BoundedCache<Integer, User> userStateCache =
+            CacheUtil.newCache("userState", 20000, USER_STATE_TTL);
 
     /**
      * 添加新用户
@@ -21,6 +36,7 @@ public class UserDao {
      */
     public void addUser(User user) throws SQLException {
         String sql = "INSERT INTO users (username, nickname, password) VALUES (?, ?, ?)";
+        long statsSince = AdminStats.beginWrite();
         try (Connection conn = DbUtil.getConnection();
              PreparedStatement ps = conn.prepareStatement(sql)) {
             ps.setString(1, user.getUsername());
@@ -28,6 +44,7 @@ public class UserDao {
             ps.setString(3, user.getPassword());
             ps.executeUpdate();
         }
+        DbUtil.afterCommit(() -> AdminStats.userAdded(statsSince));
     }
 
     /**
@@ -70,6 +87,17 @@ public class UserDao {
         return null;
     }
 
+    /**
+     * 获取用户当前状态（读缓存，用于每个请求的登录态刷新）
+     * @param id 用户ID
+     * @return 用户对象副本,不存在返回null
+     * @throws SQLException 数据库操作异常
+     */
+    public User getUserState(int id) throws SQLException {
+        User cached = userStateCache.get(id, this::getUserById);
+        return cached == null ? null : new User(cached);
+    }
+
     /**
      * 获取所有用户列表
      * @return 用户列表
@@ -88,6 +116,31 @@ public class UserDao {
         return users;
     }
 
+    /**
+     * 按 id 顺序流式读取全部用户（导出用），每行交给 handler 后即丢弃，内存占用与用户数量无关
+     * 只查询导出需要的列，不含密码
+     * @param handler 逐行回调
+     * @throws SQLException 数据库操作异常
+     * @throws IOException handler 写出失败（如客户端断开）
+     */
+    public void streamAllUsers(RowHandler<User> handler) throws SQLException, IOException {
+        String sql = "SELECT id, username, nickname, role, status FROM users ORDER BY id";
+        try (Connection conn = DbUtil.getConnection();
+             PreparedStatement ps = DbUtil.prepareStreaming(conn, sql);
+             ResultSet rs = ps.executeQuery()) {
+            User user = new User();
+            while (rs.next()) {
+                user.setId(rs.getInt(1));
+                user.setUsername(rs.getString(2));
+                String nickname = rs.getString(3);
+                user.setNickname(nickname != null ? nickname : user.getUsername());
+                user.setRole(rs.getString(4));
+                user.setStatus(rs.getString(5));
+                handler.handle(user);
+            }
+        }
+    }
+
     /**
      * 分页获取用户列表
      * @param offset 偏移量
@@ -111,6 +164,14 @@ public class UserDao {
         return users;
     }
 
+    /**
+     * 全部用户的游标分页，参数含义同 {@link #searchUsersKeyset}
+     * @throws SQLException 数据库操作异常
+     */
+    public List<User> getAllUsersKeyset(Integer afterId, Integer beforeId, int limit) throws SQLException {
+        return searchUsersKeyset(null, null, null, afterId, beforeId, limit);
+    }
+
     /**
      * 搜索用户
      * 支持简繁体互相匹配
@@ -234,6 +295,75 @@ public class UserDao {
         return users;
     }
 
+    /**
+     * 用户列表的游标分页
+     * - afterId 非空：下一页，取 id 小于 afterId 的 limit 条
+     * - beforeId 非空：上一页，取 id 大于 beforeId 的 limit 条（按 id 升序取出后反转）
+     * - 均为空：第一页
+     * @return 按 id 降序排列的用户列表
+     * @throws SQLException 数据库操作异常
+     */
+    public List<User> searchUsersKeyset(String q, String role, String status, Integer afterId, Integer beforeId, int limit) throws SQLException {
+        List<User> users = new ArrayList<>();
+        StringBuilder sql = new StringBuilder("SELECT * FROM users WHERE 1=1");
+        List<Object> params = new ArrayList<>();
+
+        if (q != null && !q.trim().isEmpty()) {
+            q = q.trim();
+
+            List<String> searchVariants;
+            if (ChineseConverter.containsChinese(q)) {
+                searchVariants = ChineseConverter.getSearchVariants(q);
+            } else {
+                searchVariants = new ArrayList<>();
+                searchVariants.add(q);
+            }
+
+            List<String> conditions = new ArrayList<>();
+            for (String variant : searchVariants) {
+                conditions.add("LOWER(username) LIKE ?");
+                params.add("%" + variant.toLowerCase() + "%");
+            }
+            sql.append(" AND (").append(String.join(" OR ", conditions)).append(")");
+        }
+
+        if (role != null && !role.trim().isEmpty() && !"all".equalsIgnoreCase(role)) {
+            sql.append(" AND role = ?");
+            params.add(role);
+        }
+        if (status != null && !status.trim().isEmpty() && !"all".equalsIgnoreCase(status)) {
+            sql.append(" AND status = ?");
+            params.add(status);
+        }
+        boolean backward = afterId == null && beforeId != null;
+        if (afterId != null) {
+            sql.append(" AND id < ?");
+            params.add(afterId);
+        } else if (backward) {
+            sql.append(" AND id > ?");
+            params.add(beforeId);
+        }
+        sql.append(backward ? " ORDER BY id ASC LIMIT ?" : " ORDER BY id DESC LIMIT ?");
+
+        try (Connection conn = DbUtil.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql.toString())) {
+            int i = 1;
+            for (Object p : params) {
+                ps.setObject(i++, p);
+            }
+            ps.setInt(i, limit);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    users.add(mapRowToUser(rs));
+                }
+            }
+        }
+        if (backward) {
+            Collections.reverse(users);
+        }
+        return users;
+    }
+
     /**
      * 统计符合条件的用户数量
      * 支持简繁体互相匹配
@@ -316,13 +446,27 @@ public class UserDao {
      * @throws SQLException 数据库操作异常
      */
     public void updateUserStatus(int userId, String status) throws SQLException {
-        String sql = "UPDATE users SET status = ? WHERE id = ?";
+        // 只更新实际变化的行，据此对统计快照做增量更新
+        String sql = "UPDATE users SET status = ? WHERE id = ? AND status <> ?";
+        boolean changed;
+        long statsSince = AdminStats.beginWrite();
         try (Connection conn = DbUtil.getConnection();
              PreparedStatement ps = conn.prepareStatement(sql)) {
             ps.setString(1, status);
             ps.setInt(2, userId);
-            ps.executeUpdate();
+            ps.setString(3, status);
+            changed = ps.executeUpdate() > 0;
         }
+        DbUtil.afterCommit(() -> {
+            userStateCache.invalidate(userId);
+            if (changed) {
+                if ("active".equalsIgnoreCase(status) || "banned".equalsIgnoreCase(status)) {
+                    AdminStats.userStatusChanged(statsSince, status);
+                } else {
+                    AdminStats.invalidate();
+                }
+            }
+        });
     }
 
     /**
@@ -339,6 +483,7 @@ public class UserDao {
             ps.setInt(2, userId);
             ps.executeUpdate();
         }
+        DbUtil.afterCommit(() -> userStateCache.invalidate(userId));
     }
 
     /**
@@ -348,13 +493,26 @@ public class UserDao {
      * @throws SQLException 数据库操作异常
      */
     public void updateUserRole(int userId, String role) throws SQLException {
-        String sql = "UPDATE users SET role = ? WHERE id = ?";
+        String sql = "UPDATE users SET role = ? WHERE id = ? AND role <> ?";
+        boolean changed;
+        long statsSince = AdminStats.beginWrite();
         try (Connection conn = DbUtil.getConnection();
              PreparedStatement ps = conn.prepareStatement(sql)) {
             ps.setString(1, role);
             ps.setInt(2, userId);
-            ps.executeUpdate();
+            ps.setString(3, role);
+            changed = ps.executeUpdate() > 0;
         }
+        DbUtil.afterCommit(() -> {
+            userStateCache.invalidate(userId);
+            if (changed) {
+                if ("admin".equalsIgnoreCase(role) || "user".equalsIgnoreCase(role)) {
+                    AdminStats.userRoleChanged(statsSince, role);
+                } else {
+                    AdminStats.invalidate();
+                }
+            }
+        });
     }
 
     /**
@@ -371,6 +529,7 @@ public class UserDao {
             ps.setInt(2, userId);
             ps.executeUpdate();
         }
+        DbUtil.afterCommit(() -> userStateCache.invalidate(userId));
     }
 
     /**
@@ -385,6 +544,115 @@ public class UserDao {
             ps.setInt(1, userId);
             ps.executeUpdate();
         }
+        // 用户的名片和评论随外键级联删除，同步清理名片缓存和评论树缓存
+        DbUtil.afterCommit(() -> {
+            CardCache.invalidateByUserId(userId);
+            CommentTreeCache.invalidateAll();
+            CardDao.invalidatePreferredRegion(userId);
+            userStateCache.invalidate(userId);
+            AdminStats.invalidate();
+        });
+    }
+
+    /**
+     * 批量封禁用户（跳过管理员和已封禁的用户）
+     * 在一个事务内完成：先锁定符合条件的行，再用一条 UPDATE 更新
+     * @param userIds 用户ID
+     * @return 实际被封禁的用户ID；不在其中的ID不存在、是管理员或本来已封禁
+     * @throws SQLException 数据库操作异常（事务已回滚）
+     */
+    public Set<Integer> banUsers(Collection<Integer> userIds) throws SQLException {
+        Set<Integer> ids = new LinkedHashSet<>(userIds);
+        if (ids.isEmpty()) {
+            return Collections.emptySet();
+        }
+        return DbUtil.inTransaction(() -> {
+            // id -> 原状态
+            Map<Integer, String> targets = new LinkedHashMap<>();
+            long[] statsSince = {0L};
+            String select = "SELECT id, status FROM users WHERE id IN (" + DbUtil.placeholders(ids.size()) + ")"
+                    + " AND role <> 'admin' AND status <> 'banned' FOR UPDATE";
+            try (Connection conn = DbUtil.getConnection()) {
+                try (PreparedStatement ps = conn.prepareStatement(select)) {
+                    DbUtil.setInts(ps, 1, ids);
+                    try (ResultSet rs = ps.executeQuery()) {
+                        while (rs.next()) {
+                            targets.put(rs.getInt(1), rs.getString(2));
+                        }
+                    }
+                }
+                if (!targets.isEmpty()) {
+                    statsSince[0] = AdminStats.beginWrite();
+                    String update = "UPDATE users SET status = 'banned' WHERE id IN (" + DbUtil.placeholders(targets.size()) + ")";
+                    try (PreparedStatement ps = conn.prepareStatement(update)) {
+                        DbUtil.setInts(ps, 1, targets.keySet());
+                        ps.executeUpdate();
+                    }
+                }
+            }
+            if (!targets.isEmpty()) {
+                boolean allActive = targets.values().stream().allMatch("active"::equalsIgnoreCase);
+                DbUtil.afterCommit(() -> {
+                    for (int userId : targets.keySet()) {
+                        userStateCache.invalidate(userId);
+                    }
+                    if (allActive) {
+                        AdminStats.userStatusChanged(statsSince[0], "banned", targets.size());
+                    } else {
+                        AdminStats.invalidate();
+                    }
+                });
+            }
+            return targets.keySet();
+        });
+    }
+
+    /**
+     * 批量删除用户（跳过管理员），名片和评论随外键级联删除
+     * 在一个事务内完成：先锁定符合条件的行，再用一条 DELETE 删除
+     * @param userIds 用户ID
+     * @return 实际被删除的用户ID；不在其中的ID不存在或是管理员
+     * @throws SQLException 数据库操作异常（事务已回滚）
+     */
+    public Set<Integer> deleteUsers(Collection<Integer> userIds) throws SQLException {
+        Set<Integer> ids = new LinkedHashSet<>(userIds);
+        if (ids.isEmpty()) {
+            return Collections.emptySet();
+        }
+        return DbUtil.inTransaction(() -> {
+            Set<Integer> deleted = new LinkedHashSet<>();
+            String select = "SELECT id FROM users WHERE id IN (" + DbUtil.placeholders(ids.size()) + ")"
+                    + " AND role <> 'admin' FOR UPDATE";
+            try (Connection conn = DbUtil.getConnection()) {
+                try (PreparedStatement ps = conn.prepareStatement(select)) {
+                    DbUtil.setInts(ps, 1, ids);
+                    try (ResultSet rs = ps.executeQuery()) {
+                        while (rs.next()) {
+                            deleted.add(rs.getInt(1));
+                        }
+                    }
+                }
+                if (!deleted.isEmpty()) {
+                    String delete = "DELETE FROM users WHERE id IN (" + DbUtil.placeholders(deleted.size()) + ")";
+                    try (PreparedStatement ps = conn.prepareStatement(delete)) {
+                        DbUtil.setInts(ps, 1, deleted);
+                        ps.executeUpdate();
+                    }
+                }
+            }
+            if (!deleted.isEmpty()) {
+                DbUtil.afterCommit(() -> {
+                    for (int userId : deleted) {
+                        CardCache.invalidateByUserId(userId);
+                        CardDao.invalidatePreferredRegion(userId);
+                        userStateCache.invalidate(userId);
+                    }
+                    CommentTreeCache.invalidateAll();
+                    AdminStats.invalidate();
+                });
+            }
+            return deleted;
+        });
     }
 
     /**
@@ -409,4 +677,13 @@ public class UserDao {
         user.setStatus(rs.getString("status"));
         return user;
     }
-}
\ No newline at end of file
+
+    private static long getEnvLong(String name, long defVal) {
+        try {
+            String v = System.getenv(name);
+            return v == null ? defVal : Long.parseLong(v);
+        } catch (Exception e) {
+            return defVal;
+        }
+    }
+}
@@ -2,6 +2,7 @@ package com.example.pcard.filter;
 
 import com.example.pcard.dao.UserDao;
 import com.example.pcard.model.User;
+import com.example.pcard.util.RouteClass;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -15,7 +16,7 @@ import java.sql.SQLException;
 /**
  * 用户认证刷新过滤器
  * 功能:
- * - 每次请求时从数据库刷新用户信息到session
+ * - 每次请求时刷新用户信息到session（读 UserDao 的用户状态缓存，封禁/角色变更时缓存立即失效）
  * - 检测用户封禁状态,封禁用户自动登出
  * - 防止非管理员直接访问admin.jsp
  */
@@ -40,7 +41,7 @@ public class AuthRefreshFilter implements Filter {
         String path = uri.substring(contextPath.length());
 
         // 跳过静态资源
-        if (isStaticResource(path)) {
+        if (RouteClass.of(req) == RouteClass.STATIC) {
             chain.doFilter(request, response);
             return;
         }
@@ -50,8 +51,8 @@ public class AuthRefreshFilter implements Filter {
 
         if (sessionUser != null) {
             try {
-                // 从数据库获取最新用户信息
-                User latest = userDao.getUserById(sessionUser.getId());
+                // 获取最新用户信息（短TTL缓存，用户写操作会主动失效）
+                User latest = userDao.getUserState(sessionUser.getId());
                 if (latest == null || "banned".equalsIgnoreCase(latest.getStatus())) {
                     // 用户已删除或被封禁
                     handleBannedUser(session, req, resp, contextPath, path);
@@ -117,17 +118,6 @@ public class AuthRefreshFilter implements Filter {
         }
     }
 
-    /**
-     * 判断是否为静态资源
-     */
-    private boolean isStaticResource(String path) {
-        return path.startsWith("/css/") || path.startsWith("/js/") || path.startsWith("/uploads/")
-                || path.endsWith(".css") || path.endsWith(".js") || path.endsWith(".png")
-                || path.endsWith(".jpg") || path.endsWith(".jpeg") || path.endsWith(".gif")
-                || path.endsWith(".ico") || path.endsWith(".svg") || path.endsWith(".woff")
-                || path.endsWith(".woff2") || path.endsWith(".ttf") || path.endsWith(".map");
-    }
-
     /**
      * 判断是否为认证相关路径
      */
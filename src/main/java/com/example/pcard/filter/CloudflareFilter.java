@@ -1,5 +1,6 @@
 package com.example.pcard.filter;
 
+import com.example.pcard.util.RouteClass;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -13,7 +14,7 @@ import javax.servlet.http.HttpServletRequestWrapper;
  * Cloudflare集成过滤器
  * 功能:
  * - 提取和验证Cloudflare请求头
- * - Bot检测和防护
+ * - Bot检测和防护（需要严格检测的路由见 {@link RouteClass#isBotProtected()}）
  * - 地理位置信息提取
  * - 真实IP地址获取
  */
@@ -22,11 +23,6 @@ public class CloudflareFilter implements Filter {
     
     // Cloudflare Bot Management Score阈值 (1-99, 越低越可能是bot)
     private static final int BOT_SCORE_THRESHOLD = 30;
-    
-    // 需要严格bot检测的路径
-    private static final String[] PROTECTED_PATHS = {
-        "/login", "/register", "/card", "/comment", "/admin"
-    };
 
     @Override
     public void init(FilterConfig filterConfig) {
@@ -70,7 +66,7 @@ public class CloudflareFilter implements Filter {
                 req.setAttribute("botScore", botScore);
                 
                 // 检查是否访问受保护的路径
-                if (isProtectedPath(uri) && botScore < BOT_SCORE_THRESHOLD) {
+                if (RouteClass.of(req).isBotProtected() && botScore < BOT_SCORE_THRESHOLD) {
                     logger.warn("可疑Bot访问被阻止: IP={}, Score={}, Path={}, CF-Ray={}", 
                             realIp, botScore, uri, cfRay);
                     
@@ -121,18 +117,6 @@ public class CloudflareFilter implements Filter {
         logger.info("CloudflareFilter 已销毁");
     }
 
-    /**
-     * 检查路径是否需要严格的bot保护
-     */
-    private boolean isProtectedPath(String uri) {
-        for (String path : PROTECTED_PATHS) {
-            if (uri.contains(path)) {
-                return true;
-            }
-        }
-        return false;
-    }
-
     /**
      * 检查国家是否被阻止 (示例)
      */
@@ -8,57 +8,60 @@ import javax.servlet.annotation.WebFilter;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.atomic.AtomicInteger;
-
+import java.util.List;
+import java.util.Map;
+
+import com.example.pcard.dao.RateLimitCounterDao;
+import com.example.pcard.ratelimit.ClusterCounterSync;
+import com.example.pcard.ratelimit.InMemorySharedCounterStore;
+import com.example.pcard.ratelimit.RoutePolicy;
+import com.example.pcard.ratelimit.SharedCounterStore;
+import com.example.pcard.ratelimit.SlidingWindowLimiter;
+import com.example.pcard.util.RouteClass;
 import com.example.pcard.util.TurnstileGate;
 
 /**
  * 速率限制过滤器
  * 提供应用层的速率限制，作为Cloudflare速率限制的补充
+ * 计数使用 {@link SlidingWindowLimiter}（无锁滑动窗口，固定内存），各路由的上限和 Turnstile 阈值见 {@link #POLICIES}
+ * 配置 RATE_LIMIT_STORE 后通过 {@link ClusterCounterSync} 在后台与其他实例同步计数，上限在整个集群范围内生效
  */
 @WebFilter("/*")
 public class RateLimitFilter implements Filter {
     private static final Logger logger = LoggerFactory.getLogger(RateLimitFilter.class);
     
-    // 存储每个IP的请求计数
-    private final ConcurrentHashMap<String, RequestCounter> requestCounts = new ConcurrentHashMap<>();
-    
     // 时间窗口 (毫秒)
     private static final long TIME_WINDOW = 60000; // 1分钟
     // 触发 Turnstile 后要求验证的持续时长（毫秒）
     private static final long CHALLENGE_COOLDOWN_MS = getEnvLong("CF_TURNSTILE_COOLDOWN_MS", 10 * 60 * 1000L); // 默认10分钟
-    
-    // 不同端点的限制（已大幅提高限制）
-    private static final int DEFAULT_LIMIT = 1000;  // 100 -> 1000
-    private static final int LOGIN_LIMIT = 50;      // 5 -> 50
-    private static final int REGISTER_LIMIT = 30;   // 3 -> 30
-    private static final int API_LIMIT = 500;       // 50 -> 500
-
-    // Turnstile 触发阈值（在同一窗口内达到则要求验证）
-    private static final int DEFAULT_CHALLENGE_TRIGGER = getEnvInt("CF_TURNSTILE_TRIGGER_DEFAULT", 60);
-    private static final int LOGIN_CHALLENGE_TRIGGER = getEnvInt("CF_TURNSTILE_TRIGGER_LOGIN", 5);
-    private static final int REGISTER_CHALLENGE_TRIGGER = getEnvInt("CF_TURNSTILE_TRIGGER_REGISTER", 3);
-    private static final int API_CHALLENGE_TRIGGER = getEnvInt("CF_TURNSTILE_TRIGGER_API", 40);
+
+    // 路由策略表：名称、窗口内上限、Turnstile 触发阈值、适用的路由分类（最后一条为默认）
+    private static final List<RoutePolicy> POLICIES = RoutePolicy.table(
+            new RoutePolicy("login", 50, getEnvInt("CF_TURNSTILE_TRIGGER_LOGIN", 5), RouteClass.LOGIN),
+            new RoutePolicy("register", 30, getEnvInt("CF_TURNSTILE_TRIGGER_REGISTER", 3), RouteClass.REGISTER),
+            new RoutePolicy("api", 500, getEnvInt("CF_TURNSTILE_TRIGGER_API", 40), RouteClass.API, RouteClass.CARD),
+            new RoutePolicy("default", 1000, getEnvInt("CF_TURNSTILE_TRIGGER_DEFAULT", 60)));
+    private static final Map<RouteClass, RoutePolicy> POLICY_BY_ROUTE = RoutePolicy.index(POLICIES);
+
+    // 限流键存储的固定容量：精确表槽位数与草图每行宽度（内存约 TABLE_SIZE×8 + SKETCH_WIDTH×32 字节）
+    private static final int TABLE_SIZE = (int) Math.max(64, getEnvLong("RATE_LIMIT_TABLE_SIZE", 16384));
+    private static final int SKETCH_WIDTH = (int) Math.max(64, getEnvLong("RATE_LIMIT_SKETCH_WIDTH", 8192));
+
+    // 集群计数同步：RATE_LIMIT_STORE=jdbc（共享 MySQL）或 memory（进程内，单实例/测试），默认 local 不同步
+    private static final long SYNC_INTERVAL_MS = Math.max(50, getEnvLong("RATE_LIMIT_SYNC_MS", 250));
+    private static final int SYNC_MAX_KEYS = (int) Math.max(100, getEnvLong("RATE_LIMIT_SYNC_MAX_KEYS", 10000));
+
+    private final SlidingWindowLimiter limiter = new SlidingWindowLimiter(TIME_WINDOW, TABLE_SIZE, SKETCH_WIDTH);
+    private ClusterCounterSync cluster;
 
     @Override
     public void init(FilterConfig filterConfig) {
-        logger.info("RateLimitFilter 初始化完成");
-        
-        // 启动清理线程，定期清理过期的计数器
-        Thread cleanupThread = new Thread(() -> {
-            while (!Thread.currentThread().isInterrupted()) {
-                try {
-                    Thread.sleep(60000); // 每分钟清理一次
-                    cleanupExpiredCounters();
-                } catch (InterruptedException e) {
-                    Thread.currentThread().interrupt();
-                    break;
-                }
-            }
-        });
-        cleanupThread.setDaemon(true);
-        cleanupThread.start();
+        SharedCounterStore store = createSharedStore();
+        if (store != null) {
+            cluster = new ClusterCounterSync(store, TIME_WINDOW, SYNC_INTERVAL_MS, SYNC_MAX_KEYS);
+        }
+        logger.info("RateLimitFilter 初始化完成, 策略: {}, 精确表槽位: {}, 草图宽度: {}, 集群同步: {}",
+                POLICIES, TABLE_SIZE, SKETCH_WIDTH, store != null ? store.getClass().getSimpleName() : "关闭");
     }
 
     @Override
@@ -68,8 +71,8 @@ public class RateLimitFilter implements Filter {
         HttpServletResponse resp = (HttpServletResponse) response;
 
         // 跳过静态资源
-        String uri = req.getRequestURI();
-        if (isStaticResource(uri)) {
+        RouteClass route = RouteClass.of(req);
+        if (route == RouteClass.STATIC) {
             chain.doFilter(request, response);
             return;
         }
@@ -83,18 +86,17 @@ public class RateLimitFilter implements Filter {
             }
         }
 
-        // 确定限制值
-        int limit = getLimit(uri);
-        int challengeTrigger = getChallengeTrigger(uri);
+        // 确定路由策略
+        RoutePolicy policy = POLICY_BY_ROUTE.get(route);
 
         // 检查速率限制并在达到阈值时触发 Turnstile
-        RateCheckResult rate = checkRateAndMaybeTrigger(req, clientIp, limit, challengeTrigger);
-        if (!rate.allowed) {
-            logger.warn("速率限制触发: IP={}, URI={}, Limit={}", clientIp, uri, limit);
+        long now = System.currentTimeMillis();
+        if (!checkRateAndMaybeTrigger(req, clientIp, policy, now)) {
+            logger.warn("速率限制触发: IP={}, URI={}, Limit={}", clientIp, req.getRequestURI(), policy.getLimit());
             
             resp.setStatus(429); // Too Many Requests
             resp.setContentType("application/json;charset=UTF-8");
-            resp.setHeader("Retry-After", "60");
+            resp.setHeader("Retry-After", String.valueOf((limiter.retryAfterMillis(now) + 999) / 1000));
             resp.getWriter().write("{\"error\":\"Too many requests. Please try again later.\"}");
             return;
         }
@@ -104,135 +106,47 @@ public class RateLimitFilter implements Filter {
 
     @Override
     public void destroy() {
-        requestCounts.clear();
+        if (cluster != null) {
+            cluster.shutdown();
+        }
+        limiter.clear();
         logger.info("RateLimitFilter 已销毁");
     }
 
     /**
-     * 检查速率限制
+     * 检查速率限制（各策略分别计数；开启集群同步时加上其他实例的计数）
+     * @return 是否允许
      */
-    private RateCheckResult checkRateAndMaybeTrigger(HttpServletRequest req, String clientIp, int limit, int challengeTrigger) {
-        long currentTime = System.currentTimeMillis();
-
-        RequestCounter counter = requestCounts.computeIfAbsent(clientIp,
-                k -> new RequestCounter(currentTime));
-
-        int current = counter.incrementAndGet(currentTime, TIME_WINDOW);
+    private boolean checkRateAndMaybeTrigger(HttpServletRequest req, String clientIp, RoutePolicy policy, long now) {
+        String key = policy.getName() + ':' + clientIp;
+        int others = cluster == null ? 0 : (int) Math.min(cluster.othersEstimate(key, now), Integer.MAX_VALUE - 1);
+        int current = others >= policy.getLimit()
+                ? others + 1
+                : limiter.acquire(key, policy.getLimit() - others, now) + others;
+        boolean allowed = current <= policy.getLimit();
+        if (allowed && cluster != null) {
+            cluster.record(key, now);
+        }
 
-        if (current >= challengeTrigger) {
+        if (current >= policy.getChallengeTrigger()) {
             TurnstileGate.requireForDuration(req, CHALLENGE_COOLDOWN_MS);
             logger.info("触发 Turnstile 要求: IP={}, URI={}, count={}/{}, sessionId={}", 
-                clientIp, req.getRequestURI(), current, challengeTrigger, req.getSession().getId());
-        }
-
-        boolean allowed = current <= limit;
-        return new RateCheckResult(allowed, current);
-    }
-
-    /**
-     * 根据URI确定限制值
-     */
-    private int getLimit(String uri) {
-        if (uri.contains("/login")) {
-            return LOGIN_LIMIT;
-        } else if (uri.contains("/register")) {
-            return REGISTER_LIMIT;
-        } else if (uri.contains("/api/") || uri.contains("/card") || uri.contains("/comment")) {
-            return API_LIMIT;
+                clientIp, req.getRequestURI(), current, policy.getChallengeTrigger(), req.getSession().getId());
         }
-        return DEFAULT_LIMIT;
-    }
 
-    /**
-     * 根据URI确定 Turnstile 触发阈值
-     */
-    private int getChallengeTrigger(String uri) {
-        if (uri.contains("/login")) {
-            return LOGIN_CHALLENGE_TRIGGER;
-        } else if (uri.contains("/register")) {
-            return REGISTER_CHALLENGE_TRIGGER;
-        } else if (uri.contains("/api/") || uri.contains("/card") || uri.contains("/comment")) {
-            return API_CHALLENGE_TRIGGER;
-        }
-        return DEFAULT_CHALLENGE_TRIGGER;
+        return allowed;
     }
 
-    /**
-     * 判断是否为静态资源
-     */
-    private boolean isStaticResource(String uri) {
-        return uri.endsWith(".css") || uri.endsWith(".js") || 
-               uri.endsWith(".png") || uri.endsWith(".jpg") || 
-               uri.endsWith(".jpeg") || uri.endsWith(".gif") || 
-               uri.endsWith(".ico") || uri.endsWith(".svg") ||
-               uri.endsWith(".woff") || uri.endsWith(".woff2") || 
-               uri.endsWith(".ttf") || uri.endsWith(".map");
-    }
-
-    /**
-     * 清理过期的计数器
-     */
-    private void cleanupExpiredCounters() {
-        long currentTime = System.currentTimeMillis();
-        requestCounts.entrySet().removeIf(entry -> 
-                currentTime - entry.getValue().windowStart > TIME_WINDOW * 2);
-        
-        logger.debug("清理过期计数器，剩余: {}", requestCounts.size());
-    }
-
-    /**
-     * 请求计数器（使用完全同步确保计数准确）
-     */
-    private static class RequestCounter {
-        private long windowStart;
-        private final AtomicInteger count;
-
-        RequestCounter(long windowStart) {
-            this.windowStart = windowStart;
-            this.count = new AtomicInteger(0);
-        }
-
-        /**
-         * 原子性地重置计数器（如需要）
-         * @return true 表示已重置，false 表示未超时
-         */
-        private synchronized boolean resetIfNeeded(long currentTime, long timeWindow) {
-            if (currentTime - windowStart > timeWindow) {
-                windowStart = currentTime;
-                count.set(0);
-                return true;
-            }
-            return false;
-        }
-
-        /**
-         * 线程安全的增量计数
-         * @return 当前计数值
-         */
-        synchronized int incrementAndGet(long currentTime, long timeWindow) {
-            // 确保在同步块内检查和重置，防止竞态条件
-            resetIfNeeded(currentTime, timeWindow);
-            
-            // 返回当前计数并递增
-            return count.incrementAndGet();
-        }
-
-        /**
-         * 获取当前计数值（用于指标收集）
-         */
-        synchronized int get() {
-            return count.get();
-        }
-    }
-
-    /**
-     * 速率检查结果
-     */
-    private static class RateCheckResult {
-        final boolean allowed;
-        RateCheckResult(boolean allowed, int currentCount) {
-            this.allowed = allowed;
+    private static SharedCounterStore createSharedStore() {
+        String type = System.getenv("RATE_LIMIT_STORE");
+        if ("jdbc".equalsIgnoreCase(type)) {
+            return new RateLimitCounterDao();
+        } else if ("memory".equalsIgnoreCase(type)) {
+            return new InMemorySharedCounterStore();
+        } else if (type != null && !"local".equalsIgnoreCase(type)) {
+            logger.warn("未知的 RATE_LIMIT_STORE: {}，使用单实例计数", type);
         }
+        return null;
     }
 
     private static int getEnvInt(String name, int defVal) {
@@ -0,0 +1,26 @@
+package com.example.pcard.filter;
+
+import com.example.pcard.util.RouteClass;
+
+import javax.servlet.*;
+import javax.servlet.http.HttpServletRequest;
+import java.io.IOException;
+
+/**
+ * 路由分类过滤器
+ * 在 web.xml 中排在最前面，对每个请求分类一次（{@link RouteClass}）并存入请求属性，供后续过滤器读取
+ */
+public class RouteClassifierFilter implements Filter {
+    @Override
+    public void init(FilterConfig filterConfig) {}
+
+    @Override
+    public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain) throws IOException, ServletException {
+        HttpServletRequest req = (HttpServletRequest) request;
+        req.setAttribute(RouteClass.ATTRIBUTE, RouteClass.classify(req.getRequestURI(), req.getContextPath()));
+        chain.doFilter(request, response);
+    }
+
+    @Override
+    public void destroy() {}
+}
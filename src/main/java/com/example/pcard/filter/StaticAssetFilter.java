@@ -0,0 +1,277 @@
+package com.example.pcard.filter;
+
+import com.example.pcard.util.HttpUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.servlet.*;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 静态资源快速通道
+ * - 在 web.xml 中排在最前，映射 /css/* /js/* /uploads/* /favicon.ico /robots.txt；启动时把 css/js/favicon/robots 读入内存，预先 gzip 压缩，
+ *   计算 ETag 和响应头，命中时直接从内存写出，不再经过后续的编码、Cloudflare、权限刷新、安全头和限流过滤器
+ * - 所有资源的内容哈希合成一个版本号，存入 ServletContext 属性 {@code assetVersion}，页面引用 {@code ?v=${assetVersion}}；
+ *   带当前版本号的请求按一年 immutable 缓存，不带版本号的短期缓存并用 ETag 协商
+ * - /uploads/* 直接转交 UploadServlet（按名称分发，REQUEST 类型的过滤器不再执行），图片的缓存头和 ETag 由 UploadServlet 处理
+ * - 不在缓存中的文件（如部署后新增）继续走原过滤器链；STATIC_ASSET_CACHE=false 时关闭内存缓存
+ * 只提供 gzip：brotli 需要引入原生库依赖，Cloudflare 边缘会按客户端能力另行压缩
+ */
+public class StaticAssetFilter implements Filter {
+    private static final Logger logger = LoggerFactory.getLogger(StaticAssetFilter.class);
+
+    /** 资源版本号的 ServletContext 属性名 */
+    public static final String VERSION_ATTRIBUTE = "assetVersion";
+
+    private static final String[] ASSET_DIRECTORIES = {"/css/", "/js/"};
+    private static final String[] ASSET_FILES = {"/favicon.ico", "/robots.txt"};
+    private static final String UPLOAD_PREFIX = "/uploads/";
+    private static final String UPLOAD_SERVLET = "com.example.pcard.controller.UploadServlet";
+
+    private static final long ONE_YEAR = 31536000L; // 秒
+    private static final long ONE_HOUR = 3600L; // 秒
+    private static final long ONE_DAY = 86400L; // 秒
+    // 单个文件超过此大小不缓存
+    private static final int MAX_ASSET_SIZE = 2 * 1024 * 1024;
+    // 压缩后至少减少这么多字节才保留 gzip 版本
+    private static final int MIN_GZIP_SAVING = 256;
+
+    private final Map<String, Asset> assets = new HashMap<>();
+    private String versionQuery;
+    private ServletContext context;
+
+    /**
+     * 预先计算好响应头的内存资源
+     */
+    private static final class Asset {
+        final byte[] body;
+        final byte[] gzipBody;
+        final String contentType;
+        final String etag;
+        final String gzipEtag;
+        final boolean versioned;
+
+        Asset(byte[] body, byte[] gzipBody, String contentType, String hash, boolean versioned) {
+            this.body = body;
+            this.gzipBody = gzipBody;
+            this.contentType = contentType;
+            this.etag = "\"" + hash + "\"";
+            this.gzipEtag = "\"" + hash + "-gz\"";
+            this.versioned = versioned;
+        }
+    }
+
+    @Override
+    public void init(FilterConfig filterConfig) {
+        context = filterConfig.getServletContext();
+        if ("false".equalsIgnoreCase(System.getenv("STATIC_ASSET_CACHE"))) {
+            logger.info("StaticAssetFilter 内存缓存已关闭");
+            return;
+        }
+        Set<String> paths = new TreeSet<>();
+        for (String directory : ASSET_DIRECTORIES) {
+            collect(directory, paths);
+        }
+        for (String file : ASSET_FILES) {
+            paths.add(file);
+        }
+
+        try {
+            MessageDigest version = MessageDigest.getInstance("SHA-256");
+            long totalBytes = 0;
+            for (String path : paths) {
+                byte[] body = read(path);
+                if (body == null) {
+                    continue;
+                }
+                String hash = toHex(MessageDigest.getInstance("SHA-256").digest(body)).substring(0, 16);
+                version.update(path.getBytes(StandardCharsets.UTF_8));
+                version.update(hash.getBytes(StandardCharsets.UTF_8));
+
+                String mimeType = context.getMimeType(path);
+                String contentType = mimeType == null ? "application/octet-stream"
+                        : isText(mimeType) ? mimeType + ";charset=UTF-8" : mimeType;
+                byte[] gzipBody = isCompressible(mimeType) ? gzip(body) : null;
+                if (gzipBody != null && gzipBody.length + MIN_GZIP_SAVING > body.length) {
+                    gzipBody = null;
+                }
+                boolean versioned = isVersioned(path);
+                assets.put(path, new Asset(body, gzipBody, contentType, hash, versioned));
+                totalBytes += body.length + (gzipBody != null ? gzipBody.length : 0);
+            }
+            String assetVersion = toHex(version.digest()).substring(0, 10);
+            versionQuery = "v=" + assetVersion;
+            context.setAttribute(VERSION_ATTRIBUTE, assetVersion);
+            logger.info("StaticAssetFilter 初始化完成: {} 个资源, {} KB, 版本 {}", assets.size(), totalBytes / 1024, assetVersion);
+        } catch (IOException | NoSuchAlgorithmException e) {
+            assets.clear();
+            logger.error("静态资源缓存初始化失败，按原过滤器链处理", e);
+        }
+    }
+
+    @Override
+    public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain) throws IOException, ServletException {
+        HttpServletRequest req = (HttpServletRequest) request;
+        HttpServletResponse resp = (HttpServletResponse) response;
+        String path = req.getRequestURI().substring(req.getContextPath().length());
+
+        if (path.startsWith(UPLOAD_PREFIX)) {
+            RequestDispatcher uploads = context.getNamedDispatcher(UPLOAD_SERVLET);
+            if (uploads != null) {
+                resp.setHeader("X-Content-Type-Options", "nosniff");
+                uploads.forward(request, response);
+                return;
+            }
+            chain.doFilter(request, response);
+            return;
+        }
+
+        Asset asset = assets.get(path);
+        String method = req.getMethod();
+        if (asset == null || !("GET".equals(method) || "HEAD".equals(method))) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        boolean gzip = asset.gzipBody != null && HttpUtil.acceptsGzip(req.getHeader("Accept-Encoding"));
+        String etag = gzip ? asset.gzipEtag : asset.etag;
+        resp.setHeader("X-Content-Type-Options", "nosniff");
+        resp.setHeader("ETag", etag);
+        resp.setHeader("Cache-Control", cacheControl(asset, req.getQueryString()));
+        if (asset.gzipBody != null) {
+            resp.setHeader("Vary", "Accept-Encoding");
+        }
+        if (matches(req.getHeader("If-None-Match"), asset)) {
+            resp.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+
+        byte[] body = gzip ? asset.gzipBody : asset.body;
+        resp.setContentType(asset.contentType);
+        if (gzip) {
+            resp.setHeader("Content-Encoding", "gzip");
+        }
+        resp.setContentLength(body.length);
+        if (!"HEAD".equals(method)) {
+            resp.getOutputStream().write(body);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        assets.clear();
+    }
+
+    private String cacheControl(Asset asset, String query) {
+        if (!asset.versioned) {
+            return "public, max-age=" + ONE_DAY;
+        }
+        return versionQuery.equals(query)
+                ? "public, max-age=" + ONE_YEAR + ", immutable"
+                : "public, max-age=" + ONE_HOUR;
+    }
+
+    /**
+     * If-None-Match 弱比较：gzip 与原始版本内容相同，任一 ETag 命中即可
+     */
+    private static boolean matches(String ifNoneMatch, Asset asset) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals("*") || tag.equals(asset.etag) || tag.equals(asset.gzipEtag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void collect(String directory, Set<String> paths) {
+        Set<String> entries = context.getResourcePaths(directory);
+        if (entries == null) {
+            return;
+        }
+        for (String entry : entries) {
+            if (entry.endsWith("/")) {
+                collect(entry, paths);
+            } else {
+                paths.add(entry);
+            }
+        }
+    }
+
+    private byte[] read(String path) throws IOException {
+        try (InputStream in = context.getResourceAsStream(path)) {
+            if (in == null) {
+                return null;
+            }
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            int n;
+            while ((n = in.read(buffer)) != -1) {
+                out.write(buffer, 0, n);
+                if (out.size() > MAX_ASSET_SIZE) {
+                    logger.warn("静态资源超过 {} 字节，不缓存: {}", MAX_ASSET_SIZE, path);
+                    return null;
+                }
+            }
+            return out.toByteArray();
+        }
+    }
+
+    private static byte[] gzip(byte[] body) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(body.length / 3 + 64);
+        try (GZIPOutputStream gz = new GZIPOutputStream(out) {
+            {
+                def.setLevel(Deflater.BEST_COMPRESSION);
+            }
+        }) {
+            gz.write(body);
+        }
+        return out.toByteArray();
+    }
+
+    private static boolean isVersioned(String path) {
+        for (String directory : ASSET_DIRECTORIES) {
+            if (path.startsWith(directory)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isText(String mimeType) {
+        return mimeType.startsWith("text/") || mimeType.equals("application/javascript");
+    }
+
+    private static boolean isCompressible(String mimeType) {
+        return mimeType != null && (isText(mimeType) || mimeType.equals("image/svg+xml")
+                || mimeType.equals("image/x-icon") || mimeType.equals("image/vnd.microsoft.icon")
+                || mimeType.endsWith("json"));
+    }
+
+    private static String toHex(byte[] bytes) {
+        StringBuilder sb = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            sb.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return sb.toString();
+    }
+}
@@ -9,11 +9,12 @@ import java.io.IOException;
 /**
  * 为静态资源设置缓存头，充分利用 Cloudflare 边缘缓存
  * 优化版：添加Gzip压缩支持和更智能的缓存策略
+ * 上传图片（/uploads/*）由 UploadServlet 自行设置缓存头和 ETag
+ * 已缓存在内存中的资源由 {@link StaticAssetFilter} 直接返回，不会到达这里；本过滤器只处理缓存之外的文件
  */
-@WebFilter({"/css/*", "/js/*", "/uploads/*"})
+@WebFilter({"/css/*", "/js/*"})
 public class StaticCacheHeaderFilter implements Filter {
     private static final long ONE_YEAR = 31536000L; // 秒
-    private static final long ONE_DAY = 86400L; // 秒
     
     @Override
     public void init(FilterConfig filterConfig) {}
@@ -26,10 +27,7 @@ public class StaticCacheHeaderFilter implements Filter {
         String uri = req.getRequestURI();
         
         // 根据资源类型设置不同的缓存策略
-        if (uri.contains("/uploads/")) {
-            // 用户上传的图片，相对稳定，缓存30天
-            resp.setHeader("Cache-Control", "public, max-age=" + (ONE_DAY * 30));
-        } else if (uri.endsWith(".css") || uri.endsWith(".js")) {
+        if (uri.endsWith(".css") || uri.endsWith(".js")) {
             // CSS和JS文件，如果有版本控制可以缓存更长时间
             resp.setHeader("Cache-Control", "public, max-age=" + ONE_YEAR + ", immutable");
             
@@ -40,9 +38,6 @@ public class StaticCacheHeaderFilter implements Filter {
             resp.setHeader("Cache-Control", "public, max-age=" + ONE_YEAR + ", immutable");
         }
         
-        // 添加ETag支持以便更好的缓存验证
-        // 注意：Cloudflare 会自动处理 ETag，这里只是确保设置了合适的缓存头
-        
         chain.doFilter(request, response);
     }
 
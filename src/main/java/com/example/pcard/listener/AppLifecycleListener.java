@@ -0,0 +1,95 @@
+package com.example.pcard.listener;
+
+import com.example.pcard.dao.CardDao;
+import com.example.pcard.dao.SearchKeyBackfill;
+import com.example.pcard.dao.UploadSweeper;
+import com.example.pcard.storage.StorageBackends;
+import com.example.pcard.util.CacheUtil;
+import com.example.pcard.util.ChineseConverter;
+import com.example.pcard.util.ImageVariantWorker;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.servlet.ServletContextEvent;
+import javax.servlet.ServletContextListener;
+import javax.servlet.annotation.WebListener;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 应用生命周期监听
+ * - 启动时在后台线程预热简繁体转换（词典加载 + 常用地区/偶像名称），再执行名片搜索键回填，不阻塞应用启动
+ * - 回填完成前搜索使用原有匹配方式
+ * - 定期对上传目录执行标记-清除，删除不再被任何名片引用的图片
+ * - 关闭时停止图片尺寸生成线程、清理缓存
+ */
+@WebListener
+public class AppLifecycleListener implements ServletContextListener {
+    private static final Logger logger = LoggerFactory.getLogger(AppLifecycleListener.class);
+
+    // 预热的常用地区/偶像名称条数（每类）
+    private static final int WARM_UP_TERMS = 200;
+
+    // 上传目录清理间隔（<=0 关闭）和宽限期（毫秒）
+    private static final long UPLOAD_SWEEP_INTERVAL = getEnvLong("UPLOAD_SWEEP_INTERVAL_MS", 6 * 60 * 60 * 1000L);
+    private static final long UPLOAD_SWEEP_GRACE = getEnvLong("UPLOAD_SWEEP_GRACE_MS", 60 * 60 * 1000L);
+
+    private ScheduledExecutorService sweepScheduler;
+
+    @Override
+    public void contextInitialized(ServletContextEvent sce) {
+        Thread startupTasks = new Thread(() -> {
+            List<String> terms = Collections.emptyList();
+            try {
+                terms = new CardDao().getFrequentSearchTerms(WARM_UP_TERMS);
+            } catch (Exception e) {
+                logger.warn("读取常用地区/偶像名称失败，仅预热转换词典", e);
+            }
+            ChineseConverter.warmUp(terms);
+            try {
+                SearchKeyBackfill.run();
+            } catch (Exception e) {
+                logger.error("搜索键回填失败，名片搜索继续使用原有匹配方式（请确认已执行影子列迁移）", e);
+            }
+        }, "startup-tasks");
+        startupTasks.setDaemon(true);
+        startupTasks.start();
+
+        if (UPLOAD_SWEEP_INTERVAL > 0) {
+            sweepScheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "upload-sweeper");
+                t.setDaemon(true);
+                return t;
+            });
+            sweepScheduler.scheduleWithFixedDelay(() -> {
+                try {
+                    UploadSweeper.run(StorageBackends.get(), UPLOAD_SWEEP_GRACE);
+                } catch (Exception e) {
+                    logger.error("上传目录清理失败", e);
+                }
+            }, UPLOAD_SWEEP_INTERVAL, UPLOAD_SWEEP_INTERVAL, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @Override
+    public void contextDestroyed(ServletContextEvent sce) {
+        if (sweepScheduler != null) {
+            sweepScheduler.shutdownNow();
+        }
+        ImageVariantWorker.shutdown();
+        StorageBackends.shutdown();
+        CacheUtil.shutdown();
+    }
+
+    private static long getEnvLong(String name, long defVal) {
+        try {
+            String v = System.getenv(name);
+            return v == null ? defVal : Long.parseLong(v);
+        } catch (Exception e) {
+            return defVal;
+        }
+    }
+}
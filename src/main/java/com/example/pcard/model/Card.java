@@ -5,6 +5,8 @@ import com.google.gson.reflect.TypeToken;
 import java.lang.reflect.Type;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
 
 /**
  * 电子名片实体类
@@ -20,12 +22,16 @@ public class Card {
     private String idolName;
     private String cardFrontPath;
     private String cardBackPath;
+    private String cardFrontVariants;
+    private String cardBackVariants;
     private String imageOrientation;
     private String uniqueLinkId;
     private String shortCode;
     private String customSns;
     private String ownerUsername;
     private transient List<SnsLink> snsLinks;
+    private transient Map<Integer, String> frontVariantMap;
+    private transient Map<Integer, String> backVariantMap;
 
     /**
      * 社交媒体链接内部类
@@ -51,6 +57,35 @@ public class Card {
         }
     }
 
+    public Card() {
+    }
+
+    /**
+     * 复制构造（用于缓存快照与调用方之间的隔离）
+     * @param other 源名片
+     */
+    public Card(Card other) {
+        this.id = other.id;
+        this.userId = other.userId;
+        this.visibility = other.visibility;
+        this.shareToken = other.shareToken;
+        this.producerName = other.producerName;
+        this.region = other.region;
+        this.idolName = other.idolName;
+        this.cardFrontPath = other.cardFrontPath;
+        this.cardBackPath = other.cardBackPath;
+        this.cardFrontVariants = other.cardFrontVariants;
+        this.cardBackVariants = other.cardBackVariants;
+        this.frontVariantMap = other.frontVariantMap;
+        this.backVariantMap = other.backVariantMap;
+        this.imageOrientation = other.imageOrientation;
+        this.uniqueLinkId = other.uniqueLinkId;
+        this.shortCode = other.shortCode;
+        this.customSns = other.customSns;
+        this.ownerUsername = other.ownerUsername;
+        this.snsLinks = other.snsLinks;
+    }
+
     public int getId() {
         return id;
     }
@@ -107,6 +142,75 @@ public class Card {
         this.cardBackPath = cardBackPath;
     }
 
+    /**
+     * 正面图片的尺寸版本（JSON：宽度 -> 访问路径），尚未生成时为null
+     */
+    public String getCardFrontVariants() {
+        return cardFrontVariants;
+    }
+
+    public void setCardFrontVariants(String cardFrontVariants) {
+        this.cardFrontVariants = cardFrontVariants;
+        this.frontVariantMap = null;
+    }
+
+    /**
+     * 背面图片的尺寸版本（JSON：宽度 -> 访问路径），尚未生成时为null
+     */
+    public String getCardBackVariants() {
+        return cardBackVariants;
+    }
+
+    public void setCardBackVariants(String cardBackVariants) {
+        this.cardBackVariants = cardBackVariants;
+        this.backVariantMap = null;
+    }
+
+    /**
+     * 获取适合指定显示宽度的正面图片路径：不小于该宽度的最小尺寸版本，没有时返回原图
+     * @param width 显示宽度（像素）
+     */
+    public String getFrontImagePath(int width) {
+        if (frontVariantMap == null) {
+            frontVariantMap = parseVariants(cardFrontVariants);
+        }
+        return pickVariant(frontVariantMap, width, cardFrontPath);
+    }
+
+    /**
+     * 获取适合指定显示宽度的背面图片路径：不小于该宽度的最小尺寸版本，没有时返回原图
+     * @param width 显示宽度（像素）
+     */
+    public String getBackImagePath(int width) {
+        if (backVariantMap == null) {
+            backVariantMap = parseVariants(cardBackVariants);
+        }
+        return pickVariant(backVariantMap, width, cardBackPath);
+    }
+
+    private static Map<Integer, String> parseVariants(String json) {
+        if (json == null || json.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        try {
+            Type type = new TypeToken<TreeMap<Integer, String>>() {}.getType();
+            Map<Integer, String> parsed = new Gson().fromJson(json, type);
+            return parsed == null ? Collections.emptyMap() : Collections.unmodifiableMap(parsed);
+        } catch (Exception e) {
+            return Collections.emptyMap();
+        }
+    }
+
+    private static String pickVariant(Map<Integer, String> variants, int width, String original) {
+        // 尺寸版本不会比原图宽，都不够宽时原图最合适
+        for (Map.Entry<Integer, String> e : variants.entrySet()) {
+            if (e.getKey() >= width) {
+                return e.getValue();
+            }
+        }
+        return original;
+    }
+
     public String getImageOrientation() {
         return imageOrientation;
     }
@@ -12,6 +12,22 @@ public class User {
     private String role = "user";
     private String status = "active";
 
+    public User() {
+    }
+
+    /**
+     * 复制构造（用于缓存与调用方之间的隔离）
+     * @param other 源用户
+     */
+    public User(User other) {
+        this.id = other.id;
+        this.username = other.username;
+        this.nickname = other.nickname;
+        this.password = other.password;
+        this.role = other.role;
+        this.status = other.status;
+    }
+
     public int getId() {
         return id;
     }
@@ -0,0 +1,213 @@
+package com.example.pcard.ratelimit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 限流计数的集群同步
+ * - 请求线程只做本地内存操作：{@link #record} 把增量累加到当前批次，{@link #othersEstimate} 读取上次同步得到的其他实例计数
+ * - 后台线程每隔固定间隔取走当前批次，提交到 {@link SharedCounterStore} 并取回集群总数；
+ *   其他实例计数 = 集群总数 - 本实例已提交的数量
+ * - 取走的批次先保留一个同步周期再汇总提交：{@link #record} 取到批次后才累加，
+ *   取走时仍可能有线程在向它累加，等一个周期后这些增量已落入该批次，不会丢失
+ * - 每批次和每个窗口记录的键数有上限，超出的键只按本实例计数，内存占用固定
+ * - 存储不可用时丢弃该批增量并记录日志，限流退化为单实例计数，不影响请求
+ */
+public final class ClusterCounterSync {
+    private static final Logger logger = LoggerFactory.getLogger(ClusterCounterSync.class);
+
+    private final SharedCounterStore store;
+    private final long windowMillis;
+    private final int maxKeys;
+    private final ScheduledExecutorService scheduler;
+
+    private final AtomicReference<Batch> pending;
+    // 窗口变化时被替换下来的批次，等待下一次同步提交
+    private final ConcurrentLinkedQueue<Batch> retired = new ConcurrentLinkedQueue<>();
+    // 上一次同步取走、本次同步才汇总提交的批次（只由同步线程访问）
+    private List<Batch> settling = new ArrayList<>();
+    // 窗口序号 -> 限流键 -> 其他实例计数（只保留当前和上一窗口）
+    private final Map<Long, Map<String, Observed>> observed = new ConcurrentHashMap<>();
+    private long lastExpiredWindow = Long.MIN_VALUE;
+    private long failures;
+
+    private static final class Batch {
+        final long window;
+        final Map<String, LongAdder> counts = new ConcurrentHashMap<>();
+
+        Batch(long window) {
+            this.window = window;
+        }
+    }
+
+    private static final class Observed {
+        // 本实例在该窗口已提交的数量（只由同步线程写）
+        long sent;
+        volatile long others;
+    }
+
+    /**
+     * @param store 共享计数存储
+     * @param windowMillis 窗口长度（毫秒，与本地限流器一致）
+     * @param intervalMillis 同步间隔（毫秒）
+     * @param maxKeys 每批次及每个窗口记录的最大键数
+     */
+    public ClusterCounterSync(SharedCounterStore store, long windowMillis, long intervalMillis, int maxKeys) {
+        this.store = store;
+        this.windowMillis = windowMillis;
+        this.maxKeys = maxKeys;
+        this.pending = new AtomicReference<>(new Batch(System.currentTimeMillis() / windowMillis));
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "rate-limit-sync");
+            t.setDaemon(true);
+            return t;
+        });
+        scheduler.scheduleWithFixedDelay(this::sync, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 其他实例在滑动窗口内的估算请求数（按上一窗口剩余比例加权）
+     */
+    public long othersEstimate(String key, long now) {
+        long window = now / windowMillis;
+        long current = others(window, key);
+        long previous = others(window - 1, key);
+        return previous * (windowMillis - now % windowMillis) / windowMillis + current;
+    }
+
+    /**
+     * 记录本实例允许的一次请求，下次同步时提交
+     */
+    public void record(String key, long now) {
+        long window = now / windowMillis;
+        Batch batch = pending.get();
+        if (batch.window != window) {
+            batch = roll(batch, window);
+        }
+        LongAdder count = batch.counts.get(key);
+        if (count == null) {
+            if (batch.counts.size() >= maxKeys) {
+                return;
+            }
+            count = batch.counts.computeIfAbsent(key, k -> new LongAdder());
+        }
+        count.increment();
+    }
+
+    /**
+     * 提交剩余增量并停止同步线程（应用关闭时调用）
+     */
+    public void shutdown() {
+        scheduler.shutdown();
+        try {
+            scheduler.awaitTermination(2, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        sync(true);
+    }
+
+    private Batch roll(Batch current, long window) {
+        Batch next = new Batch(window);
+        if (pending.compareAndSet(current, next)) {
+            retired.add(current);
+            return next;
+        }
+        return pending.get();
+    }
+
+    private void sync() {
+        sync(false);
+    }
+
+    /**
+     * @param flush 是否同时提交本次取走的批次（关闭时不再有下一次同步）
+     */
+    private synchronized void sync(boolean flush) {
+        Batch batch = pending.get();
+        Batch fresh = new Batch(batch.window);
+        if (pending.compareAndSet(batch, fresh)) {
+            retired.add(batch);
+        }
+        List<Batch> drained = new ArrayList<>();
+        Batch b;
+        while ((b = retired.poll()) != null) {
+            drained.add(b);
+        }
+        List<Batch> batches = settling;
+        if (flush) {
+            batches.addAll(drained);
+            settling = new ArrayList<>();
+        } else {
+            settling = drained;
+        }
+
+        for (Batch each : batches) {
+            if (each.counts.isEmpty()) {
+                continue;
+            }
+            Map<String, Long> deltas = new HashMap<>(each.counts.size() * 2);
+            each.counts.forEach((key, count) -> deltas.put(key, count.sum()));
+            try {
+                apply(each.window, deltas, store.addAndGet(each.window, deltas));
+                failures = 0;
+            } catch (Exception e) {
+                // 连续失败时只记录第一次和之后每 100 次
+                if (failures++ % 100 == 0) {
+                    logger.warn("限流计数同步失败，本批增量按单实例计数: {}", e.toString());
+                }
+            }
+        }
+
+        long window = System.currentTimeMillis() / windowMillis;
+        observed.keySet().removeIf(w -> w < window - 1);
+        if (window - 1 > lastExpiredWindow) {
+            try {
+                store.expireBefore(window - 1);
+                lastExpiredWindow = window - 1;
+            } catch (Exception e) {
+                logger.debug("清理过期限流计数失败: {}", e.toString());
+            }
+        }
+    }
+
+    private void apply(long window, Map<String, Long> deltas, Map<String, Long> totals) {
+        Map<String, Observed> byKey = observed.computeIfAbsent(window, w -> new ConcurrentHashMap<>());
+        deltas.forEach((key, delta) -> {
+            Observed o = byKey.get(key);
+            if (o == null) {
+                if (byKey.size() >= maxKeys) {
+                    return;
+                }
+                o = new Observed();
+                byKey.put(key, o);
+            }
+            o.sent += delta;
+            Long total = totals.get(key);
+            if (total != null) {
+                o.others = Math.max(0, total - o.sent);
+            }
+        });
+    }
+
+    private long others(long window, String key) {
+        Map<String, Observed> byKey = observed.get(window);
+        if (byKey == null) {
+            return 0;
+        }
+        Observed o = byKey.get(key);
+        return o == null ? 0 : o.others;
+    }
+}
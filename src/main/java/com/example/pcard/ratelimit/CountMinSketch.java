@@ -0,0 +1,110 @@
+package com.example.pcard.ratelimit;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 按窗口轮换的 CountMin 草图，估算未进入精确表的键在当前窗口和上一窗口内的请求数
+ * - 4 行计数，内存只取决于宽度，与键的数量无关
+ * - 估算时按 Count-Mean-Min 扣除每行的平均噪声再取中位数：大量不同键（伪造 IP 洪泛）把计数整体抬高时，
+ *   普通键的估算值仍接近真实值，不会被误判为超限
+ * - 当前窗口与上一窗口各一份计数，进入新窗口时由一个线程清空最旧的一份；
+ *   清空期间并发的少量计数可能丢失，对估算影响可以忽略
+ */
+final class CountMinSketch {
+    private static final int DEPTH = 4;
+    private static final long[] SEEDS = {
+            0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L
+    };
+
+    private final AtomicIntegerArray[] generations = new AtomicIntegerArray[2];
+    private final LongAdder[] totals = {new LongAdder(), new LongAdder()};
+    private final AtomicLong currentWindow = new AtomicLong(Long.MIN_VALUE);
+    private final int width;
+
+    /**
+     * @param width 每行计数个数（向上取 2 的幂）
+     */
+    CountMinSketch(int width) {
+        int length = 64;
+        while (length < width && length < (1 << 24)) {
+            length <<= 1;
+        }
+        this.width = length;
+        generations[0] = new AtomicIntegerArray(DEPTH * length);
+        generations[1] = new AtomicIntegerArray(DEPTH * length);
+    }
+
+    /**
+     * @return 高 32 位为上一窗口估算值，低 32 位为当前窗口估算值
+     */
+    long estimate(long hash, long window) {
+        rotate(window);
+        long previous = estimate((int) ((window - 1) & 1), hash);
+        long current = estimate((int) (window & 1), hash);
+        return (previous << 32) | current;
+    }
+
+    /**
+     * 当前窗口计数加一
+     */
+    void increment(long hash, long window) {
+        int generation = (int) (window & 1);
+        AtomicIntegerArray counts = generations[generation];
+        for (int i = 0; i < DEPTH; i++) {
+            counts.incrementAndGet(index(hash, i));
+        }
+        totals[generation].increment();
+    }
+
+    void clear() {
+        clear(0);
+        clear(1);
+    }
+
+    private void rotate(long window) {
+        long seen = currentWindow.get();
+        if (seen >= window || !currentWindow.compareAndSet(seen, window)) {
+            return;
+        }
+        // 新窗口使用的那一份保存的是两个窗口之前的计数；间隔超过一个窗口时上一窗口也已过期
+        clear((int) (window & 1));
+        if (window - seen > 1) {
+            clear((int) ((window - 1) & 1));
+        }
+    }
+
+    /**
+     * Count-Mean-Min：每行计数减去其余请求平均落在该计数上的部分，取各行中位数，不超过最小计数
+     */
+    private long estimate(int generation, long hash) {
+        AtomicIntegerArray counts = generations[generation];
+        long total = totals[generation].sum();
+        long min = Long.MAX_VALUE;
+        long[] rows = new long[DEPTH];
+        for (int i = 0; i < DEPTH; i++) {
+            long count = counts.get(index(hash, i));
+            min = Math.min(min, count);
+            rows[i] = count - Math.max(0, total - count) / (width - 1);
+        }
+        Arrays.sort(rows);
+        long median = (rows[DEPTH / 2 - 1] + rows[DEPTH / 2] + 1) / 2;
+        return Math.max(0, Math.min(min, median));
+    }
+
+    private int index(long hash, int row) {
+        long h = (hash + SEEDS[row]) * SEEDS[row];
+        h ^= h >>> 29;
+        return row * width + ((int) h & (width - 1));
+    }
+
+    private void clear(int generation) {
+        AtomicIntegerArray counts = generations[generation];
+        for (int i = 0; i < counts.length(); i++) {
+            counts.lazySet(i, 0);
+        }
+        totals[generation].reset();
+    }
+}
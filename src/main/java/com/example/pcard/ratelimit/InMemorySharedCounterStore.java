@@ -0,0 +1,28 @@
+package com.example.pcard.ratelimit;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 进程内共享计数存储
+ * 语义与 {@link com.example.pcard.dao.RateLimitCounterDao} 相同，用于单实例运行和测试（多个同步器共用一个实例即可模拟多实例）
+ */
+public class InMemorySharedCounterStore implements SharedCounterStore {
+    private final Map<Long, Map<String, AtomicLong>> windows = new ConcurrentHashMap<>();
+
+    @Override
+    public Map<String, Long> addAndGet(long window, Map<String, Long> deltas) {
+        Map<String, AtomicLong> counts = windows.computeIfAbsent(window, w -> new ConcurrentHashMap<>());
+        Map<String, Long> totals = new HashMap<>(deltas.size() * 2);
+        deltas.forEach((key, delta) ->
+                totals.put(key, counts.computeIfAbsent(key, k -> new AtomicLong()).addAndGet(delta)));
+        return totals;
+    }
+
+    @Override
+    public void expireBefore(long window) {
+        windows.keySet().removeIf(w -> w < window);
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.pcard.ratelimit;
+
+import com.example.pcard.util.RouteClass;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 路由限流策略
+ * 每条策略由适用的路由分类、窗口内请求上限和 Turnstile 触发阈值组成，按列表顺序匹配，第一条命中的生效
+ */
+public final class RoutePolicy {
+    private final String name;
+    private final RouteClass[] routes;
+    private final int limit;
+    private final int challengeTrigger;
+
+    /**
+     * @param name 策略名（同时作为限流键的前缀，各策略分别计数）
+     * @param limit 窗口内请求上限（1 ~ {@link SlidingWindowLimiter#MAX_LIMIT}）
+     * @param challengeTrigger 达到该数量时要求 Turnstile 验证
+     * @param routes 适用的路由分类；为空表示匹配全部
+     */
+    public RoutePolicy(String name, int limit, int challengeTrigger, RouteClass... routes) {
+        if (limit <= 0 || limit > SlidingWindowLimiter.MAX_LIMIT) {
+            throw new IllegalArgumentException("limit must be between 1 and " + SlidingWindowLimiter.MAX_LIMIT + ": " + limit);
+        }
+        this.name = name;
+        this.limit = limit;
+        this.challengeTrigger = challengeTrigger;
+        this.routes = routes.clone();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public int getChallengeTrigger() {
+        return challengeTrigger;
+    }
+
+    public boolean matches(RouteClass route) {
+        if (routes.length == 0) {
+            return true;
+        }
+        for (RouteClass r : routes) {
+            if (r == route) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 构造不可变策略表
+     */
+    public static List<RoutePolicy> table(RoutePolicy... policies) {
+        if (policies.length == 0) {
+            throw new IllegalArgumentException("policy table must not be empty");
+        }
+        return Collections.unmodifiableList(Arrays.asList(policies.clone()));
+    }
+
+    /**
+     * 预先计算每个路由分类对应的策略（按顺序取第一条匹配的，都不匹配时取最后一条）
+     */
+    public static Map<RouteClass, RoutePolicy> index(List<RoutePolicy> policies) {
+        Map<RouteClass, RoutePolicy> byRoute = new EnumMap<>(RouteClass.class);
+        for (RouteClass route : RouteClass.values()) {
+            RoutePolicy matched = policies.get(policies.size() - 1);
+            for (RoutePolicy policy : policies) {
+                if (policy.matches(route)) {
+                    matched = policy;
+                    break;
+                }
+            }
+            byRoute.put(route, matched);
+        }
+        return Collections.unmodifiableMap(byRoute);
+    }
+
+    @Override
+    public String toString() {
+        return name + "(" + limit + "/" + challengeTrigger + ")";
+    }
+}
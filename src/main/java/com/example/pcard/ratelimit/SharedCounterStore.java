@@ -0,0 +1,23 @@
+package com.example.pcard.ratelimit;
+
+import java.util.Map;
+
+/**
+ * 多实例共享的限流计数存储
+ * 各实例把本地累积的增量按窗口批量提交，并取回这些键在整个集群中的总数；调用只发生在后台同步线程中
+ */
+public interface SharedCounterStore {
+    /**
+     * 把增量累加到指定窗口并返回累加后的集群总数
+     * @param window 窗口序号
+     * @param deltas 限流键 -> 本实例自上次同步以来的增量
+     * @return 限流键 -> 集群总数（只包含 deltas 中的键）
+     * @throws Exception 存储不可用时抛出，调用方丢弃本批增量，退化为单实例限流
+     */
+    Map<String, Long> addAndGet(long window, Map<String, Long> deltas) throws Exception;
+
+    /**
+     * 删除早于指定窗口的计数
+     */
+    void expireBefore(long window) throws Exception;
+}
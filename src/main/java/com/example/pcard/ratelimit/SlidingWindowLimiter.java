@@ -0,0 +1,224 @@
+package com.example.pcard.ratelimit;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 无锁滑动窗口计数限流器（固定内存）
+ * - 估算值 = 上一窗口计数 × 上一窗口在滑动窗口内剩余的比例 + 当前窗口计数，
+ *   消除固定窗口在边界处允许 2 倍突发的问题；超限的请求不计入计数
+ * - 热点键保存在固定容量的组相联精确表中，每个槽位是一个打包的 long：
+ *   高 24 位为键哈希标签，其后 16 位为窗口序号，再各 12 位为上一窗口和当前窗口计数，更新只做一次 CAS
+ * - 其余键由 {@link CountMinSketch} 近似计数；某个键在窗口内达到 {@link #ADMIT_THRESHOLD} 次请求后才进入精确表，
+ *   替换同组中过期或计数更小的槽位（近似 LRU），一次性的伪造 IP 洪泛不会挤掉真正的高频键
+ * - 过期槽位在替换时回收，不需要清理线程；内存占用只取决于构造参数，与出现过多少个 IP 无关
+ */
+public final class SlidingWindowLimiter {
+    /** 支持的最大窗口内上限（计数为 12 位） */
+    public static final int MAX_LIMIT = 4095;
+    /** 进入精确表所需的窗口内请求数 */
+    static final int ADMIT_THRESHOLD = 3;
+
+    private static final int WAYS = 8;
+    private static final int COUNT_BITS = 12;
+    private static final long COUNT_MASK = (1L << COUNT_BITS) - 1;
+    private static final int WINDOW_SHIFT = 2 * COUNT_BITS;
+    private static final long WINDOW_MASK = 0xFFFFL;
+    private static final int TAG_SHIFT = 40;
+
+    private final long windowMillis;
+    private final AtomicLongArray slots;
+    private final int setMask;
+    private final CountMinSketch sketch;
+
+    /**
+     * @param windowMillis 窗口长度（毫秒）
+     * @param tableSize 精确表槽位数（向上取 8 的 2 的幂倍）
+     * @param sketchWidth 草图每行宽度
+     */
+    public SlidingWindowLimiter(long windowMillis, int tableSize, int sketchWidth) {
+        if (windowMillis <= 0) {
+            throw new IllegalArgumentException("windowMillis must be positive");
+        }
+        this.windowMillis = windowMillis;
+        int sets = 1;
+        while (sets * WAYS < tableSize && sets < (1 << 20)) {
+            sets <<= 1;
+        }
+        this.setMask = sets - 1;
+        this.slots = new AtomicLongArray(sets * WAYS);
+        this.sketch = new CountMinSketch(sketchWidth);
+    }
+
+    /**
+     * 记录一次请求
+     * @param key 限流键
+     * @param limit 窗口内允许的请求数（不超过 {@link #MAX_LIMIT}）
+     * @param now 当前时间（毫秒）
+     * @return 包含本次请求在内的估算请求数；大于 limit 表示应拒绝（此时不计数）
+     */
+    public int acquire(String key, int limit, long now) {
+        long hash = hash(key);
+        long window = now / windowMillis;
+        long elapsed = now % windowMillis;
+        int base = ((int) hash & setMask) * WAYS;
+        long tag = tagOf(hash);
+
+        for (int i = base; i < base + WAYS; i++) {
+            if ((slots.get(i) >>> TAG_SHIFT) == tag) {
+                int estimate = acquireExact(i, tag, window, elapsed, limit);
+                if (estimate >= 0) {
+                    return estimate;
+                }
+                break;
+            }
+        }
+
+        long counts = sketch.estimate(hash, window);
+        long previous = counts >>> 32;
+        long current = counts & 0xFFFFFFFFL;
+        int estimate = (int) (previous * (windowMillis - elapsed) / windowMillis + current + 1);
+        if (estimate > limit) {
+            return estimate;
+        }
+        sketch.increment(hash, window);
+        if (current + 1 >= ADMIT_THRESHOLD) {
+            admit(base, tag, window, elapsed, pack(tag, window, previous, current + 1));
+        }
+        return estimate;
+    }
+
+    /**
+     * 当前窗口结束前的剩余时间（毫秒），用作 Retry-After
+     */
+    public long retryAfterMillis(long now) {
+        return windowMillis - now % windowMillis;
+    }
+
+    /**
+     * 精确表中有计数的槽位数（用于指标收集）
+     */
+    public int hotKeys(long now) {
+        long window = now / windowMillis;
+        int count = 0;
+        for (int i = 0; i < slots.length(); i++) {
+            long slot = slots.get(i);
+            if (slot != 0 && gap(slot, window) <= 1) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    public void clear() {
+        for (int i = 0; i < slots.length(); i++) {
+            slots.set(i, 0L);
+        }
+        sketch.clear();
+    }
+
+    /**
+     * @return 估算请求数；槽位在此期间被其他键替换时返回 -1
+     */
+    private int acquireExact(int index, long tag, long window, long elapsed, int limit) {
+        while (true) {
+            long slot = slots.get(index);
+            if ((slot >>> TAG_SHIFT) != tag) {
+                return -1;
+            }
+            long next = advance(slot, window);
+            long previous = (next >>> COUNT_BITS) & COUNT_MASK;
+            long current = next & COUNT_MASK;
+
+            int estimate = (int) (previous * (windowMillis - elapsed) / windowMillis + current + 1);
+            if (estimate > limit) {
+                return estimate;
+            }
+            if (current < COUNT_MASK) {
+                next++;
+            }
+            if (slots.compareAndSet(index, slot, next)) {
+                return estimate;
+            }
+        }
+    }
+
+    /**
+     * 把键放入精确表：优先空槽或两个窗口内没有请求的槽，否则替换同组中估算值最小且小于新键的槽
+     */
+    private void admit(int base, long tag, long window, long elapsed, long admitted) {
+        int victim = -1;
+        long victimSlot = 0;
+        long victimEstimate = Long.MAX_VALUE;
+        for (int i = base; i < base + WAYS; i++) {
+            long slot = slots.get(i);
+            if ((slot >>> TAG_SHIFT) == tag) {
+                return;
+            }
+            long estimate;
+            if (slot == 0 || gap(slot, window) > 1) {
+                estimate = -1;
+            } else {
+                long advanced = advance(slot, window);
+                estimate = ((advanced >>> COUNT_BITS) & COUNT_MASK) * (windowMillis - elapsed) / windowMillis
+                        + (advanced & COUNT_MASK);
+            }
+            if (estimate < victimEstimate) {
+                victim = i;
+                victimSlot = slot;
+                victimEstimate = estimate;
+            }
+        }
+        long candidateEstimate = ((admitted >>> COUNT_BITS) & COUNT_MASK) * (windowMillis - elapsed) / windowMillis
+                + (admitted & COUNT_MASK);
+        if (victimEstimate < candidateEstimate) {
+            // 失败说明槽位刚被其他请求更新，本次仍由草图计数，下次请求再尝试
+            slots.compareAndSet(victim, victimSlot, admitted);
+        }
+    }
+
+    /**
+     * 把槽位推进到指定窗口：同一窗口不变，相邻窗口时当前计数变为上一窗口计数，更早的（含时钟回拨）全部清零
+     */
+    private static long advance(long slot, long window) {
+        long gap = gap(slot, window);
+        if (gap == 0) {
+            return slot;
+        }
+        long carried = gap == 1 ? (slot & COUNT_MASK) << COUNT_BITS : 0L;
+        return (slot & ~((1L << TAG_SHIFT) - 1)) | ((window & WINDOW_MASK) << WINDOW_SHIFT) | carried;
+    }
+
+    /**
+     * 与槽位所记录窗口的间隔（窗口序号只保留 16 位，按模计算）
+     */
+    private static long gap(long slot, long window) {
+        return (window - (slot >>> WINDOW_SHIFT)) & WINDOW_MASK;
+    }
+
+    private static long pack(long tag, long window, long previous, long current) {
+        return (tag << TAG_SHIFT) | ((window & WINDOW_MASK) << WINDOW_SHIFT)
+                | (Math.min(previous, COUNT_MASK) << COUNT_BITS) | Math.min(current, COUNT_MASK);
+    }
+
+    private static long tagOf(long hash) {
+        long tag = hash >>> TAG_SHIFT;
+        return tag == 0 ? 1 : tag;
+    }
+
+    /**
+     * 64 位 FNV-1a 加终混合
+     */
+    private static long hash(String key) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < key.length(); i++) {
+            h ^= key.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -0,0 +1,144 @@
+package com.example.pcard.storage;
+
+import com.google.cloud.storage.Blob;
+import com.google.cloud.storage.BlobId;
+import com.google.cloud.storage.BlobInfo;
+import com.google.cloud.storage.Storage;
+import com.google.cloud.storage.StorageOptions;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * Google Cloud Storage 存储后端
+ * - 对象名为 {@code <prefix><key>}，公开 URL 为 {@code https://storage.googleapis.com/<bucket>/<prefix><key>}
+ * - 上传直接从暂存文件流式读取，不把整个文件读入内存；读取使用 ReadChannel 流式下载
+ * - 客户端只创建一次，所有调用在存储 IO 线程池中执行
+ */
+public class GcsStorageBackend implements StorageBackend {
+    private final Storage storage;
+    private final String bucket;
+    private final String prefix;
+    private final Executor executor;
+
+    /**
+     * @param bucket bucket 名称
+     * @param projectId 项目 ID，可为空
+     * @param prefix 对象名前缀（如 {@code uploads/}）
+     * @param executor 执行存储调用的线程池
+     */
+    public GcsStorageBackend(String bucket, String projectId, String prefix, Executor executor) {
+        this.storage = StorageOptions.newBuilder().setProjectId(projectId).build().getService();
+        this.bucket = bucket;
+        this.prefix = prefix;
+        this.executor = executor;
+    }
+
+    @Override
+    public CompletableFuture<Boolean> put(String key, Path staged) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                BlobId id = blobId(key);
+                Blob existing = storage.get(id);
+                if (existing != null) {
+                    // 已有相同内容：更新元数据以刷新修改时间
+                    storage.update(existing.toBuilder()
+                            .setMetadata(Collections.singletonMap("touched", String.valueOf(System.currentTimeMillis())))
+                            .build());
+                    return false;
+                }
+                BlobInfo info = BlobInfo.newBuilder(id).setContentType(contentType(key)).build();
+                storage.createFrom(info, staged);
+                return true;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            } finally {
+                try {
+                    Files.deleteIfExists(staged);
+                } catch (IOException ignored) {
+                    // 系统临时目录中的残留文件不影响存储结果
+                }
+            }
+        }, executor);
+    }
+
+    @Override
+    public CompletableFuture<InputStream> get(String key) {
+        return CompletableFuture.supplyAsync(() -> {
+            Blob blob = storage.get(blobId(key));
+            return blob == null ? null : Channels.newInputStream(blob.reader());
+        }, executor);
+    }
+
+    @Override
+    public CompletableFuture<Boolean> exists(String key) {
+        return CompletableFuture.supplyAsync(() -> storage.get(blobId(key)) != null, executor);
+    }
+
+    @Override
+    public CompletableFuture<Long> lastModified(String key) {
+        return CompletableFuture.supplyAsync(() -> {
+            Blob blob = storage.get(blobId(key));
+            if (blob == null) {
+                return null;
+            }
+            OffsetDateTime updated = blob.getUpdateTimeOffsetDateTime();
+            return updated != null ? updated.toInstant().toEpochMilli() : System.currentTimeMillis();
+        }, executor);
+    }
+
+    @Override
+    public CompletableFuture<Boolean> delete(String key) {
+        return CompletableFuture.supplyAsync(() -> storage.delete(blobId(key)), executor);
+    }
+
+    @Override
+    public CompletableFuture<List<StoredObject>> list() {
+        return CompletableFuture.supplyAsync(() -> {
+            List<StoredObject> objects = new ArrayList<>();
+            for (Blob blob : storage.list(bucket, Storage.BlobListOption.prefix(prefix)).iterateAll()) {
+                String key = blob.getName().substring(prefix.length());
+                // 只列出前缀下直接的文件
+                if (key.isEmpty() || key.contains("/")) {
+                    continue;
+                }
+                OffsetDateTime updated = blob.getUpdateTimeOffsetDateTime();
+                objects.add(new StoredObject(key, updated != null ? updated.toInstant().toEpochMilli() : System.currentTimeMillis()));
+            }
+            return objects;
+        }, executor);
+    }
+
+    @Override
+    public String publicPath(String key) {
+        return "https://storage.googleapis.com/" + bucket + "/" + prefix + key;
+    }
+
+    private BlobId blobId(String key) {
+        return BlobId.of(bucket, prefix + key);
+    }
+
+    private static String contentType(String key) {
+        String name = key.toLowerCase();
+        if (name.endsWith(".jpg") || name.endsWith(".jpeg")) {
+            return "image/jpeg";
+        } else if (name.endsWith(".png")) {
+            return "image/png";
+        } else if (name.endsWith(".gif")) {
+            return "image/gif";
+        } else if (name.endsWith(".webp")) {
+            return "image/webp";
+        }
+        return "application/octet-stream";
+    }
+}
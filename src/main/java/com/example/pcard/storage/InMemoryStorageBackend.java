@@ -0,0 +1,97 @@
+package com.example.pcard.storage;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 内存存储后端
+ * 行为与对象存储一致（按键存取、存在即不覆盖），不依赖磁盘目录和云服务，用于离线运行和测试（STORAGE_TYPE=memory）
+ * 内容保存在堆内存中，进程重启后丢失
+ */
+public class InMemoryStorageBackend implements StorageBackend {
+    private final Map<String, Entry> objects = new ConcurrentHashMap<>();
+    private final String publicPrefix;
+
+    private static final class Entry {
+        final byte[] data;
+        volatile long lastModified;
+
+        Entry(byte[] data, long lastModified) {
+            this.data = data;
+            this.lastModified = lastModified;
+        }
+    }
+
+    /**
+     * @param publicPrefix 访问路径前缀
+     */
+    public InMemoryStorageBackend(String publicPrefix) {
+        this.publicPrefix = publicPrefix;
+    }
+
+    @Override
+    public CompletableFuture<Boolean> put(String key, Path staged) {
+        try {
+            byte[] data;
+            try {
+                data = Files.readAllBytes(staged);
+            } finally {
+                Files.deleteIfExists(staged);
+            }
+            long now = System.currentTimeMillis();
+            Entry existing = objects.putIfAbsent(key, new Entry(data, now));
+            if (existing != null) {
+                existing.lastModified = now;
+                return CompletableFuture.completedFuture(false);
+            }
+            return CompletableFuture.completedFuture(true);
+        } catch (IOException e) {
+            CompletableFuture<Boolean> failed = new CompletableFuture<>();
+            failed.completeExceptionally(new UncheckedIOException(e));
+            return failed;
+        }
+    }
+
+    @Override
+    public CompletableFuture<InputStream> get(String key) {
+        Entry entry = objects.get(key);
+        return CompletableFuture.completedFuture(entry == null ? null : new ByteArrayInputStream(entry.data));
+    }
+
+    @Override
+    public CompletableFuture<Boolean> exists(String key) {
+        return CompletableFuture.completedFuture(objects.containsKey(key));
+    }
+
+    @Override
+    public CompletableFuture<Long> lastModified(String key) {
+        Entry entry = objects.get(key);
+        return CompletableFuture.completedFuture(entry == null ? null : entry.lastModified);
+    }
+
+    @Override
+    public CompletableFuture<Boolean> delete(String key) {
+        return CompletableFuture.completedFuture(objects.remove(key) != null);
+    }
+
+    @Override
+    public CompletableFuture<List<StoredObject>> list() {
+        List<StoredObject> list = new ArrayList<>(objects.size());
+        objects.forEach((key, entry) -> list.add(new StoredObject(key, entry.lastModified)));
+        return CompletableFuture.completedFuture(list);
+    }
+
+    @Override
+    public String publicPath(String key) {
+        return publicPrefix + key;
+    }
+}
@@ -0,0 +1,187 @@
+package com.example.pcard.storage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * 文件系统存储后端（UPLOAD_DIR，Cloud Run 上可以是挂载的 GCS 目录）
+ * - 暂存文件建在存储目录内，存入只是一次原子改名，不复制数据
+ * - 暂存文件不在同一文件系统时，用 {@link FileChannel#transferTo} 在内核中复制到目录内的临时文件再改名
+ * - 阻塞的文件操作在存储 IO 线程池中执行
+ */
+public class LocalStorageBackend implements StorageBackend {
+    private final Path dir;
+    private final String publicPrefix;
+    private final Executor executor;
+
+    /**
+     * @param dir 存储目录
+     * @param publicPrefix 访问路径前缀（如 {@code uploads/} 或 GCS 公开 URL 前缀）
+     * @param executor 执行文件操作的线程池
+     */
+    public LocalStorageBackend(Path dir, String publicPrefix, Executor executor) {
+        this.dir = dir;
+        this.publicPrefix = publicPrefix;
+        this.executor = executor;
+    }
+
+    @Override
+    public Path createStagingFile() throws IOException {
+        Files.createDirectories(dir);
+        return Files.createTempFile(dir, ".upload-", ".tmp");
+    }
+
+    @Override
+    public CompletableFuture<Boolean> put(String key, Path staged) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return store(resolve(key), staged);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }, executor);
+    }
+
+    private boolean store(Path target, Path staged) throws IOException {
+        try {
+            if (Files.exists(target)) {
+                // 已有相同内容：丢弃暂存文件，刷新修改时间
+                Files.delete(staged);
+                Files.setLastModifiedTime(target, FileTime.fromMillis(System.currentTimeMillis()));
+                return false;
+            }
+            Path local = staged;
+            if (!staged.getParent().equals(dir)) {
+                local = Files.createTempFile(dir, ".upload-", ".tmp");
+                transfer(staged, local);
+                Files.delete(staged);
+            }
+            try {
+                Files.move(local, target, StandardCopyOption.ATOMIC_MOVE);
+            } catch (FileAlreadyExistsException e) {
+                // 并发存入了相同内容
+                Files.delete(local);
+                return false;
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(local, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+            return true;
+        } catch (IOException e) {
+            Files.deleteIfExists(staged);
+            throw e;
+        }
+    }
+
+    private static void transfer(Path source, Path target) throws IOException {
+        try (FileChannel in = FileChannel.open(source, StandardOpenOption.READ);
+             FileChannel out = FileChannel.open(target, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            long size = in.size();
+            long position = 0;
+            while (position < size) {
+                position += in.transferTo(position, size - position, out);
+            }
+        }
+    }
+
+    @Override
+    public CompletableFuture<InputStream> get(String key) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return Files.newInputStream(resolve(key));
+            } catch (NoSuchFileException e) {
+                return null;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }, executor);
+    }
+
+    @Override
+    public CompletableFuture<Boolean> exists(String key) {
+        return CompletableFuture.supplyAsync(() -> Files.isRegularFile(resolve(key)), executor);
+    }
+
+    @Override
+    public CompletableFuture<Long> lastModified(String key) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return Files.getLastModifiedTime(resolve(key)).toMillis();
+            } catch (NoSuchFileException e) {
+                return null;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }, executor);
+    }
+
+    @Override
+    public CompletableFuture<Boolean> delete(String key) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return Files.deleteIfExists(resolve(key));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }, executor);
+    }
+
+    @Override
+    public CompletableFuture<List<StoredObject>> list() {
+        return CompletableFuture.supplyAsync(() -> {
+            List<StoredObject> objects = new ArrayList<>();
+            if (!Files.isDirectory(dir)) {
+                return objects;
+            }
+            try (DirectoryStream<Path> files = Files.newDirectoryStream(dir)) {
+                for (Path file : files) {
+                    try {
+                        if (Files.isRegularFile(file)) {
+                            objects.add(new StoredObject(file.getFileName().toString(),
+                                    Files.getLastModifiedTime(file).toMillis()));
+                        }
+                    } catch (NoSuchFileException ignored) {
+                        // 遍历期间被删除
+                    }
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return objects;
+        }, executor);
+    }
+
+    @Override
+    public String publicPath(String key) {
+        return publicPrefix + key;
+    }
+
+    @Override
+    public Path localPath(String key) {
+        return resolve(key);
+    }
+
+    /**
+     * 键只能是目录内的文件名，拒绝路径分隔符和 ..
+     */
+    private Path resolve(String key) {
+        if (key == null || key.isEmpty() || key.contains("/") || key.contains("\\") || key.contains("..")) {
+            throw new IllegalArgumentException("Invalid storage key: " + key);
+        }
+        return dir.resolve(key);
+    }
+}
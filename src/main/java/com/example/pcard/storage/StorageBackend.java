@@ -0,0 +1,83 @@
+package com.example.pcard.storage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 上传文件存储后端
+ * - 键为不含路径的文件名（如 {@code <sha256>.png}、{@code <sha256>_w640.jpg}），上传文件按内容命名，相同键即相同内容
+ * - 读写删均为异步，调用方可以在存储操作进行的同时执行数据库操作，需要结果时再 join
+ * - 实现：{@link LocalStorageBackend}（文件系统）、{@link GcsStorageBackend}（Google Cloud Storage）、
+ *   {@link InMemoryStorageBackend}（内存，离线运行/测试用）；通过 {@link StorageBackends} 获取当前配置的实例
+ */
+public interface StorageBackend {
+
+    /**
+     * 创建暂存文件：调用方写入内容后交给 {@link #put}
+     * 文件系统实现在存储目录内创建，存入时只需改名
+     * @return 空的暂存文件
+     * @throws IOException IO异常
+     */
+    default Path createStagingFile() throws IOException {
+        return java.nio.file.Files.createTempFile(".upload-", ".tmp");
+    }
+
+    /**
+     * 存入暂存文件，暂存文件被消费（移动或删除）
+     * 键已存在时不重复写入，只刷新其修改时间（避免被清理任务当作过期文件删除）
+     * @param key 键
+     * @param staged 暂存文件
+     * @return 完成值：是否实际写入（false 表示已存在相同内容）
+     */
+    CompletableFuture<Boolean> put(String key, Path staged);
+
+    /**
+     * 读取
+     * @param key 键
+     * @return 完成值：内容输入流（调用方负责关闭），不存在时为null
+     */
+    CompletableFuture<InputStream> get(String key);
+
+    /**
+     * 是否存在
+     * @param key 键
+     */
+    CompletableFuture<Boolean> exists(String key);
+
+    /**
+     * 最后修改时间（清理任务删除前复核用）
+     * @param key 键
+     * @return 完成值：毫秒时间戳，不存在时为null
+     */
+    CompletableFuture<Long> lastModified(String key);
+
+    /**
+     * 删除
+     * @param key 键
+     * @return 完成值：是否删除了已存在的对象
+     */
+    CompletableFuture<Boolean> delete(String key);
+
+    /**
+     * 列出全部对象（用于标记-清除）
+     */
+    CompletableFuture<List<StoredObject>> list();
+
+    /**
+     * 键对应的访问路径：站点相对路径（如 {@code uploads/<key>}）或完整 URL
+     * @param key 键
+     */
+    String publicPath(String key);
+
+    /**
+     * 键对应的本地文件，供需要直接读取文件的场景（如零拷贝发送）使用
+     * @param key 键
+     * @return 本地文件路径；非文件系统实现返回null
+     */
+    default Path localPath(String key) {
+        return null;
+    }
+}
@@ -0,0 +1,109 @@
+package com.example.pcard.storage;
+
+import com.example.pcard.util.CloudStorageUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 存储后端入口：按环境变量创建并持有当前使用的 {@link StorageBackend}
+ * - STORAGE_TYPE=memory：{@link InMemoryStorageBackend}
+ * - USE_EXTERNAL_STORAGE=true 且 STORAGE_TYPE=gcs：{@link GcsStorageBackend}（需要 GCS_BUCKET_NAME）
+ * - 其他情况：{@link LocalStorageBackend}（UPLOAD_DIR）；配置了 GCS_BUCKET_NAME 且 USE_EXTERNAL_STORAGE=true 时，
+ *   目录视为挂载的 bucket，访问路径使用 GCS 公开 URL（与原有行为一致）
+ * - OSS / S3 / Azure 尚未接入 SDK，配置时回退到本地存储
+ */
+public final class StorageBackends {
+    private static final Logger logger = LoggerFactory.getLogger(StorageBackends.class);
+
+    private static final String UPLOADS_PREFIX = "uploads/";
+    private static final int IO_THREADS = (int) Math.max(1, getEnvLong("STORAGE_IO_THREADS", 4));
+    private static final int IO_QUEUE_SIZE = 1000;
+
+    // 阻塞的存储调用在此线程池中执行；队列满时由调用线程执行（退化为同步，不丢任务）
+    private static final ExecutorService ioExecutor = new ThreadPoolExecutor(
+            IO_THREADS, IO_THREADS, 0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(IO_QUEUE_SIZE),
+            daemonThreads(), new ThreadPoolExecutor.CallerRunsPolicy());
+
+    private static volatile StorageBackend backend;
+
+    private StorageBackends() {
+    }
+
+    /**
+     * 获取当前存储后端（首次调用时按配置创建）
+     */
+    public static StorageBackend get() {
+        StorageBackend b = backend;
+        if (b == null) {
+            synchronized (StorageBackends.class) {
+                b = backend;
+                if (b == null) {
+                    b = create();
+                    backend = b;
+                }
+            }
+        }
+        return b;
+    }
+
+    /**
+     * 替换存储后端（离线运行或测试时注入 {@link InMemoryStorageBackend} 等实现）
+     */
+    public static void set(StorageBackend storageBackend) {
+        backend = storageBackend;
+    }
+
+    /**
+     * 停止存储 IO 线程（应用关闭时调用）
+     */
+    public static void shutdown() {
+        ioExecutor.shutdown();
+    }
+
+    private static StorageBackend create() {
+        String type = System.getenv("STORAGE_TYPE") != null ? System.getenv("STORAGE_TYPE").toLowerCase() : CloudStorageUtil.STORAGE_LOCAL;
+        boolean external = "true".equalsIgnoreCase(System.getenv("USE_EXTERNAL_STORAGE"));
+        String bucketName = System.getenv("GCS_BUCKET_NAME");
+
+        if ("memory".equals(type)) {
+            logger.info("存储后端: 内存");
+            return new InMemoryStorageBackend(UPLOADS_PREFIX);
+        }
+        if (external && CloudStorageUtil.STORAGE_GCS.equals(type) && bucketName != null) {
+            logger.info("存储后端: GCS bucket={}", bucketName);
+            return new GcsStorageBackend(bucketName, System.getenv("GCS_PROJECT_ID"), UPLOADS_PREFIX, ioExecutor);
+        }
+        if (external && !CloudStorageUtil.STORAGE_LOCAL.equals(type) && !CloudStorageUtil.STORAGE_GCS.equals(type)) {
+            logger.warn("存储类型 {} 尚未接入，使用本地存储", type);
+        }
+        String publicPrefix = external && bucketName != null
+                ? "https://storage.googleapis.com/" + bucketName + "/" + UPLOADS_PREFIX
+                : UPLOADS_PREFIX;
+        logger.info("存储后端: 本地目录 {}", CloudStorageUtil.getUploadDir());
+        return new LocalStorageBackend(CloudStorageUtil.getUploadDir(), publicPrefix, ioExecutor);
+    }
+
+    private static java.util.concurrent.ThreadFactory daemonThreads() {
+        AtomicInteger seq = new AtomicInteger();
+        return r -> {
+            Thread t = new Thread(r, "storage-io-" + seq.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        };
+    }
+
+    private static long getEnvLong(String name, long defVal) {
+        try {
+            String v = System.getenv(name);
+            return v == null ? defVal : Long.parseLong(v);
+        } catch (Exception e) {
+            return defVal;
+        }
+    }
+}
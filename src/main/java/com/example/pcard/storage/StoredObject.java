@@ -0,0 +1,25 @@
+package com.example.pcard.storage;
+
+/**
+ * 存储中的对象：键 + 最后修改时间
+ */
+public final class StoredObject {
+    private final String key;
+    private final long lastModified;
+
+    public StoredObject(String key, long lastModified) {
+        this.key = key;
+        this.lastModified = lastModified;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    /**
+     * 最后修改时间（毫秒时间戳）
+     */
+    public long getLastModified() {
+        return lastModified;
+    }
+}
@@ -0,0 +1,790 @@
+package com.example.pcard.util;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Predicate;
+
+/**
+ * 有界内存缓存引擎（W-TinyLFU 思路）
+ * 结构:
+ * - 数据存放在 ConcurrentHashMap 中，读路径无锁
+ * - 淘汰策略按分段加锁：窗口 LRU（约 1%）+ 主区分段 LRU（试用区/保护区 20%/80%）
+ * - 窗口溢出的候选条目与试用区最旧条目比较访问频率（CountMin 草图），频率低者被淘汰
+ * - 所有链表均为侵入式双向链表，淘汰为摊还 O(1)
+ * - 过期由每段一个哈希时间轮驱动，在读写时顺带推进，无需后台清理线程
+ * - 读命中时通过 tryLock 记录访问，竞争激烈时允许丢失部分访问记录（不阻塞读）
+ *
+ * @param <K> 键类型
+ * @param <V> 值类型
+ */
+public class BoundedCache<K, V> {
+
+    /**
+     * 条目权重计算器
+     */
+    @FunctionalInterface
+    public interface Weigher<K, V> {
+        int weigh(K key, V value);
+    }
+
+    /**
+     * 读穿透加载器，异常类型由调用方决定（如 DAO 中的 SQLException）
+     */
+    @FunctionalInterface
+    public interface Loader<K, V, X extends Exception> {
+        V load(K key) throws X;
+    }
+
+    private static final int WINDOW = 0;
+    private static final int PROBATION = 1;
+    private static final int PROTECTED = 2;
+
+    // 时间轮精度与槽位数（1秒 × 128 槽，约2分钟转一圈）
+    private static final long TICK_MILLIS = 1000L;
+    private static final int WHEEL_BUCKETS = 128;
+
+    // 失效代数条纹数量（用于读穿透时丢弃过期的加载结果）
+    private static final int GENERATION_STRIPES = 1024;
+
+    private final String name;
+    private final long maximumWeight;
+    private final long defaultTtlMillis;
+    private final Weigher<? super K, ? super V> weigher;
+
+    private final ConcurrentHashMap<K, Node<K, V>> data = new ConcurrentHashMap<>();
+    private final Segment<K, V>[] segments;
+    private final int segmentMask;
+    private final AtomicLongArray generations = new AtomicLongArray(GENERATION_STRIPES);
+
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+    private final LongAdder evictionCount = new LongAdder();
+    private final LongAdder expirationCount = new LongAdder();
+    private final LongAdder loadSuccessCount = new LongAdder();
+    private final LongAdder loadFailureCount = new LongAdder();
+    private final LongAdder totalLoadNanos = new LongAdder();
+
+    /**
+     * 创建按条目数计量的缓存
+     * @param name 缓存名称（用于统计输出）
+     * @param maximumSize 最大条目数
+     * @param defaultTtlMillis 默认过期时间（毫秒），小于等于0表示不过期
+     */
+    public BoundedCache(String name, long maximumSize, long defaultTtlMillis) {
+        this(name, maximumSize, defaultTtlMillis, null);
+    }
+
+    /**
+     * 创建按权重计量的缓存
+     * @param name 缓存名称（用于统计输出）
+     * @param maximumWeight 最大总权重
+     * @param defaultTtlMillis 默认过期时间（毫秒），小于等于0表示不过期
+     * @param weigher 权重计算器，为 null 时每个条目权重为1
+     */
+    @SuppressWarnings("unchecked")
+    public BoundedCache(String name, long maximumWeight, long defaultTtlMillis, Weigher<? super K, ? super V> weigher) {
+        if (maximumWeight <= 0) {
+            throw new IllegalArgumentException("maximumWeight must be positive");
+        }
+        this.name = name;
+        this.maximumWeight = maximumWeight;
+        this.defaultTtlMillis = defaultTtlMillis;
+        this.weigher = weigher;
+
+        int segmentCount = segmentCountFor(maximumWeight);
+        @SuppressWarnings({"rawtypes", "unchecked"})
+        Segment<K, V>[] created = new Segment[segmentCount];
+        this.segments = created;
+        this.segmentMask = segmentCount - 1;
+        long perSegment = Math.max(1, maximumWeight / segmentCount);
+        for (int i = 0; i < segmentCount; i++) {
+            segments[i] = new Segment<>(perSegment);
+        }
+    }
+
+    private static int segmentCountFor(long maximumWeight) {
+        int target = Math.min(16, Runtime.getRuntime().availableProcessors() * 2);
+        int count = 1;
+        // 每段至少保留64个权重单位，避免小缓存被切得过碎
+        while (count < target && maximumWeight / (count * 2L) >= 64) {
+            count <<= 1;
+        }
+        return count;
+    }
+
+    // ==================== 公共接口 ====================
+
+    /**
+     * 获取缓存值
+     * @param key 缓存键
+     * @return 缓存值，不存在或已过期返回 null
+     */
+    public V getIfPresent(K key) {
+        if (key == null) {
+            return null;
+        }
+        Node<K, V> node = data.get(key);
+        long now = System.currentTimeMillis();
+        if (node == null) {
+            missCount.increment();
+            return null;
+        }
+        if (node.isExpired(now)) {
+            missCount.increment();
+            expireNow(node, now);
+            return null;
+        }
+        V value = node.value;
+        hitCount.increment();
+        afterRead(node, now);
+        return value;
+    }
+
+    /**
+     * 查看缓存值，不计入命中统计也不影响淘汰顺序（供失效等内部路径使用）
+     * @param key 缓存键
+     * @return 缓存值，不存在或已过期返回 null
+     */
+    public V peek(K key) {
+        if (key == null) {
+            return null;
+        }
+        Node<K, V> node = data.get(key);
+        if (node == null || node.isExpired(System.currentTimeMillis())) {
+            return null;
+        }
+        return node.value;
+    }
+
+    /**
+     * 读穿透获取：未命中时调用 loader 加载并写入缓存
+     * 加载期间若该键被失效，加载结果只返回给调用方而不写入缓存，避免回填旧数据
+     * @param key 缓存键
+     * @param loader 加载器，返回 null 表示不存在（不缓存）
+     * @return 缓存值或加载结果
+     */
+    public <X extends Exception> V get(K key, Loader<? super K, ? extends V, X> loader) throws X {
+        V cached = getIfPresent(key);
+        if (cached != null) {
+            return cached;
+        }
+        int stripe = stripeFor(hash(key));
+        long generation = generations.get(stripe);
+        long start = System.nanoTime();
+        V loaded;
+        try {
+            loaded = loader.load(key);
+        } catch (Exception e) {
+            loadFailureCount.increment();
+            totalLoadNanos.add(System.nanoTime() - start);
+            throw e;
+        }
+        loadSuccessCount.increment();
+        totalLoadNanos.add(System.nanoTime() - start);
+        if (loaded != null) {
+            putIfGeneration(key, loaded, defaultTtlMillis, stripe, generation);
+        }
+        return loaded;
+    }
+
+    /**
+     * 写入缓存（使用默认TTL）
+     */
+    public void put(K key, V value) {
+        put(key, value, defaultTtlMillis);
+    }
+
+    /**
+     * 写入缓存，指定TTL
+     * @param ttlMillis 过期时间（毫秒），小于等于0表示不过期
+     */
+    public void put(K key, V value, long ttlMillis) {
+        if (key == null || value == null) {
+            return;
+        }
+        putIfGeneration(key, value, ttlMillis, -1, 0);
+    }
+
+    /**
+     * 移除缓存，并使进行中的读穿透加载结果作废
+     */
+    public void invalidate(K key) {
+        if (key == null) {
+            return;
+        }
+        int hash = hash(key);
+        Segment<K, V> segment = segmentFor(hash);
+        segment.lock();
+        try {
+            generations.incrementAndGet(stripeFor(hash));
+            Node<K, V> node = data.get(key);
+            if (node != null) {
+                segment.unlink(node);
+                data.remove(key, node);
+            }
+        } finally {
+            segment.unlock();
+        }
+    }
+
+    /**
+     * 使该键进行中的读穿透加载结果作废，但保留已缓存的值
+     * 用于调用方随后原地修改缓存值的场景：写入前开始的加载不会再覆盖修改后的值
+     */
+    public void discardPendingLoads(K key) {
+        if (key == null) {
+            return;
+        }
+        generations.incrementAndGet(stripeFor(hash(key)));
+    }
+
+    /**
+     * 移除所有值满足条件的条目（遍历全部条目，仅用于低频的批量失效）
+     */
+    public void invalidateIf(Predicate<? super V> predicate) {
+        for (Map.Entry<K, Node<K, V>> entry : data.entrySet()) {
+            V value = entry.getValue().value;
+            if (value != null && predicate.test(value)) {
+                invalidate(entry.getKey());
+            }
+        }
+    }
+
+    /**
+     * 清空缓存
+     */
+    public void invalidateAll() {
+        for (Segment<K, V> segment : segments) {
+            segment.lock();
+        }
+        try {
+            for (int i = 0; i < GENERATION_STRIPES; i++) {
+                generations.incrementAndGet(i);
+            }
+            for (Node<K, V> node : data.values()) {
+                node.queue = -1;
+                node.prev = node.next = null;
+                node.timerPrev = node.timerNext = null;
+            }
+            for (Segment<K, V> segment : segments) {
+                segment.clear();
+            }
+            data.clear();
+        } finally {
+            for (Segment<K, V> segment : segments) {
+                segment.unlock();
+            }
+        }
+    }
+
+    /**
+     * 推进所有分段的时间轮，回收已过期条目
+     */
+    public void cleanUp() {
+        long now = System.currentTimeMillis();
+        for (Segment<K, V> segment : segments) {
+            segment.lock();
+            try {
+                advanceWheel(segment, now);
+            } finally {
+                segment.unlock();
+            }
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long estimatedSize() {
+        return data.size();
+    }
+
+    public long weightedSize() {
+        long total = 0;
+        for (Segment<K, V> segment : segments) {
+            total += segment.totalWeight();
+        }
+        return total;
+    }
+
+    public long hitCount() {
+        return hitCount.sum();
+    }
+
+    public long missCount() {
+        return missCount.sum();
+    }
+
+    public long evictionCount() {
+        return evictionCount.sum();
+    }
+
+    public long expirationCount() {
+        return expirationCount.sum();
+    }
+
+    public double hitRate() {
+        long hits = hitCount.sum();
+        long requests = hits + missCount.sum();
+        return requests == 0 ? 1.0 : (double) hits / requests;
+    }
+
+    /**
+     * 平均加载耗时（毫秒）
+     */
+    public double averageLoadPenaltyMillis() {
+        long loads = loadSuccessCount.sum() + loadFailureCount.sum();
+        return loads == 0 ? 0.0 : totalLoadNanos.sum() / (loads * 1_000_000.0);
+    }
+
+    /**
+     * 获取缓存统计信息
+     */
+    public String getStats() {
+        return String.format("%s: 条目数=%d, 权重=%d/%d, 命中=%d, 未命中=%d, 命中率=%.2f%%, 淘汰=%d, 过期=%d, 加载=%d(失败%d), 平均加载=%.2fms",
+                name, estimatedSize(), weightedSize(), maximumWeight, hitCount(), missCount(), hitRate() * 100,
+                evictionCount(), expirationCount(), loadSuccessCount.sum(), loadFailureCount.sum(), averageLoadPenaltyMillis());
+    }
+
+    // ==================== 内部实现 ====================
+
+    private void putIfGeneration(K key, V value, long ttlMillis, int stripe, long expectedGeneration) {
+        int hash = hash(key);
+        Segment<K, V> segment = segmentFor(hash);
+        long now = System.currentTimeMillis();
+        int weight = weigher == null ? 1 : Math.max(0, weigher.weigh(key, value));
+        long expireAt = ttlMillis > 0 ? now + ttlMillis : 0L;
+
+        segment.lock();
+        try {
+            if (stripe >= 0 && generations.get(stripe) != expectedGeneration) {
+                return;
+            }
+            advanceWheel(segment, now);
+            Node<K, V> node = data.get(key);
+            if (node != null) {
+                segment.updateWeight(node, weight);
+                node.value = value;
+                node.expireAt = expireAt;
+                segment.wheel.reschedule(node);
+                segment.onAccess(node);
+            } else {
+                node = new Node<>(key, value, weight, expireAt);
+                data.put(key, node);
+                segment.onInsert(node);
+            }
+            segment.sketch.increment(hash);
+            evictIfNeeded(segment);
+        } finally {
+            segment.unlock();
+        }
+    }
+
+    private void afterRead(Node<K, V> node, long now) {
+        Segment<K, V> segment = segmentFor(hash(node.key));
+        // 读路径不阻塞：拿不到锁就丢弃这次访问记录
+        if (segment.tryLock()) {
+            try {
+                segment.sketch.increment(hash(node.key));
+                if (node.queue >= 0) {
+                    segment.onAccess(node);
+                }
+                advanceWheel(segment, now);
+            } finally {
+                segment.unlock();
+            }
+        }
+    }
+
+    private void expireNow(Node<K, V> node, long now) {
+        Segment<K, V> segment = segmentFor(hash(node.key));
+        if (segment.tryLock()) {
+            try {
+                if (node.queue >= 0 && node.isExpired(now)) {
+                    segment.unlink(node);
+                    if (data.remove(node.key, node)) {
+                        expirationCount.increment();
+                    }
+                }
+            } finally {
+                segment.unlock();
+            }
+        }
+    }
+
+    private void advanceWheel(Segment<K, V> segment, long now) {
+        TimerWheel<K, V> wheel = segment.wheel;
+        long targetTick = now / TICK_MILLIS;
+        if (targetTick <= wheel.currentTick) {
+            return;
+        }
+        long ticks = Math.min(targetTick - wheel.currentTick, WHEEL_BUCKETS);
+        for (long i = 1; i <= ticks; i++) {
+            Node<K, V> sentinel = wheel.buckets[(int) ((wheel.currentTick + i) & (WHEEL_BUCKETS - 1))];
+            Node<K, V> node = sentinel.timerNext;
+            while (node != sentinel) {
+                Node<K, V> next = node.timerNext;
+                if (node.isExpired(now)) {
+                    segment.unlink(node);
+                    if (data.remove(node.key, node)) {
+                        expirationCount.increment();
+                    }
+                }
+                node = next;
+            }
+        }
+        wheel.currentTick = targetTick;
+    }
+
+    private void evictIfNeeded(Segment<K, V> segment) {
+        // 窗口溢出：最旧的窗口条目进入试用区，成为准入候选
+        while (segment.window.weight > segment.maxWindow) {
+            Node<K, V> node = segment.window.first();
+            if (node == null) {
+                break;
+            }
+            segment.window.remove(node);
+            node.queue = PROBATION;
+            segment.probation.addLast(node);
+        }
+
+        while (segment.totalWeight() > segment.maxWeight) {
+            Node<K, V> victim = segment.probation.first();
+            Node<K, V> candidate = segment.probation.last();
+            if (victim == null) {
+                victim = segment.protectedQueue.first();
+                if (victim == null) {
+                    victim = segment.window.first();
+                }
+                if (victim == null) {
+                    break;
+                }
+                evict(segment, victim);
+                continue;
+            }
+            if (candidate == victim || candidate.weight > segment.maxWeight) {
+                evict(segment, candidate);
+                continue;
+            }
+            // TinyLFU 准入：候选频率更高才挤掉受害者
+            if (segment.sketch.frequency(hash(candidate.key)) > segment.sketch.frequency(hash(victim.key))) {
+                evict(segment, victim);
+            } else {
+                evict(segment, candidate);
+            }
+        }
+    }
+
+    private void evict(Segment<K, V> segment, Node<K, V> node) {
+        segment.unlink(node);
+        if (data.remove(node.key, node)) {
+            evictionCount.increment();
+        }
+    }
+
+    private Segment<K, V> segmentFor(int hash) {
+        return segments[(hash >>> 16) & segmentMask];
+    }
+
+    private static int stripeFor(int hash) {
+        return hash & (GENERATION_STRIPES - 1);
+    }
+
+    private static int hash(Object key) {
+        int h = key.hashCode();
+        h ^= (h >>> 16);
+        h *= 0x45d9f3b;
+        h ^= (h >>> 16);
+        return h;
+    }
+
+    /**
+     * 缓存节点（同时挂在访问链表和时间轮槽位链表上）
+     */
+    private static final class Node<K, V> {
+        final K key;
+        volatile V value;
+        volatile long expireAt;
+        int weight;
+        int queue = -1;
+        Node<K, V> prev;
+        Node<K, V> next;
+        Node<K, V> timerPrev;
+        Node<K, V> timerNext;
+
+        Node(K key, V value, int weight, long expireAt) {
+            this.key = key;
+            this.value = value;
+            this.weight = weight;
+            this.expireAt = expireAt;
+        }
+
+        boolean isExpired(long now) {
+            long at = expireAt;
+            return at != 0 && now >= at;
+        }
+    }
+
+    /**
+     * 侵入式访问顺序队列（头部最旧，尾部最新）
+     */
+    private static final class AccessQueue<K, V> {
+        final Node<K, V> head = new Node<>(null, null, 0, 0);
+        long weight;
+
+        AccessQueue() {
+            head.prev = head;
+            head.next = head;
+        }
+
+        Node<K, V> first() {
+            return head.next == head ? null : head.next;
+        }
+
+        Node<K, V> last() {
+            return head.prev == head ? null : head.prev;
+        }
+
+        void addLast(Node<K, V> node) {
+            node.prev = head.prev;
+            node.next = head;
+            head.prev.next = node;
+            head.prev = node;
+            weight += node.weight;
+        }
+
+        void remove(Node<K, V> node) {
+            node.prev.next = node.next;
+            node.next.prev = node.prev;
+            node.prev = null;
+            node.next = null;
+            weight -= node.weight;
+        }
+
+        void moveToEnd(Node<K, V> node) {
+            if (head.prev == node) {
+                return;
+            }
+            remove(node);
+            addLast(node);
+        }
+
+        void clear() {
+            head.prev = head;
+            head.next = head;
+            weight = 0;
+        }
+    }
+
+    /**
+     * 单级哈希时间轮，节点按过期时刻向上取整落入槽位
+     */
+    private static final class TimerWheel<K, V> {
+        final Node<K, V>[] buckets;
+        long currentTick;
+
+        TimerWheel() {
+            @SuppressWarnings({"rawtypes", "unchecked"})
+            Node<K, V>[] created = new Node[WHEEL_BUCKETS];
+            buckets = created;
+            for (int i = 0; i < WHEEL_BUCKETS; i++) {
+                Node<K, V> sentinel = new Node<>(null, null, 0, 0);
+                sentinel.timerPrev = sentinel;
+                sentinel.timerNext = sentinel;
+                buckets[i] = sentinel;
+            }
+            currentTick = System.currentTimeMillis() / TICK_MILLIS;
+        }
+
+        void schedule(Node<K, V> node) {
+            long at = node.expireAt;
+            if (at == 0) {
+                return;
+            }
+            long tick = (at + TICK_MILLIS - 1) / TICK_MILLIS;
+            Node<K, V> sentinel = buckets[(int) (tick & (WHEEL_BUCKETS - 1))];
+            node.timerPrev = sentinel.timerPrev;
+            node.timerNext = sentinel;
+            sentinel.timerPrev.timerNext = node;
+            sentinel.timerPrev = node;
+        }
+
+        void deschedule(Node<K, V> node) {
+            if (node.timerNext != null) {
+                node.timerPrev.timerNext = node.timerNext;
+                node.timerNext.timerPrev = node.timerPrev;
+                node.timerPrev = null;
+                node.timerNext = null;
+            }
+        }
+
+        void reschedule(Node<K, V> node) {
+            deschedule(node);
+            schedule(node);
+        }
+
+        void clear() {
+            for (Node<K, V> sentinel : buckets) {
+                sentinel.timerPrev = sentinel;
+                sentinel.timerNext = sentinel;
+            }
+        }
+    }
+
+    /**
+     * 4 位计数的 CountMin 草图，用于估算访问频率；累计到采样上限后整体减半以适应热点变化
+     */
+    private static final class FrequencySketch {
+        private static final long[] SEEDS = {
+                0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L
+        };
+        private static final long RESET_MASK = 0x7777777777777777L;
+
+        private final long[] table;
+        private final int tableMask;
+        private final int sampleSize;
+        private int additions;
+
+        FrequencySketch(long expectedEntries) {
+            int length = 64;
+            while (length < expectedEntries && length < (1 << 12)) {
+                length <<= 1;
+            }
+            table = new long[length];
+            tableMask = length - 1;
+            sampleSize = 10 * length;
+        }
+
+        void increment(int hash) {
+            boolean added = false;
+            for (int i = 0; i < 4; i++) {
+                int h = rehash(hash, i);
+                int index = h & tableMask;
+                int offset = ((h >>> 24) & 15) << 2;
+                long count = (table[index] >>> offset) & 0xfL;
+                if (count < 15) {
+                    table[index] += 1L << offset;
+                    added = true;
+                }
+            }
+            if (added && ++additions >= sampleSize) {
+                for (int i = 0; i < table.length; i++) {
+                    table[i] = (table[i] >>> 1) & RESET_MASK;
+                }
+                additions >>>= 1;
+            }
+        }
+
+        int frequency(int hash) {
+            int min = 15;
+            for (int i = 0; i < 4; i++) {
+                int h = rehash(hash, i);
+                int offset = ((h >>> 24) & 15) << 2;
+                int count = (int) ((table[h & tableMask] >>> offset) & 0xfL);
+                min = Math.min(min, count);
+            }
+            return min;
+        }
+
+        private static int rehash(int hash, int i) {
+            long h = (hash + SEEDS[i]) * SEEDS[i];
+            h += h >>> 32;
+            return (int) h;
+        }
+
+        void clear() {
+            java.util.Arrays.fill(table, 0L);
+            additions = 0;
+        }
+    }
+
+    /**
+     * 淘汰策略分段：窗口区 + 试用区 + 保护区，由分段锁保护
+     */
+    private static final class Segment<K, V> extends ReentrantLock {
+        private static final long serialVersionUID = 1L;
+
+        final AccessQueue<K, V> window = new AccessQueue<>();
+        final AccessQueue<K, V> probation = new AccessQueue<>();
+        final AccessQueue<K, V> protectedQueue = new AccessQueue<>();
+        final TimerWheel<K, V> wheel = new TimerWheel<>();
+        final FrequencySketch sketch;
+        final long maxWeight;
+        final long maxWindow;
+        final long maxProtected;
+
+        Segment(long maxWeight) {
+            this.maxWeight = maxWeight;
+            this.maxWindow = Math.max(1, maxWeight / 100);
+            this.maxProtected = (long) ((maxWeight - maxWindow) * 0.8);
+            this.sketch = new FrequencySketch(maxWeight);
+        }
+
+        long totalWeight() {
+            return window.weight + probation.weight + protectedQueue.weight;
+        }
+
+        AccessQueue<K, V> queueOf(Node<K, V> node) {
+            switch (node.queue) {
+                case WINDOW:
+                    return window;
+                case PROBATION:
+                    return probation;
+                default:
+                    return protectedQueue;
+            }
+        }
+
+        void onInsert(Node<K, V> node) {
+            node.queue = WINDOW;
+            window.addLast(node);
+            wheel.schedule(node);
+        }
+
+        void onAccess(Node<K, V> node) {
+            if (node.queue == PROBATION) {
+                // 试用区再次被访问，晋升到保护区；保护区超限则把最旧条目降级回试用区
+                probation.remove(node);
+                node.queue = PROTECTED;
+                protectedQueue.addLast(node);
+                while (protectedQueue.weight > maxProtected) {
+                    Node<K, V> demoted = protectedQueue.first();
+                    if (demoted == null || demoted == node) {
+                        break;
+                    }
+                    protectedQueue.remove(demoted);
+                    demoted.queue = PROBATION;
+                    probation.addLast(demoted);
+                }
+            } else {
+                queueOf(node).moveToEnd(node);
+            }
+        }
+
+        void updateWeight(Node<K, V> node, int weight) {
+            AccessQueue<K, V> queue = queueOf(node);
+            queue.weight += weight - node.weight;
+            node.weight = weight;
+        }
+
+        void unlink(Node<K, V> node) {
+            if (node.queue >= 0) {
+                queueOf(node).remove(node);
+                node.queue = -1;
+            }
+            wheel.deschedule(node);
+        }
+
+        void clear() {
+            window.clear();
+            probation.clear();
+            protectedQueue.clear();
+            wheel.clear();
+            sketch.clear();
+        }
+    }
+}
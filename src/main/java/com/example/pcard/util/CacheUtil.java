@@ -5,67 +5,55 @@ import org.slf4j.LoggerFactory;
 
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.TimeUnit;
 
 /**
- * 简单的内存缓存工具类
- * 使用LRU策略和TTL机制
+ * 内存缓存工具类
+ * - 提供默认的字符串键缓存（静态方法，保持原有用法）
+ * - 作为 {@link BoundedCache} 的创建入口和注册表，统一输出各缓存的统计信息
  */
 public class CacheUtil {
     private static final Logger logger = LoggerFactory.getLogger(CacheUtil.class);
-    
-    private static final Map<String, CacheEntry<?>> cache = new ConcurrentHashMap<>();
-    private static final ScheduledExecutorService cleanupExecutor = Executors.newSingleThreadScheduledExecutor();
-    
+
     // 默认缓存过期时间（毫秒）
     private static final long DEFAULT_TTL = 5 * 60 * 1000; // 5分钟
-    
+
     // 最大缓存条目数
     private static final int MAX_CACHE_SIZE = 1000;
-    
+
+    // 已创建的缓存（按名称）
+    private static final Map<String, BoundedCache<?, ?>> registry = new ConcurrentHashMap<>();
+
+    private static final BoundedCache<String, Object> defaultCache = newCache("default", MAX_CACHE_SIZE, DEFAULT_TTL);
+
     static {
-        // 定期清理过期缓存
-        cleanupExecutor.scheduleAtFixedRate(() -> {
-            try {
-                cleanExpiredEntries();
-            } catch (Exception e) {
-                logger.error("清理缓存时发生错误", e);
-            }
-        }, 1, 1, TimeUnit.MINUTES);
-        
         logger.info("缓存工具初始化完成，默认TTL: {}ms, 最大条目数: {}", DEFAULT_TTL, MAX_CACHE_SIZE);
     }
-    
+
     /**
-     * 缓存条目
+     * 创建并注册一个按条目数计量的缓存
+     * @param name 缓存名称
+     * @param maximumSize 最大条目数
+     * @param ttlMillis 默认过期时间（毫秒）
      */
-    private static class CacheEntry<T> {
-        private final T value;
-        private final long expiryTime;
-        private volatile long lastAccessTime;
-        
-        public CacheEntry(T value, long ttl) {
-            this.value = value;
-            this.expiryTime = System.currentTimeMillis() + ttl;
-            this.lastAccessTime = System.currentTimeMillis();
-        }
-        
-        public T getValue() {
-            this.lastAccessTime = System.currentTimeMillis();
-            return value;
-        }
-        
-        public boolean isExpired() {
-            return System.currentTimeMillis() > expiryTime;
-        }
-        
-        public long getLastAccessTime() {
-            return lastAccessTime;
-        }
+    public static <K, V> BoundedCache<K, V> newCache(String name, long maximumSize, long ttlMillis) {
+        return newCache(name, maximumSize, ttlMillis, null);
     }
-    
+
+    /**
+     * 创建并注册一个按权重计量的缓存
+     * @param name 缓存名称
+     * @param maximumWeight 最大总权重
+     * @param ttlMillis 默认过期时间（毫秒）
+     * @param weigher 权重计算器
+     */
+    public static <K, V> BoundedCache<K, V> newCache(String name, long maximumWeight, long ttlMillis,
+                                                     BoundedCache.Weigher<? super K, ? super V> weigher) {
+        BoundedCache<K, V> cache = new BoundedCache<>(name, maximumWeight, ttlMillis, weigher);
+        registry.put(name, cache);
+        logger.debug("创建缓存: {}, 容量: {}, TTL: {}ms", name, maximumWeight, ttlMillis);
+        return cache;
+    }
+
     /**
      * 添加缓存
      * @param key 缓存键
@@ -74,7 +62,7 @@ public class CacheUtil {
     public static <T> void put(String key, T value) {
         put(key, value, DEFAULT_TTL);
     }
-    
+
     /**
      * 添加缓存，指定TTL
      * @param key 缓存键
@@ -82,18 +70,9 @@ public class CacheUtil {
      * @param ttl 过期时间（毫秒）
      */
     public static <T> void put(String key, T value, long ttl) {
-        if (key == null || value == null) {
-            return;
-        }
-        
-        // 如果缓存已满，清理最旧的条目
-        if (cache.size() >= MAX_CACHE_SIZE) {
-            evictLRU();
-        }
-        
-        cache.put(key, new CacheEntry<>(value, ttl));
+        defaultCache.put(key, value, ttl);
     }
-    
+
     /**
      * 获取缓存
      * @param key 缓存键
@@ -101,98 +80,42 @@ public class CacheUtil {
      */
     @SuppressWarnings("unchecked")
     public static <T> T get(String key) {
-        if (key == null) {
-            return null;
-        }
-        
-        CacheEntry<?> entry = cache.get(key);
-        if (entry == null) {
-            return null;
-        }
-        
-        if (entry.isExpired()) {
-            cache.remove(key);
-            return null;
-        }
-        
-        return (T) entry.getValue();
+        return (T) defaultCache.getIfPresent(key);
     }
-    
+
     /**
      * 移除缓存
      * @param key 缓存键
      */
     public static void remove(String key) {
-        if (key != null) {
-            cache.remove(key);
-        }
+        defaultCache.invalidate(key);
     }
-    
+
     /**
-     * 清空缓存
+     * 清空所有缓存
      */
     public static void clear() {
-        cache.clear();
-        logger.info("缓存已清空");
-    }
-    
-    /**
-     * 清理过期的缓存条目
-     */
-    private static void cleanExpiredEntries() {
-        int removed = 0;
-        for (Map.Entry<String, CacheEntry<?>> entry : cache.entrySet()) {
-            if (entry.getValue().isExpired()) {
-                cache.remove(entry.getKey());
-                removed++;
-            }
-        }
-        if (removed > 0) {
-            logger.debug("清理了 {} 个过期缓存条目，剩余: {}", removed, cache.size());
-        }
-    }
-    
-    /**
-     * LRU驱逐策略 - 移除最久未访问的条目
-     */
-    private static void evictLRU() {
-        String oldestKey = null;
-        long oldestAccessTime = Long.MAX_VALUE;
-        
-        for (Map.Entry<String, CacheEntry<?>> entry : cache.entrySet()) {
-            long accessTime = entry.getValue().getLastAccessTime();
-            if (accessTime < oldestAccessTime) {
-                oldestAccessTime = accessTime;
-                oldestKey = entry.getKey();
-            }
-        }
-        
-        if (oldestKey != null) {
-            cache.remove(oldestKey);
-            logger.debug("LRU驱逐缓存条目: {}", oldestKey);
+        for (BoundedCache<?, ?> cache : registry.values()) {
+            cache.invalidateAll();
         }
+        logger.info("缓存已清空");
     }
-    
+
     /**
-     * 获取缓存统计信息
+     * 获取缓存统计信息（命中/未命中/淘汰/过期/加载耗时）
      */
     public static String getStats() {
-        return String.format("缓存统计: 当前条目数=%d, 最大条目数=%d", cache.size(), MAX_CACHE_SIZE);
+        StringBuilder sb = new StringBuilder("缓存统计:");
+        registry.values().stream()
+                .sorted((a, b) -> a.getName().compareTo(b.getName()))
+                .forEach(cache -> sb.append("\n  ").append(cache.getStats()));
+        return sb.toString();
     }
-    
+
     /**
      * 关闭缓存工具（通常在应用关闭时调用）
      */
     public static void shutdown() {
-        cleanupExecutor.shutdown();
-        try {
-            if (!cleanupExecutor.awaitTermination(5, TimeUnit.SECONDS)) {
-                cleanupExecutor.shutdownNow();
-            }
-        } catch (InterruptedException e) {
-            cleanupExecutor.shutdownNow();
-            Thread.currentThread().interrupt();
-        }
         clear();
         logger.info("缓存工具已关闭");
     }
@@ -1,24 +1,37 @@
 package com.example.pcard.util;
 
 import com.github.houbb.opencc4j.util.ZhConverterUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.Locale;
 
 /**
  * 中文简繁体转换工具类
- * 优化版：添加LRU缓存以提高性能
+ * - 转换结果缓存在有界缓存（{@link BoundedCache}）中，满额时只淘汰低频条目，命中率不会周期性归零
+ * - 中文检测逐字符扫描，不编译正则、不分配对象
+ * - 启动时可通过 {@link #warmUp} 预热词典和常用地区/偶像名称
  */
 public class ChineseConverter {
-    
-    // 转换结果缓存，避免重复转换相同文本
-    private static final Map<String, String> simplifiedCache = new ConcurrentHashMap<>();
-    private static final Map<String, String> traditionalCache = new ConcurrentHashMap<>();
-    private static final Map<String, List<String>> variantsCache = new ConcurrentHashMap<>();
-    
-    // 缓存大小限制
-    private static final int MAX_CACHE_SIZE = 500;
+    private static final Logger logger = LoggerFactory.getLogger(ChineseConverter.class);
+
+    // 各类缓存的最大条目数
+    private static final int MAX_CACHE_SIZE = 5000;
+
+    private static final BoundedCache<String, String> simplifiedCache =
+            CacheUtil.newCache("zh-simplified", MAX_CACHE_SIZE, 0);
+    private static final BoundedCache<String, String> traditionalCache =
+            CacheUtil.newCache("zh-traditional", MAX_CACHE_SIZE, 0);
+    private static final BoundedCache<String, List<String>> variantsCache =
+            CacheUtil.newCache("zh-variants", MAX_CACHE_SIZE, 0);
+
+    // 与原正则 [一-龥] 相同的 CJK 统一表意文字范围
+    private static final char CJK_START = '一';
+    private static final char CJK_END = '龥';
 
     /**
      * 转换为简体中文
@@ -27,28 +40,13 @@ public class ChineseConverter {
         if (text == null || text.isEmpty()) {
             return text;
         }
-        
-        // 检查缓存
-        String cached = simplifiedCache.get(text);
-        if (cached != null) {
-            return cached;
-        }
-        
-        try {
-            String result = ZhConverterUtil.toSimple(text);
-            
-            // 添加到缓存（带大小限制）
-            if (simplifiedCache.size() < MAX_CACHE_SIZE) {
-                simplifiedCache.put(text, result);
-            } else if (simplifiedCache.size() >= MAX_CACHE_SIZE * 1.2) {
-                // 当缓存超过限制20%时，清理一半
-                simplifiedCache.clear();
+        return simplifiedCache.get(text, t -> {
+            try {
+                return ZhConverterUtil.toSimple(t);
+            } catch (Exception e) {
+                return t;
             }
-            
-            return result;
-        } catch (Exception e) {
-            return text;
-        }
+        });
     }
 
     /**
@@ -58,52 +56,34 @@ public class ChineseConverter {
         if (text == null || text.isEmpty()) {
             return text;
         }
-        
-        // 检查缓存
-        String cached = traditionalCache.get(text);
-        if (cached != null) {
-            return cached;
-        }
-        
-        try {
-            String result = ZhConverterUtil.toTraditional(text);
-            
-            // 添加到缓存（带大小限制）
-            if (traditionalCache.size() < MAX_CACHE_SIZE) {
-                traditionalCache.put(text, result);
-            } else if (traditionalCache.size() >= MAX_CACHE_SIZE * 1.2) {
-                // 当缓存超过限制20%时，清理一半
-                traditionalCache.clear();
+        return traditionalCache.get(text, t -> {
+            try {
+                return ZhConverterUtil.toTraditional(t);
+            } catch (Exception e) {
+                return t;
             }
-            
-            return result;
-        } catch (Exception e) {
-            return text;
-        }
+        });
     }
 
     /**
      * 获取搜索变体列表（包含原文、简体、繁体）
-     * 优化版：添加缓存
+     * @return 可修改的新列表
      */
     public static List<String> getSearchVariants(String text) {
         if (text == null || text.isEmpty()) {
             return new ArrayList<>();
         }
-        
-        // 检查缓存
-        List<String> cached = variantsCache.get(text);
-        if (cached != null) {
-            return new ArrayList<>(cached); // 返回副本以防修改
-        }
-        
-        List<String> variants = new ArrayList<>();
+        return new ArrayList<>(variantsCache.get(text, ChineseConverter::computeVariants));
+    }
+
+    private static List<String> computeVariants(String text) {
+        List<String> variants = new ArrayList<>(3);
         variants.add(text);
-        
+
         if (containsChinese(text)) {
             String simplified = toSimplified(text);
             String traditional = toTraditional(text);
-            
+
             if (!variants.contains(simplified)) {
                 variants.add(simplified);
             }
@@ -111,16 +91,26 @@ public class ChineseConverter {
                 variants.add(traditional);
             }
         }
-        
-        // 添加到缓存（带大小限制）
-        if (variantsCache.size() < MAX_CACHE_SIZE) {
-            variantsCache.put(text, new ArrayList<>(variants));
-        } else if (variantsCache.size() >= MAX_CACHE_SIZE * 1.2) {
-            // 当缓存超过限制20%时，清理
-            variantsCache.clear();
+        return Collections.unmodifiableList(variants);
+    }
+
+    /**
+     * 生成搜索键：去除首尾空白、繁体转简体、转小写
+     * 写入名片时保存到 *_sk 影子列，搜索时对关键词做同样处理，简繁体在同一形式下比较
+     * @return 空值或空白文本返回null
+     */
+    public static String toSearchKey(String text) {
+        if (text == null) {
+            return null;
+        }
+        String trimmed = text.trim();
+        if (trimmed.isEmpty()) {
+            return null;
+        }
+        if (containsChinese(trimmed)) {
+            trimmed = toSimplified(trimmed);
         }
-        
-        return variants;
+        return trimmed.toLowerCase(Locale.ROOT);
     }
 
     /**
@@ -130,23 +120,57 @@ public class ChineseConverter {
         if (text == null) {
             return false;
         }
-        return text.matches(".*[\u4e00-\u9fa5]+.*");
+        for (int i = 0, n = text.length(); i < n; i++) {
+            char c = text.charAt(i);
+            if (c >= CJK_START && c <= CJK_END) {
+                return true;
+            }
+        }
+        return false;
     }
-    
+
+    /**
+     * 预热：加载 OpenCC 词典并缓存常用词条的简繁体变体
+     * 首次转换需要加载词典，放在启动阶段执行可避免首个请求承担该开销
+     * @param terms 常用词条（如地区、偶像名称），可为空
+     * @return 预热的词条数
+     */
+    public static int warmUp(Collection<String> terms) {
+        long start = System.nanoTime();
+        int count = 0;
+        // 触发词典加载
+        toSimplified("預熱");
+        toTraditional("预热");
+        if (terms != null) {
+            for (String term : terms) {
+                if (term == null || term.trim().isEmpty()) {
+                    continue;
+                }
+                String trimmed = term.trim();
+                getSearchVariants(trimmed);
+                toSearchKey(trimmed);
+                count++;
+            }
+        }
+        logger.info("简繁体转换预热完成: {} 个词条, 耗时 {}ms", count, (System.nanoTime() - start) / 1_000_000);
+        return count;
+    }
+
     /**
      * 清空缓存（用于内存管理或测试）
      */
     public static void clearCache() {
-        simplifiedCache.clear();
-        traditionalCache.clear();
-        variantsCache.clear();
+        simplifiedCache.invalidateAll();
+        traditionalCache.invalidateAll();
+        variantsCache.invalidateAll();
     }
-    
+
     /**
      * 获取缓存统计信息
      */
     public static String getCacheStats() {
-        return String.format("ChineseConverter缓存统计 - 简体:%d, 繁体:%d, 变体:%d", 
-            simplifiedCache.size(), traditionalCache.size(), variantsCache.size());
+        return String.format("ChineseConverter缓存统计 - 简体:%d, 繁体:%d, 变体:%d (命中率 %.1f%% / %.1f%% / %.1f%%)",
+                simplifiedCache.estimatedSize(), traditionalCache.estimatedSize(), variantsCache.estimatedSize(),
+                simplifiedCache.hitRate() * 100, traditionalCache.hitRate() * 100, variantsCache.hitRate() * 100);
     }
-}
\ No newline at end of file
+}
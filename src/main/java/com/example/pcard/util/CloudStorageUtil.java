@@ -10,6 +10,7 @@ import java.nio.file.Files;
 /**
  * 云存储工具类 - 支持阿里云OSS、AWS S3、Azure Blob等
  * 根据配置自动选择存储方式
+ * 名片图片的上传、读取和清理使用 {@link com.example.pcard.storage.StorageBackends} 提供的异步存储后端
  */
 public class CloudStorageUtil {
     private static final Logger logger = LoggerFactory.getLogger(CloudStorageUtil.class);
@@ -128,14 +129,7 @@ public class CloudStorageUtil {
         targetFile.getParentFile().mkdirs();
         
         // 复制文件
-        try (InputStream in = new FileInputStream(file);
-             OutputStream out = new FileOutputStream(targetFile)) {
-            byte[] buffer = new byte[8192];
-            int length;
-            while ((length = in.read(buffer)) > 0) {
-                out.write(buffer, 0, length);
-            }
-        }
+        Files.copy(file.toPath(), targetFile.toPath(), java.nio.file.StandardCopyOption.REPLACE_EXISTING);
         
         // 设置文件权限为 644 (rw-r--r--) 允许所有用户读取
         try {
@@ -415,6 +409,15 @@ public class CloudStorageUtil {
         return "unknown";
     }
     
+    /**
+     * 获取上传目录（环境变量 UPLOAD_DIR，默认 /uploads，Cloud Run 将 GCS 挂载到该路径）
+     * @return 上传目录路径
+     */
+    public static java.nio.file.Path getUploadDir() {
+        String uploadPath = System.getenv("UPLOAD_DIR");
+        return java.nio.file.Paths.get(uploadPath != null ? uploadPath : "/uploads");
+    }
+    
     /**
      * 检查存储服务是否可用
      * @return 是否可用
@@ -7,18 +7,80 @@ import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
 import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
 import java.util.Properties;
 
 /**
  * 数据库连接池工具类
  * 使用HikariCP管理数据库连接
+ * 支持线程绑定的工作单元：{@link #inTransaction} 期间 {@link #getConnection()} 返回同一个连接，
+ * DAO 无需修改即可加入事务，多条语句的流程只从连接池借出一次连接
  */
 public class DbUtil {
     private static final Logger logger = LoggerFactory.getLogger(DbUtil.class);
     private static final HikariDataSource dataSource;
 
+    // 当前线程的工作单元
+    private static final ThreadLocal<UnitOfWork> currentUnit = new ThreadLocal<>();
+
+    /**
+     * 工作单元内执行的数据库操作
+     * @param <T> 返回值类型
+     */
+    @FunctionalInterface
+    public interface Work<T> {
+        T run() throws SQLException;
+    }
+
+    /**
+     * 线程绑定的事务：真实连接由 inTransaction 负责提交、回滚和归还，
+     * DAO 拿到的是代理连接，其 close/commit/rollback/setAutoCommit 不生效
+     */
+    private static final class UnitOfWork {
+        final Connection connection;
+        final Connection shared;
+        final List<Runnable> afterCommit = new ArrayList<>();
+
+        UnitOfWork(Connection connection) {
+            this.connection = connection;
+            this.shared = (Connection) Proxy.newProxyInstance(DbUtil.class.getClassLoader(),
+                    new Class<?>[]{Connection.class}, this::invoke);
+        }
+
+        private Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                case "commit":
+                case "setAutoCommit":
+                    return null;
+                case "rollback":
+                    if (args == null) {
+                        // 由 inTransaction 在异常传出时统一回滚
+                        return null;
+                    }
+                    break;
+                case "isClosed":
+                    return connection.isClosed();
+                default:
+                    break;
+            }
+            try {
+                return method.invoke(connection, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+
     static {
         logger.info("初始化数据库连接池...");
         HikariConfig config = new HikariConfig();
@@ -126,7 +188,113 @@ public class DbUtil {
      * @throws SQLException 获取连接失败
      */
     public static Connection getConnection() throws SQLException {
-        return dataSource.getConnection();
+        UnitOfWork unit = currentUnit.get();
+        return unit != null ? unit.shared : dataSource.getConnection();
+    }
+
+    /**
+     * 在一个事务中执行 work：期间本线程的 {@link #getConnection()} 都返回同一个连接，正常返回时提交，抛出异常时回滚
+     * 已在工作单元内时直接加入外层事务
+     * @param work 数据库操作
+     * @return work 的返回值
+     * @throws SQLException 数据库操作异常（事务已回滚）
+     */
+    public static <T> T inTransaction(Work<T> work) throws SQLException {
+        if (currentUnit.get() != null) {
+            return work.run();
+        }
+        T result;
+        UnitOfWork unit;
+        try (Connection conn = dataSource.getConnection()) {
+            conn.setAutoCommit(false);
+            unit = new UnitOfWork(conn);
+            currentUnit.set(unit);
+            try {
+                result = work.run();
+                conn.commit();
+            } catch (SQLException | RuntimeException | Error e) {
+                try {
+                    conn.rollback();
+                } catch (SQLException rollbackError) {
+                    e.addSuppressed(rollbackError);
+                }
+                throw e;
+            } finally {
+                currentUnit.remove();
+                // 连接池归还时会恢复 autoCommit
+            }
+        }
+        for (Runnable hook : unit.afterCommit) {
+            try {
+                hook.run();
+            } catch (RuntimeException e) {
+                logger.error("事务提交后回调执行失败", e);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 登记提交后执行的操作（如缓存失效）：在工作单元内时等事务提交后按登记顺序执行，回滚则丢弃；
+     * 不在工作单元内时立即执行
+     * @param hook 提交后执行的操作
+     */
+    public static void afterCommit(Runnable hook) {
+        UnitOfWork unit = currentUnit.get();
+        if (unit != null) {
+            unit.afterCommit.add(hook);
+        } else {
+            hook.run();
+        }
+    }
+
+    /**
+     * 当前线程是否处于工作单元内
+     */
+    public static boolean isInTransaction() {
+        return currentUnit.get() != null;
+    }
+
+    /**
+     * 预编译只读、只进的流式查询：fetchSize 设为 Integer.MIN_VALUE 时 MySQL 驱动逐行读取结果，
+     * 不把整个结果集缓存在内存中。结果集未关闭前该连接不能执行其他语句
+     * @param conn 数据库连接
+     * @param sql SQL语句
+     * @return 预编译语句
+     * @throws SQLException 数据库操作异常
+     */
+    public static PreparedStatement prepareStreaming(Connection conn, String sql) throws SQLException {
+        PreparedStatement ps = conn.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+        ps.setFetchSize(Integer.MIN_VALUE);
+        return ps;
+    }
+
+    /**
+     * 生成 IN 列表的占位符，如 "?, ?, ?"
+     * @param count 占位符个数（至少1个）
+     * @return 占位符字符串
+     */
+    public static String placeholders(int count) {
+        StringBuilder sb = new StringBuilder(count * 3);
+        for (int i = 0; i < count; i++) {
+            sb.append(i == 0 ? "?" : ", ?");
+        }
+        return sb.toString();
+    }
+
+    /**
+     * 从指定位置起依次绑定整数参数
+     * @param ps 预编译语句
+     * @param index 第一个参数的位置
+     * @param values 参数值
+     * @return 下一个参数的位置
+     * @throws SQLException 数据库操作异常
+     */
+    public static int setInts(PreparedStatement ps, int index, Collection<Integer> values) throws SQLException {
+        for (int value : values) {
+            ps.setInt(index++, value);
+        }
+        return index;
     }
 
     /**
@@ -0,0 +1,39 @@
+package com.example.pcard.util;
+
+/**
+ * HTTP 请求头解析工具
+ */
+public final class HttpUtil {
+
+    private HttpUtil() {
+    }
+
+    /**
+     * 客户端是否接受 gzip 编码（按 q 值判断，gzip;q=0 视为不接受）
+     * @param acceptEncoding Accept-Encoding 请求头，可为null
+     * @return 接受时为true
+     */
+    public static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.trim().split(";");
+            if (!"gzip".equalsIgnoreCase(parts[0].trim())) {
+                continue;
+            }
+            for (int i = 1; i < parts.length; i++) {
+                String param = parts[i].trim();
+                if (param.startsWith("q=")) {
+                    try {
+                        return Double.parseDouble(param.substring(2)) > 0;
+                    } catch (NumberFormatException e) {
+                        return false;
+                    }
+                }
+            }
+            return true;
+        }
+        return false;
+    }
+}
@@ -0,0 +1,300 @@
+package com.example.pcard.util;
+
+import java.io.BufferedInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * 图片头解析工具类
+ * - 根据魔数识别 PNG / JPEG / GIF / WebP，并从文件头读取宽高，不解码像素
+ * - {@link #copy} 在写出文件的同一次读取中完成校验和解析：解析时读到的字节原样写出，之后复制剩余内容，
+ *   内存占用只有固定大小的缓冲区，与图片分辨率无关
+ */
+public final class ImageHeaderParser {
+    private static final int COPY_BUFFER_SIZE = 8192;
+
+    // JPEG 中 SOF 之前的段（EXIF、ICC 等）允许的最大累计长度，超过视为无效图片
+    private static final long MAX_JPEG_PREAMBLE = 1024L * 1024L;
+
+    private ImageHeaderParser() {
+    }
+
+    /**
+     * 图片格式
+     */
+    public enum Format {
+        PNG(".png"), JPEG(".jpg"), GIF(".gif"), WEBP(".webp");
+
+        private final String extension;
+
+        Format(String extension) {
+            this.extension = extension;
+        }
+
+        /**
+         * 与格式对应的文件扩展名（含点）
+         */
+        public String getExtension() {
+            return extension;
+        }
+    }
+
+    /**
+     * 解析结果：格式 + 宽高（像素）
+     */
+    public static final class ImageInfo {
+        private final Format format;
+        private final int width;
+        private final int height;
+
+        private ImageInfo(Format format, int width, int height) {
+            this.format = format;
+            this.width = width;
+            this.height = height;
+        }
+
+        public Format getFormat() {
+            return format;
+        }
+
+        public int getWidth() {
+            return width;
+        }
+
+        public int getHeight() {
+            return height;
+        }
+    }
+
+    /**
+     * 从输入流读取并解析图片头，同时把读到的全部字节写入输出流；解析成功后把剩余内容复制到输出流
+     * @param in 输入流（调用方负责关闭）
+     * @param out 输出流（调用方负责关闭）
+     * @return 解析结果；不是支持的图片格式或头部损坏时返回null，此时输出流中只有部分内容，调用方应丢弃
+     * @throws IOException IO异常
+     */
+    public static ImageInfo copy(InputStream in, OutputStream out) throws IOException {
+        in = buffered(in);
+        TeeReader reader = new TeeReader(in, out);
+        ImageInfo info;
+        try {
+            info = parse(reader);
+        } catch (EOFException e) {
+            return null;
+        }
+        if (info == null) {
+            return null;
+        }
+        byte[] buffer = new byte[COPY_BUFFER_SIZE];
+        int n;
+        while ((n = in.read(buffer)) != -1) {
+            out.write(buffer, 0, n);
+        }
+        return info;
+    }
+
+    /**
+     * 只解析图片头，不保留读到的内容
+     * @return 解析结果；不是支持的图片格式或头部损坏时返回null
+     * @throws IOException IO异常
+     */
+    public static ImageInfo parse(InputStream in) throws IOException {
+        try {
+            return parse(new TeeReader(buffered(in), null));
+        } catch (EOFException e) {
+            return null;
+        }
+    }
+
+    // 头部按字节读取，底层流需要缓冲
+    private static InputStream buffered(InputStream in) {
+        return in instanceof BufferedInputStream ? in : new BufferedInputStream(in, COPY_BUFFER_SIZE);
+    }
+
+    private static ImageInfo parse(TeeReader r) throws IOException {
+        int b0 = r.readByte();
+        int b1 = r.readByte();
+        if (b0 == 0x89 && b1 == 'P') {
+            return parsePng(r);
+        }
+        if (b0 == 0xFF && b1 == 0xD8) {
+            return parseJpeg(r);
+        }
+        if (b0 == 'G' && b1 == 'I') {
+            return parseGif(r);
+        }
+        if (b0 == 'R' && b1 == 'I') {
+            return parseWebp(r);
+        }
+        return null;
+    }
+
+    /**
+     * PNG：8 字节签名后第一个块必须是 IHDR，宽高为大端 32 位
+     */
+    private static ImageInfo parsePng(TeeReader r) throws IOException {
+        if (r.readByte() != 'N' || r.readByte() != 'G' || r.readByte() != 0x0D || r.readByte() != 0x0A
+                || r.readByte() != 0x1A || r.readByte() != 0x0A) {
+            return null;
+        }
+        r.skip(4); // IHDR 块长度
+        if (r.readByte() != 'I' || r.readByte() != 'H' || r.readByte() != 'D' || r.readByte() != 'R') {
+            return null;
+        }
+        return create(Format.PNG, r.readIntBE(), r.readIntBE());
+    }
+
+    /**
+     * GIF：GIF87a / GIF89a 后为小端 16 位逻辑屏幕宽高
+     */
+    private static ImageInfo parseGif(TeeReader r) throws IOException {
+        if (r.readByte() != 'F' || r.readByte() != '8') {
+            return null;
+        }
+        int version = r.readByte();
+        if ((version != '7' && version != '9') || r.readByte() != 'a') {
+            return null;
+        }
+        return create(Format.GIF, r.readShortLE(), r.readShortLE());
+    }
+
+    /**
+     * WebP：RIFF 容器，第一个块为 VP8（有损）、VP8L（无损）或 VP8X（扩展，含画布尺寸）
+     */
+    private static ImageInfo parseWebp(TeeReader r) throws IOException {
+        if (r.readByte() != 'F' || r.readByte() != 'F') {
+            return null;
+        }
+        r.skip(4); // RIFF 大小
+        if (r.readByte() != 'W' || r.readByte() != 'E' || r.readByte() != 'B' || r.readByte() != 'P') {
+            return null;
+        }
+        if (r.readByte() != 'V' || r.readByte() != 'P' || r.readByte() != '8') {
+            return null;
+        }
+        int variant = r.readByte();
+        r.skip(4); // 块大小
+        if (variant == ' ') {
+            r.skip(3); // 帧标记
+            if (r.readByte() != 0x9D || r.readByte() != 0x01 || r.readByte() != 0x2A) {
+                return null;
+            }
+            return create(Format.WEBP, r.readShortLE() & 0x3FFF, r.readShortLE() & 0x3FFF);
+        }
+        if (variant == 'L') {
+            if (r.readByte() != 0x2F) {
+                return null;
+            }
+            int bits = r.readByte() | (r.readByte() << 8) | (r.readByte() << 16) | (r.readByte() << 24);
+            return create(Format.WEBP, (bits & 0x3FFF) + 1, ((bits >>> 14) & 0x3FFF) + 1);
+        }
+        if (variant == 'X') {
+            r.skip(4); // 标志位 + 保留字节
+            int width = r.readByte() | (r.readByte() << 8) | (r.readByte() << 16);
+            int height = r.readByte() | (r.readByte() << 8) | (r.readByte() << 16);
+            return create(Format.WEBP, width + 1, height + 1);
+        }
+        return null;
+    }
+
+    /**
+     * JPEG：逐段跳过，直到第一个 SOFn 段读取宽高；遇到 SOS / EOI 仍未找到则视为无效
+     */
+    private static ImageInfo parseJpeg(TeeReader r) throws IOException {
+        long preamble = 0;
+        while (true) {
+            if (r.readByte() != 0xFF) {
+                return null;
+            }
+            int marker = r.readByte();
+            while (marker == 0xFF) { // 填充字节
+                marker = r.readByte();
+            }
+            if (marker == 0x01 || (marker >= 0xD0 && marker <= 0xD7)) {
+                continue; // 无长度的独立标记
+            }
+            if (marker == 0xD9 || marker == 0xDA) {
+                return null;
+            }
+            int length = r.readShortBE();
+            if (length < 2) {
+                return null;
+            }
+            if (isStartOfFrame(marker)) {
+                r.skip(1); // 采样精度
+                int height = r.readShortBE();
+                int width = r.readShortBE();
+                return create(Format.JPEG, width, height);
+            }
+            preamble += length;
+            if (preamble > MAX_JPEG_PREAMBLE) {
+                return null;
+            }
+            r.skip(length - 2);
+        }
+    }
+
+    private static boolean isStartOfFrame(int marker) {
+        // C4（DHT）、C8（JPG 保留）、CC（DAC）不是帧头
+        return marker >= 0xC0 && marker <= 0xCF && marker != 0xC4 && marker != 0xC8 && marker != 0xCC;
+    }
+
+    private static ImageInfo create(Format format, int width, int height) {
+        if (width <= 0 || height <= 0) {
+            return null;
+        }
+        return new ImageInfo(format, width, height);
+    }
+
+    /**
+     * 逐字节读取，读到的内容同时写入输出流（可为空）
+     */
+    private static final class TeeReader {
+        private final InputStream in;
+        private final OutputStream out;
+        private final byte[] scratch = new byte[512];
+
+        TeeReader(InputStream in, OutputStream out) {
+            this.in = in;
+            this.out = out;
+        }
+
+        int readByte() throws IOException {
+            int b = in.read();
+            if (b < 0) {
+                throw new EOFException();
+            }
+            if (out != null) {
+                out.write(b);
+            }
+            return b;
+        }
+
+        int readShortBE() throws IOException {
+            return (readByte() << 8) | readByte();
+        }
+
+        int readShortLE() throws IOException {
+            return readByte() | (readByte() << 8);
+        }
+
+        int readIntBE() throws IOException {
+            return (readByte() << 24) | (readByte() << 16) | (readByte() << 8) | readByte();
+        }
+
+        void skip(long n) throws IOException {
+            while (n > 0) {
+                int read = in.read(scratch, 0, (int) Math.min(n, scratch.length));
+                if (read < 0) {
+                    throw new EOFException();
+                }
+                if (out != null) {
+                    out.write(scratch, 0, read);
+                }
+                n -= read;
+            }
+        }
+    }
+}
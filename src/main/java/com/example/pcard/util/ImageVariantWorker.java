@@ -0,0 +1,293 @@
+package com.example.pcard.util;
+
+import com.example.pcard.storage.StorageBackend;
+import com.example.pcard.storage.StorageBackends;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 名片图片响应式尺寸后台生成
+ * - 上传完成后提交任务，在后台线程中生成 320/640/1280 像素宽的缩小版本，上传请求不等待缩放
+ * - 尺寸版本通过 {@link StorageBackends} 与原图存在同一存储中，键由原图键和宽度确定（{@code <原键>_w<宽度>.jpg|png}），重复生成结果相同
+ * - 解码时按目标宽度做源端降采样，不把原始分辨率完整读入内存；不放大，原图不宽于某档时跳过该档
+ * - 有界队列 + 固定线程数，队列满时放弃生成（页面继续使用原图）；失败按退避延迟重试
+ * - GIF（可能为动图）和 ImageIO 无法解码的格式（如 WebP）不生成尺寸版本
+ */
+public final class ImageVariantWorker {
+    private static final Logger logger = LoggerFactory.getLogger(ImageVariantWorker.class);
+
+    /** 生成的宽度档位（像素，升序） */
+    public static final int[] VARIANT_WIDTHS = {320, 640, 1280};
+
+    private static final int THREADS = (int) Math.max(1, getEnvLong("IMAGE_WORKER_THREADS", 1));
+    private static final int QUEUE_CAPACITY = (int) Math.max(1, getEnvLong("IMAGE_WORKER_QUEUE_SIZE", 200));
+    private static final int MAX_RETRIES = (int) Math.max(0, getEnvLong("IMAGE_WORKER_MAX_RETRIES", 3));
+    private static final long RETRY_DELAY_MS = Math.max(100, getEnvLong("IMAGE_WORKER_RETRY_DELAY_MS", 5000));
+
+    private static final ThreadPoolExecutor executor = new ThreadPoolExecutor(
+            THREADS, THREADS, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(QUEUE_CAPACITY), daemonThreads("image-variants"),
+            new ThreadPoolExecutor.AbortPolicy());
+    // 只负责延迟后把重试任务放回工作队列，不执行缩放
+    private static final ScheduledExecutorService retryScheduler =
+            Executors.newSingleThreadScheduledExecutor(daemonThreads("image-variants-retry"));
+
+    private ImageVariantWorker() {
+    }
+
+    /**
+     * 尺寸版本生成完成后的回调（在工作线程中执行，抛出异常时整个任务按重试策略重新执行）
+     */
+    @FunctionalInterface
+    public interface Callback {
+        /**
+         * @param variants 宽度 -> 访问路径，无可生成的档位时为空
+         */
+        void onComplete(Map<Integer, String> variants) throws Exception;
+    }
+
+    /**
+     * 提交生成任务，不阻塞
+     * @param key 原图存储键
+     * @param callback 完成回调
+     * @return 是否已进入队列；队列已满或已关闭时返回false
+     */
+    public static boolean submit(String key, Callback callback) {
+        return enqueue(new Task(key, callback));
+    }
+
+    /**
+     * 由原图存储键得到某一宽度档位的存储键
+     */
+    public static String variantKey(String key, int width, boolean png) {
+        int dot = key.lastIndexOf('.');
+        String base = dot > 0 ? key.substring(0, dot) : key;
+        return base + "_w" + width + (png ? ".png" : ".jpg");
+    }
+
+    /**
+     * 停止工作线程（应用关闭时调用），未执行的任务被丢弃
+     */
+    public static void shutdown() {
+        retryScheduler.shutdownNow();
+        executor.shutdownNow();
+    }
+
+    private static boolean enqueue(Task task) {
+        try {
+            executor.execute(task);
+            return true;
+        } catch (RejectedExecutionException e) {
+            logger.warn("图片尺寸生成队列已满或已关闭，跳过: {}", task.key);
+            return false;
+        }
+    }
+
+    private static final class Task implements Runnable {
+        private final String key;
+        private final Callback callback;
+        private int attempt;
+
+        Task(String key, Callback callback) {
+            this.key = key;
+            this.callback = callback;
+        }
+
+        @Override
+        public void run() {
+            try {
+                callback.onComplete(generate(StorageBackends.get(), key));
+            } catch (Exception e) {
+                if (attempt >= MAX_RETRIES || Thread.currentThread().isInterrupted()) {
+                    logger.error("图片尺寸生成失败，已放弃: {}", key, e);
+                    return;
+                }
+                attempt++;
+                long delay = RETRY_DELAY_MS << (attempt - 1);
+                logger.warn("图片尺寸生成失败，{}ms 后第 {} 次重试: {}", delay, attempt, key, e);
+                try {
+                    retryScheduler.schedule(() -> enqueue(this), delay, TimeUnit.MILLISECONDS);
+                } catch (RejectedExecutionException ignored) {
+                    // 已关闭
+                }
+            }
+        }
+    }
+
+    /**
+     * 生成全部档位，已存在的版本直接复用
+     */
+    private static Map<Integer, String> generate(StorageBackend storage, String key) throws IOException {
+        Map<Integer, String> variants = new LinkedHashMap<>();
+        ImageHeaderParser.ImageInfo info;
+        try (InputStream in = open(storage, key)) {
+            info = ImageHeaderParser.parse(in);
+        }
+        if (info == null || info.getFormat() == ImageHeaderParser.Format.GIF
+                || info.getWidth() <= VARIANT_WIDTHS[0]) {
+            return variants;
+        }
+
+        boolean png = info.getFormat() == ImageHeaderParser.Format.PNG;
+        int largest = 0;
+        for (int width : VARIANT_WIDTHS) {
+            if (width < info.getWidth()) {
+                largest = width;
+            }
+        }
+        BufferedImage decoded = null;
+        for (int width : VARIANT_WIDTHS) {
+            if (width >= info.getWidth()) {
+                break;
+            }
+            String variantKey = variantKey(key, width, png);
+            if (!join(storage.exists(variantKey))) {
+                if (decoded == null) {
+                    try (InputStream in = open(storage, key)) {
+                        decoded = decode(in, info.getWidth() / largest);
+                    }
+                    if (decoded == null) {
+                        return variants;
+                    }
+                }
+                int height = Math.max(1, (int) Math.round((double) decoded.getHeight() * width / decoded.getWidth()));
+                write(storage, scale(decoded, width, height, png), png ? "png" : "jpg", variantKey);
+            }
+            variants.put(width, storage.publicPath(variantKey));
+        }
+        return variants;
+    }
+
+    private static InputStream open(StorageBackend storage, String key) throws IOException {
+        InputStream in = join(storage.get(key));
+        if (in == null) {
+            throw new NoSuchFileException(key);
+        }
+        return in;
+    }
+
+    private static <T> T join(CompletableFuture<T> future) throws IOException {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof UncheckedIOException) {
+                throw ((UncheckedIOException) e.getCause()).getCause();
+            }
+            throw new IOException(e.getCause());
+        }
+    }
+
+    /**
+     * 按整数倍源端降采样解码，解码后的宽度不小于最大目标档位
+     * @return ImageIO 不支持该格式时返回null
+     */
+    private static BufferedImage decode(InputStream source, int subsampling) throws IOException {
+        try (ImageInputStream iis = ImageIO.createImageInputStream(source)) {
+            Iterator<ImageReader> readers = iis == null ? null : ImageIO.getImageReaders(iis);
+            if (readers == null || !readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(iis, true, true);
+                ImageReadParam param = reader.getDefaultReadParam();
+                if (subsampling > 1) {
+                    param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+                }
+                return reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    private static BufferedImage scale(BufferedImage src, int width, int height, boolean png) {
+        BufferedImage current = src;
+        // 逐级减半再缩放到目标尺寸，避免一次大比例双线性缩放的锯齿
+        while (current.getWidth() / 2 >= width) {
+            current = draw(current, current.getWidth() / 2, Math.max(1, current.getHeight() / 2), png);
+        }
+        return draw(current, width, height, png);
+    }
+
+    private static BufferedImage draw(BufferedImage src, int width, int height, boolean png) {
+        BufferedImage dst = new BufferedImage(width, height, png ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = dst.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            if (!png) {
+                // JPEG 没有透明通道，透明区域填白
+                g.setColor(java.awt.Color.WHITE);
+                g.fillRect(0, 0, width, height);
+            }
+            g.drawImage(src, 0, 0, width, height, null);
+        } finally {
+            g.dispose();
+        }
+        return dst;
+    }
+
+    /**
+     * 编码到暂存文件后交给存储后端
+     */
+    private static void write(StorageBackend storage, BufferedImage image, String format, String key) throws IOException {
+        Path staged = storage.createStagingFile();
+        try {
+            try (OutputStream out = Files.newOutputStream(staged)) {
+                if (!ImageIO.write(image, format, out)) {
+                    throw new IOException("No ImageIO writer for " + format);
+                }
+            }
+        } catch (IOException e) {
+            Files.deleteIfExists(staged);
+            throw e;
+        }
+        join(storage.put(key, staged));
+    }
+
+    private static java.util.concurrent.ThreadFactory daemonThreads(String prefix) {
+        AtomicInteger seq = new AtomicInteger();
+        return r -> {
+            Thread t = new Thread(r, prefix + "-" + seq.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        };
+    }
+
+    private static long getEnvLong(String name, long defVal) {
+        try {
+            String v = System.getenv(name);
+            return v == null ? defVal : Long.parseLong(v);
+        } catch (Exception e) {
+            return defVal;
+        }
+    }
+}
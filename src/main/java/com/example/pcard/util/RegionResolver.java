@@ -0,0 +1,116 @@
+package com.example.pcard.util;
+
+/**
+ * 地区解析与匹配
+ * - 每个不同的地区字符串只解析一次：规范化为简体小写的匹配键，并归类到国家/地区位掩码（大陆/香港/台湾/澳门），结果缓存
+ * - 排序时每张名片只计算一次整数分数，比较器中不再做字符串匹配和简繁体转换
+ */
+public final class RegionResolver {
+    public static final int COUNTRY_CN = 1;
+    public static final int COUNTRY_HK = 1 << 1;
+    public static final int COUNTRY_TW = 1 << 2;
+    public static final int COUNTRY_MO = 1 << 3;
+
+    /** 完全相同或互相包含 */
+    public static final int SCORE_EXACT = 2;
+    /** 同一国家/地区 */
+    public static final int SCORE_SAME_COUNTRY = 1;
+    /** 不匹配 */
+    public static final int SCORE_NONE = 0;
+
+    private static final Region NONE = new Region(null, 0);
+
+    // 中国大陆城市（简体，匹配键已繁转简）
+    private static final String[] CHINA_CITIES = {"北京", "上海", "广州", "深圳", "武汉", "成都", "重庆",
+            "杭州", "南京", "天津", "西安", "郑州", "长沙", "济南",
+            "青岛", "大连", "沈阳", "哈尔滨", "福州", "厦门", "南昌",
+            "合肥", "石家庄", "太原", "兰州", "西宁", "乌鲁木齐",
+            "昆明", "贵阳", "南宁", "海口", "拉萨", "呼和浩特", "银川",
+            "长春", "苏州", "宁波", "无锡", "佛山", "东莞", "珠海",
+            "中山", "惠州", "汕头", "温州", "泉州", "常州", "徐州"};
+    private static final String[] CHINA_KEYWORDS = {"大陆", "中国", "cn", "china"};
+    private static final String[] HK_KEYWORDS = {"香港", "hk", "hong kong"};
+    private static final String[] TW_KEYWORDS = {"台湾", "tw", "taiwan"};
+    private static final String[] MO_KEYWORDS = {"澳门", "mo", "macao", "macau"};
+
+    private static final BoundedCache<String, Region> cache = CacheUtil.newCache("region", 5000, 0);
+
+    private RegionResolver() {
+    }
+
+    /**
+     * 解析后的地区：匹配键 + 国家/地区位掩码
+     */
+    public static final class Region {
+        private final String key;
+        private final int countryMask;
+
+        private Region(String key, int countryMask) {
+            this.key = key;
+            this.countryMask = countryMask;
+        }
+
+        public String getKey() {
+            return key;
+        }
+
+        public int getCountryMask() {
+            return countryMask;
+        }
+
+        /**
+         * 计算与偏好地区的匹配分数
+         * @return {@link #SCORE_EXACT}、{@link #SCORE_SAME_COUNTRY} 或 {@link #SCORE_NONE}
+         */
+        public int scoreAgainst(Region preferred) {
+            if (key == null || preferred.key == null) {
+                return SCORE_NONE;
+            }
+            if (key.contains(preferred.key) || preferred.key.contains(key)) {
+                return SCORE_EXACT;
+            }
+            if ((countryMask & preferred.countryMask) != 0) {
+                return SCORE_SAME_COUNTRY;
+            }
+            return SCORE_NONE;
+        }
+    }
+
+    /**
+     * 解析地区字符串（结果缓存）
+     * @param region 原始地区，可为空
+     */
+    public static Region resolve(String region) {
+        if (region == null || region.trim().isEmpty()) {
+            return NONE;
+        }
+        return cache.get(region, RegionResolver::compute);
+    }
+
+    private static Region compute(String region) {
+        String key = ChineseConverter.toSearchKey(region);
+        int mask = 0;
+        if (containsAny(key, CHINA_CITIES) || containsAny(key, CHINA_KEYWORDS)) {
+            mask |= COUNTRY_CN;
+        }
+        if (containsAny(key, HK_KEYWORDS)) {
+            mask |= COUNTRY_HK;
+        }
+        if (containsAny(key, TW_KEYWORDS)) {
+            mask |= COUNTRY_TW;
+        }
+        if (containsAny(key, MO_KEYWORDS)) {
+            mask |= COUNTRY_MO;
+        }
+        return new Region(key, mask);
+    }
+
+    private static boolean containsAny(String key, String[] keywords) {
+        for (String keyword : keywords) {
+            if (key.contains(keyword)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
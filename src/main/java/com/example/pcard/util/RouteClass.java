@@ -0,0 +1,119 @@
+package com.example.pcard.util;
+
+import javax.servlet.http.HttpServletRequest;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 请求路由分类
+ * 由 {@link com.example.pcard.filter.RouteClassifierFilter} 在过滤器链最前面对每个请求分类一次并存入请求属性，
+ * 后续过滤器（Cloudflare Bot 检测、限流、权限刷新）只读取分类结果，不再各自扫描 URI
+ * 分类只需两次哈希查找：路径第一段（去掉上下文路径）查前缀表，最后一段的扩展名查静态资源表
+ */
+public enum RouteClass {
+    /** 静态资源（css/js/上传图片/字体等） */
+    STATIC(false),
+    /** 登录 */
+    LOGIN(true),
+    /** 注册 */
+    REGISTER(true),
+    /** 管理后台 */
+    ADMIN(true),
+    /** 名片查看与操作 */
+    CARD(true),
+    /** 接口（评论等） */
+    API(true),
+    /** 其他页面 */
+    PAGE(false);
+
+    /** 请求属性名 */
+    public static final String ATTRIBUTE = "routeClass";
+
+    // 路径第一段 -> 分类
+    private static final Map<String, RouteClass> FIRST_SEGMENTS = new HashMap<>();
+    // 静态资源扩展名（小写，不含点）
+    private static final Set<String> STATIC_EXTENSIONS = new HashSet<>();
+
+    static {
+        for (String segment : new String[]{"css", "js", "uploads"}) {
+            FIRST_SEGMENTS.put(segment, STATIC);
+        }
+        for (String segment : new String[]{"login", "login.jsp"}) {
+            FIRST_SEGMENTS.put(segment, LOGIN);
+        }
+        for (String segment : new String[]{"register", "register.jsp"}) {
+            FIRST_SEGMENTS.put(segment, REGISTER);
+        }
+        for (String segment : new String[]{"admin", "admin.jsp", "admin-comments.jsp"}) {
+            FIRST_SEGMENTS.put(segment, ADMIN);
+        }
+        for (String segment : new String[]{"card", "cardAction", "viewCard.jsp"}) {
+            FIRST_SEGMENTS.put(segment, CARD);
+        }
+        for (String segment : new String[]{"api", "commentAction"}) {
+            FIRST_SEGMENTS.put(segment, API);
+        }
+        for (String ext : new String[]{"css", "js", "png", "jpg", "jpeg", "gif", "webp", "ico", "svg",
+                "woff", "woff2", "ttf", "map"}) {
+            STATIC_EXTENSIONS.add(ext);
+        }
+    }
+
+    private final boolean botProtected;
+
+    RouteClass(boolean botProtected) {
+        this.botProtected = botProtected;
+    }
+
+    /**
+     * 是否需要严格的 Bot 检测
+     */
+    public boolean isBotProtected() {
+        return botProtected;
+    }
+
+    /**
+     * 读取请求的分类；过滤器未执行时（如异步或错误分发）当场分类并缓存
+     */
+    public static RouteClass of(HttpServletRequest request) {
+        Object value = request.getAttribute(ATTRIBUTE);
+        if (value instanceof RouteClass) {
+            return (RouteClass) value;
+        }
+        RouteClass routeClass = classify(request.getRequestURI(), request.getContextPath());
+        request.setAttribute(ATTRIBUTE, routeClass);
+        return routeClass;
+    }
+
+    /**
+     * 对 URI 分类
+     * @param uri 请求 URI（含上下文路径）
+     * @param contextPath 上下文路径，可为空
+     */
+    public static RouteClass classify(String uri, String contextPath) {
+        int start = contextPath != null && uri.startsWith(contextPath) ? contextPath.length() : 0;
+        int end = uri.indexOf(';', start);
+        if (end < 0) {
+            end = uri.length();
+        }
+        if (start < end && uri.charAt(start) == '/') {
+            start++;
+        }
+
+        int slash = uri.indexOf('/', start);
+        int segmentEnd = slash < 0 || slash > end ? end : slash;
+        RouteClass bySegment = FIRST_SEGMENTS.get(uri.substring(start, segmentEnd));
+        if (bySegment == STATIC) {
+            return STATIC;
+        }
+
+        int dot = uri.lastIndexOf('.', end - 1);
+        if (dot > uri.lastIndexOf('/', end - 1)
+                && STATIC_EXTENSIONS.contains(uri.substring(dot + 1, end).toLowerCase())) {
+            return STATIC;
+        }
+        return bySegment != null ? bySegment : PAGE;
+    }
+}
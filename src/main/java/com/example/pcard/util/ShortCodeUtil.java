@@ -0,0 +1,97 @@
+package com.example.pcard.util;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+
+/**
+ * 名片短码分配
+ * - 短码由名片 id 经带密钥的置换得到，6 位 Base62（62^6 约 568 亿）；不同 id 的短码必然不同，生成时无需查库探测
+ * - 置换为 36 位 Feistel 网络（8 轮，轮函数 HMAC-SHA256），结果落在 62^6 以外时继续置换（cycle walking），
+ *   因此是 [0, 62^6) 上的双射；没有密钥无法由已知短码推算其他名片的短码（LINK_ONLY 名片的短链带分享令牌）
+ * - 短码区分大小写，short_code 列使用 ascii_bin 排序规则，唯一索引和查询都按大小写区分
+ * - 密钥取自 SHORT_CODE_SECRET，部署后不可更改：更改后新短码可能与已有短码重复，由 short_code 唯一索引拒绝写入
+ * - 旧版随机生成的短码为 7 位，与 6 位短码不会重复
+ */
+public final class ShortCodeUtil {
+    private static final Logger logger = LoggerFactory.getLogger(ShortCodeUtil.class);
+
+    /** 短码长度 */
+    public static final int LENGTH = 6;
+
+    private static final String BASE62 = "0123456789abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ";
+    private static final long SPACE = 56_800_235_584L; // 62^6
+    private static final int HALF_BITS = 18;
+    private static final long HALF_MASK = (1L << HALF_BITS) - 1;
+    private static final int ROUNDS = 8;
+    private static final String DEFAULT_SECRET = "p-card-platform-short-code";
+
+    private static final SecretKeySpec KEY = loadKey();
+    // Mac 非线程安全，每个线程复用一个实例
+    private static final ThreadLocal<Mac> MAC = ThreadLocal.withInitial(ShortCodeUtil::newMac);
+
+    private ShortCodeUtil() {
+    }
+
+    /**
+     * 名片 id 对应的短码
+     * @param cardId 名片ID（正数）
+     * @return 6 位 Base62 短码
+     */
+    public static String forId(int cardId) {
+        if (cardId <= 0) {
+            throw new IllegalArgumentException("card id must be positive: " + cardId);
+        }
+        Mac mac = MAC.get();
+        long value = cardId;
+        do {
+            value = permute(mac, value);
+        } while (value >= SPACE);
+
+        char[] code = new char[LENGTH];
+        for (int i = LENGTH - 1; i >= 0; i--) {
+            code[i] = BASE62.charAt((int) (value % 62));
+            value /= 62;
+        }
+        return new String(code);
+    }
+
+    private static long permute(Mac mac, long value) {
+        long left = value >>> HALF_BITS;
+        long right = value & HALF_MASK;
+        for (int round = 0; round < ROUNDS; round++) {
+            long next = left ^ roundFunction(mac, round, right);
+            left = right;
+            right = next;
+        }
+        return (left << HALF_BITS) | right;
+    }
+
+    private static long roundFunction(Mac mac, int round, long half) {
+        byte[] out = mac.doFinal(new byte[]{(byte) round, (byte) (half >>> 16), (byte) (half >>> 8), (byte) half});
+        return (((out[0] & 0xFFL) << 16) | ((out[1] & 0xFFL) << 8) | (out[2] & 0xFFL)) & HALF_MASK;
+    }
+
+    private static Mac newMac() {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(KEY);
+            return mac;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HmacSHA256 not available", e);
+        }
+    }
+
+    private static SecretKeySpec loadKey() {
+        String secret = System.getenv("SHORT_CODE_SECRET");
+        if (secret == null || secret.isEmpty()) {
+            logger.warn("未设置 SHORT_CODE_SECRET，短码使用内置密钥生成，可由已知短码推算其他名片的短码");
+            secret = DEFAULT_SECRET;
+        }
+        return new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), "HmacSHA256");
+    }
+}
@@ -13,7 +13,7 @@
     <meta charset="UTF-8">
     <meta name="viewport" content="width=device-width, initial-scale=1.0, viewport-fit=cover">
     <title>评论管理 - P-Card 平台</title>
-    <link rel="stylesheet" href="css/style.css">
+    <link rel="stylesheet" href="css/style.css?v=${assetVersion}">
     <style>
         .page-header-title {
             color: var(--text-color);
@@ -178,6 +178,6 @@
     </div>
 </div>
 
-<script src="js/script.js"></script>
+<script src="js/script.js?v=${assetVersion}"></script>
 </body>
 </html>
@@ -15,7 +15,7 @@
     <meta name="apple-mobile-web-app-capable" content="yes">
     <meta name="apple-mobile-web-app-status-bar-style" content="black-translucent">
     <title>管理面板 - P-Card 平台</title>
-    <link rel="stylesheet" href="css/style.css">
+    <link rel="stylesheet" href="css/style.css?v=${assetVersion}">
     <style>
         .page-header-title {
             color: var(--text-color);
@@ -284,9 +284,13 @@
             <div class="pagination">
                 <c:set var="prevU" value="${userPage - 1 > 0 ? userPage - 1 : 1}" />
                 <c:set var="nextU" value="${userPage + 1 <= userTotalPages ? userPage + 1 : userTotalPages}" />
-                <a class="page-btn" href="admin?uPage=${prevU}&role=${param.role}&status=${param.status}&userQ=${fn:escapeXml(param.userQ)}&cPage=${param.cPage}&visibility=${param.visibility}&cardQ=${fn:escapeXml(param.cardQ)}">上一页</a>
+                <%-- 翻页携带当前页首/尾 id 作为游标；另一列表的游标原样保留 --%>
+                <c:set var="prevUCursor" value="${userPage > 1 ? 'uBefore=' += userFirstId : 'uAfter=' += param.uAfter += '&uBefore=' += param.uBefore}" />
+                <c:set var="nextUCursor" value="${userPage < userTotalPages ? 'uAfter=' += userLastId : 'uAfter=' += param.uAfter += '&uBefore=' += param.uBefore}" />
+                <c:set var="keepC" value="cAfter=${param.cAfter}&cBefore=${param.cBefore}" />
+                <a class="page-btn" href="admin?uPage=${prevU}&${prevUCursor}&role=${param.role}&status=${param.status}&userQ=${fn:escapeXml(param.userQ)}&cPage=${param.cPage}&${keepC}&visibility=${param.visibility}&cardQ=${fn:escapeXml(param.cardQ)}">上一页</a>
                 <span class="page-info">第 ${userPage} / ${userTotalPages} 页，共 ${userTotal} 条</span>
-                <a class="page-btn" href="admin?uPage=${nextU}&role=${param.role}&status=${param.status}&userQ=${fn:escapeXml(param.userQ)}&cPage=${param.cPage}&visibility=${param.visibility}&cardQ=${fn:escapeXml(param.cardQ)}">下一页</a>
+                <a class="page-btn" href="admin?uPage=${nextU}&${nextUCursor}&role=${param.role}&status=${param.status}&userQ=${fn:escapeXml(param.userQ)}&cPage=${param.cPage}&${keepC}&visibility=${param.visibility}&cardQ=${fn:escapeXml(param.cardQ)}">下一页</a>
             </div>
         </c:if>
     </div>
@@ -381,15 +385,18 @@
             <div class="pagination">
                 <c:set var="prevC" value="${cardPage - 1 > 0 ? cardPage - 1 : 1}" />
                 <c:set var="nextC" value="${cardPage + 1 <= cardTotalPages ? cardPage + 1 : cardTotalPages}" />
-                <a class="page-btn" href="admin?cPage=${prevC}&visibility=${param.visibility}&cardQ=${fn:escapeXml(param.cardQ)}&uPage=${param.uPage}&role=${param.role}&status=${param.status}&userQ=${fn:escapeXml(param.userQ)}">上一页</a>
+                <c:set var="prevCCursor" value="${cardPage > 1 ? 'cBefore=' += cardFirstId : 'cAfter=' += param.cAfter += '&cBefore=' += param.cBefore}" />
+                <c:set var="nextCCursor" value="${cardPage < cardTotalPages ? 'cAfter=' += cardLastId : 'cAfter=' += param.cAfter += '&cBefore=' += param.cBefore}" />
+                <c:set var="keepU" value="uAfter=${param.uAfter}&uBefore=${param.uBefore}" />
+                <a class="page-btn" href="admin?cPage=${prevC}&${prevCCursor}&visibility=${param.visibility}&cardQ=${fn:escapeXml(param.cardQ)}&uPage=${param.uPage}&${keepU}&role=${param.role}&status=${param.status}&userQ=${fn:escapeXml(param.userQ)}">上一页</a>
                 <span class="page-info">第 ${cardPage} / ${cardTotalPages} 页，共 ${cardTotal} 条</span>
-                <a class="page-btn" href="admin?cPage=${nextC}&visibility=${param.visibility}&cardQ=${fn:escapeXml(param.cardQ)}&uPage=${param.uPage}&role=${param.role}&status=${param.status}&userQ=${fn:escapeXml(param.userQ)}">下一页</a>
+                <a class="page-btn" href="admin?cPage=${nextC}&${nextCCursor}&visibility=${param.visibility}&cardQ=${fn:escapeXml(param.cardQ)}&uPage=${param.uPage}&${keepU}&role=${param.role}&status=${param.status}&userQ=${fn:escapeXml(param.userQ)}">下一页</a>
             </div>
         </c:if>
     </div>
 </div>
 
-<script src="js/script.js"></script>
+<script src="js/script.js?v=${assetVersion}"></script>
 <script>
 function selectAllUsers() {
     var checkboxes = document.querySelectorAll('.user-checkbox');
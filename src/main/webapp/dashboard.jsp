@@ -12,7 +12,7 @@
     <meta name="apple-mobile-web-app-status-bar-style" content="black-translucent">
     <title>管理后台 - P-Card 平台</title>
     <link rel="stylesheet" href="https://cdnjs.cloudflare.com/ajax/libs/font-awesome/6.5.1/css/all.min.css">
-    <link rel="stylesheet" href="css/style.css">
+    <link rel="stylesheet" href="css/style.css?v=${assetVersion}">
     <style>
         .page-header-title {
             color: var(--text-color);
@@ -110,7 +110,7 @@
                 <c:forEach var="citem" items="${myCards}">
                     <div class="my-card-item small">
                         <%-- 判断是否为绝对 URL（GCS 路径），如果是则直接使用，否则添加 contextPath --%>
-                        <c:set var="imagePath" value="${citem.cardFrontPath != null ? citem.cardFrontPath : 'https://placehold.co/200x120/0071e3/ffffff?text=P-CARD'}" />
+                        <c:set var="imagePath" value="${citem.cardFrontPath != null ? citem.getFrontImagePath(320) : 'https://placehold.co/200x120/0071e3/ffffff?text=P-CARD'}" />
                         <c:set var="imageUrl" value="${imagePath.startsWith('http://') || imagePath.startsWith('https://') ? imagePath : pageContext.request.contextPath.concat('/').concat(imagePath)}" />
                         <img src="${imageUrl}" alt="${citem.producerName}"/>
                         <div class="my-card-meta">
@@ -237,7 +237,7 @@
         </div>
     </c:if>
 </div>
-<script src="js/script.js"></script>
+<script src="js/script.js?v=${assetVersion}"></script>
 <script>
     // 当创建新名片时，自动填充昵称到制作人昵称字段
     document.addEventListener('DOMContentLoaded', function() {
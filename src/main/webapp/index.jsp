@@ -35,7 +35,7 @@
     <link rel="icon" type="image/png" href="/favicon.png">
     <link rel="shortcut icon" href="/favicon.ico">
     <link rel="apple-touch-icon" href="/favicon.png">
-    <link rel="stylesheet" href="css/style.css">
+    <link rel="stylesheet" href="css/style.css?v=${assetVersion}">
     <style>
         /* 首页专属样式 */
         body {
@@ -142,12 +142,12 @@
         <c:if test="${not empty param.q}">
             <p>关于“<strong><c:out value='${param.q}'/></strong>”的搜索结果：</p>
         </c:if>
-        <div class="card-grid" id="card-grid" data-offset="${fn:length(cards)}" data-limit="12">
+        <div class="card-grid" id="card-grid" data-next-cursor="${nextCursor}" data-limit="12">
             <c:forEach var="card" items="${cards}">
                 <a href="card/${card.uniqueLinkId}" class="p-card-item-link">
                     <div class="p-card-item">
                         <%-- 构建图片 URL，区分绝对路径和相对路径 --%>
-                        <c:set var="imgPath" value="${card.cardFrontPath != null ? card.cardFrontPath : 'https://placehold.co/600x400/FFC107/5D4037?text=P-CARD'}" />
+                        <c:set var="imgPath" value="${card.cardFrontPath != null ? card.getFrontImagePath(640) : 'https://placehold.co/600x400/FFC107/5D4037?text=P-CARD'}" />
                         <c:set var="imgUrl" value="${imgPath.startsWith('http://') || imgPath.startsWith('https://') ? imgPath : pageContext.request.contextPath.concat('/').concat(imgPath)}" />
                         
                         <div class="p-card-img-wrapper">
@@ -222,17 +222,24 @@
             async function loadMore(){
                 if (loading || ended) return;
                 loading = true;
-                const offset = parseInt(grid.getAttribute('data-offset')) || 0;
+                const cursor = grid.getAttribute('data-next-cursor');
+                if (!cursor) {
+                    ended = true;
+                    loading = false;
+                    return;
+                }
                 const limit = parseInt(grid.getAttribute('data-limit')) || 12;
                 try {
                     const url = new URL(window.location.origin + ctx + '/');
                     url.searchParams.set('format','1');
-                    url.searchParams.set('offset', offset);
+                    url.searchParams.set('afterId', cursor);
                     url.searchParams.set('limit', limit);
                     if (q) url.searchParams.set('q', q);
                     const res = await fetch(url.toString(), { headers: { 'X-Requested-With':'XMLHttpRequest' }});
-                    const data = await res.json();
-                    if (!Array.isArray(data) || data.length === 0) {
+                    const page = await res.json();
+                    const data = (page && Array.isArray(page.cards)) ? page.cards : [];
+                    grid.setAttribute('data-next-cursor', page && page.nextCursor ? page.nextCursor : '');
+                    if (data.length === 0) {
                         ended = true;
                         return;
                     }
@@ -303,7 +310,6 @@
                         });
                     }
                     
-                    grid.setAttribute('data-offset', offset + data.length);
                 } catch(e){
                     // 可选：toast 提示
                 }
@@ -316,13 +322,10 @@
                 });
             }
 
-            // 若初始没有卡片，停止加载
-            if ((parseInt(grid.getAttribute('data-offset')) || 0) === 0) {
-                // 初次渲染已由服务端填充，若为空则无需观察
-                if (!grid.querySelector('.p-card-item-link')) {
-                    ended = true;
-                    return;
-                }
+            // 初次渲染已由服务端填充，没有下一页游标则无需观察
+            if (!grid.getAttribute('data-next-cursor')) {
+                ended = true;
+                return;
             }
 
             const io = new IntersectionObserver((entries)=>{
@@ -386,6 +389,6 @@
             }
         });
     </script>
-    <script src="js/script.js"></script>
+    <script src="js/script.js?v=${assetVersion}"></script>
 </body>
 </html>
\ No newline at end of file
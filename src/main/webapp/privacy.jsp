@@ -5,7 +5,7 @@
     <meta charset="UTF-8">
     <meta name="viewport" content="width=device-width, initial-scale=1.0, viewport-fit=cover">
     <title>隐私政策 - P-Card 平台</title>
-    <link rel="stylesheet" href="css/style.css">
+    <link rel="stylesheet" href="css/style.css?v=${assetVersion}">
     <style>
         .privacy-container { max-width: 860px; margin: 40px auto; padding: 0 16px; }
         .privacy-container h1 { margin-bottom: 12px; }
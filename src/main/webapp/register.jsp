@@ -8,7 +8,7 @@
     <meta name="apple-mobile-web-app-capable" content="yes">
     <meta name="apple-mobile-web-app-status-bar-style" content="black-translucent">
     <title>注册 - P-Card 平台</title>
-    <link rel="stylesheet" href="css/style.css">
+    <link rel="stylesheet" href="css/style.css?v=${assetVersion}">
     <c:if test="${not empty turnstileSiteKey}">
         <script src="https://challenges.cloudflare.com/turnstile/v0/api.js" async defer></script>
     </c:if>
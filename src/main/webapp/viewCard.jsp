@@ -24,7 +24,7 @@
 
     String ogImageUrl = "";
     if (cardForMeta != null && cardForMeta.getCardFrontPath() != null) {
-        String frontPath = cardForMeta.getCardFrontPath().trim();
+        String frontPath = cardForMeta.getFrontImagePath(1280).trim();
         if (frontPath.startsWith("http://") || frontPath.startsWith("https://")) {
             ogImageUrl = frontPath;
         } else {
@@ -69,7 +69,7 @@
     <% } %>
     
     <link rel="stylesheet" href="https://cdnjs.cloudflare.com/ajax/libs/font-awesome/6.5.1/css/all.min.css">
-    <link rel="stylesheet" href="${pageContext.request.contextPath}/css/style.css">
+    <link rel="stylesheet" href="${pageContext.request.contextPath}/css/style.css?v=${assetVersion}">
 </head>
 <body>
     <div class="container view-card-container">
@@ -118,8 +118,8 @@
         <%-- 处理：支持未上传图片 / 只上传一面 图片为外部或内部路径 --%>
         <%
             com.example.pcard.model.Card cardObj = (com.example.pcard.model.Card) request.getAttribute("card");
-            String frontPath = cardObj != null ? cardObj.getCardFrontPath() : null;
-            String backPath = cardObj != null ? cardObj.getCardBackPath() : null;
+            String frontPath = cardObj != null ? cardObj.getFrontImagePath(1280) : null;
+            String backPath = cardObj != null ? cardObj.getBackImagePath(1280) : null;
             String imageOrientation = cardObj != null ? cardObj.getImageOrientation() : "HORIZONTAL";
             // 如果没有方向信息，默认为横版
             if (imageOrientation == null || imageOrientation.trim().isEmpty()) {
@@ -269,6 +269,6 @@
             </c:otherwise>
         </c:choose>
     </script>
-    <script src="${pageContext.request.contextPath}/js/script.js"></script>
+    <script src="${pageContext.request.contextPath}/js/script.js?v=${assetVersion}"></script>
 </body>
 </html>
\ No newline at end of file